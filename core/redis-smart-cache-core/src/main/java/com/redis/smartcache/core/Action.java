@@ -1,9 +1,19 @@
 package com.redis.smartcache.core;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class Action {
 
     private long ttl = RuleConfig.DEFAULT_TTL.toMillis();
 
+    private long ttlMin;
+
+    private long ttlMax;
+
+    private List<ParameterAction> parameterActions;
+
     public long getTtl() {
         return ttl;
     }
@@ -12,4 +22,64 @@ public class Action {
         this.ttl = ttl;
     }
 
+    public long getTtlMin() {
+        return ttlMin;
+    }
+
+    public long getTtlMax() {
+        return ttlMax;
+    }
+
+    /**
+     * Makes the TTL adaptive within the given bounds.
+     *
+     * @param ttlMin lower bound in milliseconds
+     * @param ttlMax upper bound in milliseconds
+     */
+    public void setTtlRange(long ttlMin, long ttlMax) {
+        this.ttlMin = ttlMin;
+        this.ttlMax = ttlMax;
+    }
+
+    /**
+     *
+     * @return true if the TTL is adjusted depending on how often results change
+     */
+    public boolean isAdaptive() {
+        return ttlMax > 0;
+    }
+
+    /**
+     * Adds the TTL of a matching rule that has parameter conditions. Such rules do not stop rule evaluation, so that the TTL
+     * of this action applies when none of their conditions hold.
+     */
+    public void addParameterAction(ParameterAction action) {
+        if (parameterActions == null) {
+            parameterActions = new ArrayList<>();
+        }
+        parameterActions.add(action);
+    }
+
+    public boolean hasParameterActions() {
+        return parameterActions != null;
+    }
+
+    /**
+     *
+     * @param parameters parameter values of an execution by index
+     * @return the first parameter action whose conditions hold, in rule order, or null if none
+     */
+    public ParameterAction parameterAction(Map<Integer, Object> parameters) {
+        if (parameterActions == null) {
+            return null;
+        }
+        for (int index = 0; index < parameterActions.size(); index++) {
+            ParameterAction action = parameterActions.get(index);
+            if (action.test(parameters)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.redis.smartcache.core;
+
+import java.util.Map;
+
+/**
+ * Time-to-live of a query that follows how often its results change. Each time a result is fetched from the database because
+ * its cache entry expired, its content hash is compared with the hash of the previous result for the same cache key: the TTL
+ * is doubled if the result did not change, and halved if it did, within the configured bounds.
+ * <p>
+ * The TTL therefore converges towards the interval at which results change, so that unchanged results stay cached as long as
+ * allowed while staleness stays bounded by the upper bound.
+ */
+public class AdaptiveTtl {
+
+    private static final int DEFAULT_KEYS = 256;
+
+    private final Map<String, Long> hashes;
+
+    private volatile long ttlMin;
+
+    private volatile long ttlMax;
+
+    private volatile long ttl;
+
+    /**
+     *
+     * @param ttl initial TTL in milliseconds
+     * @param ttlMin lower bound in milliseconds
+     * @param ttlMax upper bound in milliseconds
+     */
+    public AdaptiveTtl(long ttl, long ttlMin, long ttlMax) {
+        this(ttl, ttlMin, ttlMax, DEFAULT_KEYS);
+    }
+
+    /**
+     *
+     * @param ttl initial TTL in milliseconds
+     * @param ttlMin lower bound in milliseconds
+     * @param ttlMax upper bound in milliseconds
+     * @param keys max number of cache keys whose last result hash is kept
+     */
+    public AdaptiveTtl(long ttl, long ttlMin, long ttlMax, int keys) {
+        this.hashes = new EvictingLinkedHashMap<>(keys);
+        this.ttlMin = ttlMin;
+        this.ttlMax = ttlMax;
+        this.ttl = ttl;
+    }
+
+    /**
+     *
+     * @return the current TTL in milliseconds
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Updates the bounds, e.g. after rules changed, and clamps the current TTL to them.
+     */
+    public void setRange(long ttlMin, long ttlMax) {
+        if (ttlMin == this.ttlMin && ttlMax == this.ttlMax) {
+            return;
+        }
+        synchronized (this) {
+            this.ttlMin = ttlMin;
+            this.ttlMax = ttlMax;
+            this.ttl = clamp(ttl);
+        }
+    }
+
+    /**
+     * Records a result fetched from the database.
+     *
+     * @param key the cache key of the result
+     * @param hash the content hash of the result
+     * @return the TTL to cache the result with, in milliseconds
+     */
+    public synchronized long update(String key, long hash) {
+        Long previous = hashes.put(key, hash);
+        if (previous != null) {
+            ttl = clamp(previous == hash ? ttl * 2 : ttl / 2);
+        }
+        return ttl;
+    }
+
+    private long clamp(long value) {
+        return Math.min(Math.max(value, ttlMin), ttlMax);
+    }
+
+}
@@ -0,0 +1,316 @@
+package com.redis.smartcache.core;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.smartcache.core.config.AutoCacheConfig;
+import com.redis.smartcache.core.config.RulesetConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.step.StepMeterRegistry;
+
+/**
+ * Enables caching of slow and frequent queries, and disables it again for queries that turn out to have a poor hit ratio,
+ * based on the backend timers and cache counters of each query.
+ * <p>
+ * Decisions are kept in two rules identified by their name: a query IDs rule with the configured TTL for enabled queries and
+ * a query IDs rule with a zero TTL for disabled queries, inserted before the catch-all rule so that rules written by operators
+ * take precedence. Updated rules are published to the config stream so that they apply to all application instances and show
+ * in the CLI.
+ * <p>
+ * Disabled queries are considered again for caching after the retry interval. Decisions about queries whose meters were
+ * removed are dropped.
+ */
+public class AutoCachePlanner implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(AutoCachePlanner.class.getName());
+
+    public static final String RULE_ENABLED = "auto-enabled";
+
+    public static final String RULE_DISABLED = "auto-disabled";
+
+    private static final double MEDIAN = 0.5;
+
+    private static final String THREAD_NAME = "smartcache-auto";
+
+    private final AutoCacheConfig config;
+
+    private final MeterRegistry registry;
+
+    private final ConfigManager<RulesetConfig> configManager;
+
+    private final long interval;
+
+    private final boolean cumulative;
+
+    private final Map<Meter.Id, Double> previousCounts = new HashMap<>();
+
+    /**
+     * IDs of the queries metered at the last published plan
+     */
+    private Set<String> metered = Collections.emptySet();
+
+    /**
+     * Time at which each disabled query was first seen disabled here, in milliseconds since the epoch
+     */
+    private final Map<String, Long> disabledTimes = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     *
+     * @param config the auto caching config
+     * @param registry the registry holding query meters
+     * @param configManager manager of the ruleset to read and publish rules with
+     * @param interval interval between plans, usually the metrics step
+     */
+    public AutoCachePlanner(AutoCacheConfig config, MeterRegistry registry, ConfigManager<RulesetConfig> configManager,
+            Duration interval) {
+        this.config = config;
+        this.registry = registry;
+        this.configManager = configManager;
+        this.interval = interval.toMillis();
+        this.cumulative = !isStep(registry);
+    }
+
+    /**
+     * Step registries report counts for the last step, others report counts since the meter was created.
+     */
+    private static boolean isStep(MeterRegistry registry) {
+        if (registry instanceof CompositeMeterRegistry) {
+            Set<MeterRegistry> registries = ((CompositeMeterRegistry) registry).getRegistries();
+            return !registries.isEmpty() && registries.stream().allMatch(AutoCachePlanner::isStep);
+        }
+        return registry instanceof StepMeterRegistry;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::plan, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Updates caching decisions from the query meters and publishes the rules if any decision changed. Rules are published only
+     * if they were not updated while planning, by an operator or another application instance, in which case decisions are
+     * made again at the next interval from the updated rules.
+     */
+    public void plan() {
+        try {
+            Map<String, QueryStats> stats = stats();
+            String version = configManager.getVersion();
+            RuleConfig[] rules = plan(configManager.get().getRules(), stats);
+            if (rules != null && !configManager.publish(RulesetConfig.of(rules), version)) {
+                log.log(Level.INFO, "Rules were updated while planning automatic caching");
+                return;
+            }
+            metered = stats.keySet();
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Could not plan automatic caching", e);
+        }
+    }
+
+    /**
+     *
+     * @param rules the current rules
+     * @param stats query stats over the last interval, by query ID
+     * @return the updated rules, or null if no decision changed
+     */
+    RuleConfig[] plan(RuleConfig[] rules, Map<String, QueryStats> stats) {
+        Set<String> enabled = queryIds(rules, RULE_ENABLED);
+        Set<String> disabled = queryIds(rules, RULE_DISABLED);
+        double seconds = interval / 1000.0;
+        boolean changed = false;
+        for (String id : metered) {
+            // Meters of the query were removed, e.g. to make room for hotter queries: forget decisions about it
+            if (!stats.containsKey(id) && (enabled.remove(id) | disabled.remove(id))) {
+                log.log(Level.FINE, "Forgetting query {0}: no longer metered", id);
+                changed = true;
+            }
+        }
+        long now = System.currentTimeMillis();
+        disabledTimes.keySet().retainAll(disabled);
+        for (String id : disabled) {
+            disabledTimes.putIfAbsent(id, now);
+        }
+        for (Map.Entry<String, QueryStats> entry : stats.entrySet()) {
+            String id = entry.getKey();
+            QueryStats query = entry.getValue();
+            if (enabled.contains(id)) {
+                if (query.gets >= config.getMinGets() && query.hits < query.gets * config.getMinHitRatio()) {
+                    log.log(Level.INFO, "Disabling caching of query {0}: {1} hits out of {2}",
+                            new Object[] { id, query.hits, query.gets });
+                    enabled.remove(id);
+                    disabled.add(id);
+                    disabledTimes.put(id, now);
+                    changed = true;
+                }
+                continue;
+            }
+            if (disabled.contains(id)) {
+                if (now - disabledTimes.get(id) < config.getRetryInterval().toMillis()) {
+                    continue;
+                }
+                log.log(Level.FINE, "Considering query {0} again for caching", id);
+                disabled.remove(id);
+                changed = true;
+            }
+            if (query.gets == 0 && query.calls / seconds >= config.getMinRate()
+                    && query.medianMillis >= config.getMinLatency().toMillis()) {
+                // Queries with cache lookups are already cached by another rule
+                log.log(Level.INFO, "Enabling caching of query {0}: {1} calls/s, median {2} ms",
+                        new Object[] { id, query.calls / seconds, query.medianMillis });
+                enabled.add(id);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return null;
+        }
+        return rules(rules, enabled, disabled);
+    }
+
+    private static Set<String> queryIds(RuleConfig[] rules, String name) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (RuleConfig rule : rules) {
+            if (name.equals(rule.getName()) && rule.getQueryIds() != null) {
+                ids.addAll(rule.getQueryIds());
+            }
+        }
+        return ids;
+    }
+
+    private RuleConfig[] rules(RuleConfig[] rules, Set<String> enabled, Set<String> disabled) {
+        List<RuleConfig> operatorRules = new ArrayList<>();
+        for (RuleConfig rule : rules) {
+            if (!RULE_ENABLED.equals(rule.getName()) && !RULE_DISABLED.equals(rule.getName())) {
+                operatorRules.add(rule);
+            }
+        }
+        int position = operatorRules.size();
+        if (position > 0 && isCatchAll(operatorRules.get(position - 1))) {
+            position--;
+        }
+        List<RuleConfig> autoRules = new ArrayList<>();
+        if (!disabled.isEmpty()) {
+            autoRules.add(RuleConfig.queryIds(disabled.toArray(new String[0])).name(RULE_DISABLED)
+                    .ttl(RuleConfig.TTL_NO_CACHING).build());
+        }
+        if (!enabled.isEmpty()) {
+            autoRules.add(RuleConfig.queryIds(enabled.toArray(new String[0])).name(RULE_ENABLED).ttl(config.getTtl()).build());
+        }
+        operatorRules.addAll(position, autoRules);
+        return operatorRules.toArray(new RuleConfig[0]);
+    }
+
+    private static boolean isCatchAll(RuleConfig rule) {
+        return rule.getTables() == null && rule.getTablesAny() == null && rule.getTablesAll() == null
+                && rule.getRegex() == null && rule.getQueryIds() == null && rule.getParameters() == null;
+    }
+
+    private Map<String, QueryStats> stats() {
+        Map<String, QueryStats> stats = new HashMap<>();
+        Set<Meter.Id> ids = new HashSet<>();
+        for (Timer timer : registry.find(Fields.METER_BACKEND).timers()) {
+            String id = timer.getId().getTag(Fields.TAG_ID);
+            if (Fields.ID_OTHER.equals(id)) {
+                // Long tail of queries metered together: no rule can target them
+                continue;
+            }
+            QueryStats query = stats.computeIfAbsent(id, k -> new QueryStats());
+            ids.add(timer.getId());
+            double calls = count(timer.getId(), timer.count());
+            if (calls > query.calls) {
+                // Statement types have separate timers: use the median of the busiest one
+                query.medianMillis = median(timer);
+            }
+            query.calls += calls;
+        }
+        for (Counter counter : registry.find(Fields.METER_CACHE_GET).counters()) {
+            QueryStats query = stats.get(counter.getId().getTag(Fields.TAG_ID));
+            if (query != null) {
+                ids.add(counter.getId());
+                double count = count(counter.getId(), counter.count());
+                query.gets += count;
+                if (Fields.TAG_HIT.equals(counter.getId().getTag(Fields.TAG_RESULT))) {
+                    query.hits += count;
+                }
+            }
+        }
+        // Forget counts of removed meters
+        previousCounts.keySet().retainAll(ids);
+        return stats;
+    }
+
+    private double count(Meter.Id id, double count) {
+        if (!cumulative) {
+            return count;
+        }
+        Double previous = previousCounts.put(id, count);
+        return previous == null ? count : count - previous;
+    }
+
+    private static double median(Timer timer) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == MEDIAN) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return timer.mean(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Backend calls and cache lookups of a query over the last interval.
+     */
+    static class QueryStats {
+
+        double calls;
+
+        double medianMillis;
+
+        double gets;
+
+        double hits;
+
+        QueryStats() {
+        }
+
+        QueryStats(double calls, double medianMillis, double gets, double hits) {
+            this.calls = calls;
+            this.medianMillis = medianMillis;
+            this.gets = gets;
+            this.hits = hits;
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.redis.smartcache.core;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+
+/**
+ * Lock-free write back-off shared by all caches writing to the same Redis. Writes are suspended with exponential back-off and
+ * jitter after an OOM error, and pre-emptively while the Redis memory usage ratio reported by {@code INFO memory} is above a
+ * threshold.
+ */
+public class BackoffController implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(BackoffController.class.getName());
+
+    private static final Pattern USED_MEMORY = Pattern.compile("^used_memory:(\\d+)", Pattern.MULTILINE);
+
+    private static final Pattern MAX_MEMORY = Pattern.compile("^maxmemory:(\\d+)", Pattern.MULTILINE);
+
+    private static final String ERROR_OOM = "OOM command not allowed";
+
+    private static final long LOG_INTERVAL = 10000;
+
+    private static final int MAX_SHIFT = 30;
+
+    private final long initialDelay;
+
+    private final long maxDelay;
+
+    private final Supplier<? extends CompletionStage<String>> memoryInfo;
+
+    private final StatefulRedisModulesConnection<String, String> connection;
+
+    private final double memoryThreshold;
+
+    private final long probeInterval;
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private final AtomicLong nextAttempt = new AtomicLong();
+
+    private final AtomicLong nextProbe = new AtomicLong();
+
+    private final Map<String, LogLimiter> logLimiters = new ConcurrentHashMap<>();
+
+    private volatile boolean memoryPressure;
+
+    public BackoffController(Duration initialDelay, Duration maxDelay) {
+        this(initialDelay, maxDelay, null, null, 0, Duration.ZERO);
+    }
+
+    /**
+     *
+     * @param initialDelay back-off after the first OOM error
+     * @param maxDelay upper bound for the back-off
+     * @param memoryInfo supplier of Redis {@code INFO memory} replies, or null to disable memory probing
+     * @param memoryThreshold used_memory/maxmemory ratio above which writes are suspended
+     * @param probeInterval interval between two memory probes
+     */
+    public BackoffController(Duration initialDelay, Duration maxDelay, Supplier<? extends CompletionStage<String>> memoryInfo,
+            double memoryThreshold, Duration probeInterval) {
+        this(initialDelay, maxDelay, memoryInfo, null, memoryThreshold, probeInterval);
+    }
+
+    /**
+     * Probes the memory of the given Redis over a connection owned by this controller, closed along with it.
+     *
+     * @param initialDelay back-off after the first OOM error
+     * @param maxDelay upper bound for the back-off
+     * @param client Redis client to open the probe connection with
+     * @param memoryThreshold used_memory/maxmemory ratio above which writes are suspended, greater than 0
+     * @param probeInterval interval between two memory probes
+     */
+    public BackoffController(Duration initialDelay, Duration maxDelay, AbstractRedisClient client, double memoryThreshold,
+            Duration probeInterval) {
+        this(initialDelay, maxDelay, RedisModulesUtils.connection(client), memoryThreshold, probeInterval);
+    }
+
+    private BackoffController(Duration initialDelay, Duration maxDelay, StatefulRedisModulesConnection<String, String> connection,
+            double memoryThreshold, Duration probeInterval) {
+        this(initialDelay, maxDelay, () -> connection.async().info("memory"), connection, memoryThreshold, probeInterval);
+    }
+
+    private BackoffController(Duration initialDelay, Duration maxDelay, Supplier<? extends CompletionStage<String>> memoryInfo,
+            StatefulRedisModulesConnection<String, String> connection, double memoryThreshold, Duration probeInterval) {
+        this.connection = connection;
+        this.initialDelay = Math.max(1, initialDelay.toMillis());
+        this.maxDelay = Math.max(this.initialDelay, maxDelay.toMillis());
+        this.memoryInfo = memoryThreshold > 0 ? memoryInfo : null;
+        this.memoryThreshold = memoryThreshold;
+        this.probeInterval = probeInterval.toMillis();
+    }
+
+    /**
+     *
+     * @return true if writes are currently allowed
+     */
+    public boolean allowWrite() {
+        long now = System.currentTimeMillis();
+        if (memoryInfo != null) {
+            probeMemory(now);
+        }
+        return !memoryPressure && now >= nextAttempt.get();
+    }
+
+    public boolean isMemoryPressure() {
+        return memoryPressure;
+    }
+
+    public void onSuccess() {
+        if (attempts.get() != 0) {
+            attempts.set(0);
+        }
+    }
+
+    /**
+     * Suspends writes following an OOM error. Concurrent OOM errors for writes that were already in flight do not extend the
+     * back-off any further.
+     *
+     * @param error the OOM error returned by Redis
+     */
+    public void onOom(Exception error) {
+        long now = System.currentTimeMillis();
+        long current = nextAttempt.get();
+        if (now < current) {
+            return;
+        }
+        long delay = delay(attempts.incrementAndGet());
+        if (nextAttempt.compareAndSet(current, now + delay)) {
+            log(Level.SEVERE, "Redis OOM. Writes disabled for {0} ms.", error, delay);
+        }
+    }
+
+    /**
+     *
+     * @param error an error returned by Redis
+     * @return true if the error is an OOM error, i.e. Redis reached maxmemory and cannot evict
+     */
+    public static boolean isOom(Throwable error) {
+        String message = error.getMessage();
+        return message != null && message.startsWith(ERROR_OOM);
+    }
+
+    private long delay(int attempt) {
+        long base = initialDelay << Math.min(attempt - 1, MAX_SHIFT);
+        if (base <= 0 || base > maxDelay) {
+            base = maxDelay;
+        }
+        return base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void probeMemory(long now) {
+        long next = nextProbe.get();
+        if (now < next || !nextProbe.compareAndSet(next, now + probeInterval)) {
+            return;
+        }
+        try {
+            memoryInfo.get().whenComplete((info, error) -> {
+                if (error == null) {
+                    updateMemoryPressure(info);
+                } else {
+                    log.log(Level.FINE, "Could not probe Redis memory", error);
+                }
+            });
+        } catch (Exception e) {
+            log.log(Level.FINE, "Could not probe Redis memory", e);
+        }
+    }
+
+    private void updateMemoryPressure(String info) {
+        long maxMemory = parse(MAX_MEMORY, info);
+        boolean pressure = false;
+        if (maxMemory > 0) {
+            double ratio = (double) parse(USED_MEMORY, info) / maxMemory;
+            pressure = ratio >= memoryThreshold;
+        }
+        if (pressure != memoryPressure) {
+            memoryPressure = pressure;
+            log(Level.WARNING, pressure ? "Redis memory usage above {0}. Writes throttled."
+                    : "Redis memory usage below {0}. Writes resumed.", null, memoryThreshold);
+        }
+    }
+
+    private static long parse(Pattern pattern, String info) {
+        if (info == null) {
+            return 0;
+        }
+        Matcher matcher = pattern.matcher(info);
+        if (matcher.find()) {
+            return Long.parseLong(matcher.group(1));
+        }
+        return 0;
+    }
+
+    /**
+     * Logs each message at most once per interval, reporting how many times it was suppressed since it was last logged. Stack
+     * traces are only included at FINE level.
+     */
+    public void log(Level level, String message, Exception error, Object... parameters) {
+        LogLimiter limiter = logLimiters.computeIfAbsent(message, m -> new LogLimiter());
+        long now = System.currentTimeMillis();
+        long next = limiter.nextLog.get();
+        if (now < next || !limiter.nextLog.compareAndSet(next, now + LOG_INTERVAL)) {
+            limiter.suppressed.incrementAndGet();
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, MessageFormat.format(message, parameters), error);
+            }
+            return;
+        }
+        long suppressed = limiter.suppressed.getAndSet(0);
+        String formatted = MessageFormat.format(message, parameters);
+        if (suppressed > 0) {
+            formatted += " (" + suppressed + " similar messages suppressed)";
+        }
+        if (error == null) {
+            log.log(level, formatted);
+        } else {
+            log.log(level, formatted + " " + error.getMessage());
+            log.log(Level.FINE, formatted, error);
+        }
+    }
+
+    /**
+     * Closes the probe connection if owned by this controller.
+     */
+    @Override
+    public void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private static class LogLimiter {
+
+        private final AtomicLong nextLog = new AtomicLong();
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+    }
+
+}
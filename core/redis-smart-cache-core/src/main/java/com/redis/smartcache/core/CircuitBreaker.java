@@ -0,0 +1,124 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Lock-free circuit breaker guarding calls to Redis. While the circuit is open all calls are rejected without touching the
+ * network. Once the wait duration has elapsed a single probe call is let through (half-open state): its outcome either closes
+ * the circuit or opens it for another wait duration.
+ */
+public class CircuitBreaker implements MeterBinder {
+
+    private static final Logger log = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public static final String METER_STATE = "cache.circuit.state";
+
+    public static final String METER_TRANSITIONS = "cache.circuit.transitions";
+
+    public static final String TAG_STATE = "state";
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicLong nextProbe = new AtomicLong();
+
+    private final AtomicLong[] transitions = new AtomicLong[State.values().length];
+
+    private final int failureThreshold;
+
+    private final long waitDuration;
+
+    /**
+     *
+     * @param failureThreshold number of consecutive failures that opens the circuit
+     * @param waitDuration duration the circuit stays open before letting a probe call through
+     */
+    public CircuitBreaker(int failureThreshold, Duration waitDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.waitDuration = waitDuration.toMillis();
+        for (int index = 0; index < transitions.length; index++) {
+            transitions[index] = new AtomicLong();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     *
+     * @return true if the call can proceed, false if it should be skipped
+     */
+    public boolean allowRequest() {
+        if (state.get() == State.CLOSED) {
+            return true;
+        }
+        long next = nextProbe.get();
+        long now = System.currentTimeMillis();
+        if (now < next) {
+            return false;
+        }
+        // Only the thread that wins the CAS gets to probe Redis
+        if (nextProbe.compareAndSet(next, now + waitDuration)) {
+            transition(State.HALF_OPEN);
+            return true;
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+        if (state.get() != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        if (state.get() == State.CLOSED && failures.incrementAndGet() < failureThreshold) {
+            return;
+        }
+        nextProbe.set(System.currentTimeMillis() + waitDuration);
+        transition(State.OPEN);
+    }
+
+    private void transition(State newState) {
+        State previous = state.getAndSet(newState);
+        if (previous == newState) {
+            return;
+        }
+        if (newState == State.CLOSED) {
+            failures.set(0);
+        }
+        transitions[newState.ordinal()].incrementAndGet();
+        Level level = newState == State.OPEN ? Level.WARNING : Level.INFO;
+        log.log(level, "Redis circuit breaker {0} -> {1}", new Object[] { previous, newState });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METER_STATE, state, s -> s.get().ordinal()).description("Circuit state: 0=closed, 1=open, 2=half-open")
+                .register(registry);
+        for (State target : State.values()) {
+            FunctionCounter.builder(METER_TRANSITIONS, transitions[target.ordinal()], AtomicLong::get)
+                    .tag(TAG_STATE, target.name().toLowerCase()).register(registry);
+        }
+    }
+
+}
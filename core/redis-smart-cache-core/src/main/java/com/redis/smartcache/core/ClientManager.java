@@ -1,7 +1,5 @@
 package com.redis.smartcache.core;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -11,15 +9,20 @@ import com.redis.smartcache.core.config.RedisConfig;
 
 import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
 
 public class ClientManager implements AutoCloseable {
 
     private static final Logger log = Logger.getLogger(ClientManager.class.getName());
 
-    private final Map<RedisConfig, AbstractRedisClient> clients = new HashMap<>();
+    private final ConcurrentRegistry<RedisConfig, AbstractRedisClient> clients = new ConcurrentRegistry<>(
+            this::createClient);
+
+    private ClientResources resources;
 
     public AbstractRedisClient getClient(RedisConfig config) {
-        return clients.computeIfAbsent(config, this::createClient);
+        return clients.get(config);
     }
 
     private AbstractRedisClient createClient(RedisConfig config) {
@@ -27,9 +30,29 @@ public class ClientManager implements AutoCloseable {
         log.log(Level.FINE, "Creating Redis client with URI {0} and Cluster {1}",
                 new Object[] { redisURI, config.isCluster() });
         if (config.isCluster()) {
-            return RedisModulesClusterClient.create(redisURI);
+            return RedisModulesClusterClient.create(resources(config), redisURI);
+        }
+        return RedisModulesClient.create(resources(config), redisURI);
+    }
+
+    /**
+     * All clients share the same event loops and computation threads so that the number of threads does not grow with the
+     * number of Redis configs. Resources are sized by the first config that needs them.
+     */
+    private synchronized ClientResources resources(RedisConfig config) {
+        if (resources == null) {
+            DefaultClientResources.Builder builder = DefaultClientResources.builder();
+            if (config.getIoThreadPoolSize() > 0) {
+                builder.ioThreadPoolSize(config.getIoThreadPoolSize());
+            }
+            if (config.getComputationThreadPoolSize() > 0) {
+                builder.computationThreadPoolSize(config.getComputationThreadPoolSize());
+            }
+            log.log(Level.FINE, "Creating client resources with {0} I/O threads and {1} computation threads",
+                    new Object[] { config.getIoThreadPoolSize(), config.getComputationThreadPoolSize() });
+            resources = builder.build();
         }
-        return RedisModulesClient.create(redisURI);
+        return resources;
     }
 
     private RedisURI redisURI(RedisConfig config) {
@@ -50,11 +73,14 @@ public class ClientManager implements AutoCloseable {
 
     @Override
     public void close() {
-        clients.values().forEach(c -> {
-            c.shutdown();
-            c.getResources().shutdown();
-        });
+        clients.values().forEach(AbstractRedisClient::shutdown);
         clients.clear();
+        synchronized (this) {
+            if (resources != null) {
+                resources.shutdown();
+                resources = null;
+            }
+        }
     }
 
 }
@@ -0,0 +1,108 @@
+package com.redis.smartcache.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Thread-safe registry that creates at most one value per key. Values are created outside of any lock: threads asking for the
+ * same key wait for the thread that creates it, while values for other keys are created concurrently. If the creation fails
+ * the key is removed so that the next call tries again.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ConcurrentRegistry<K, V> {
+
+    private final ConcurrentMap<K, Future<V>> entries = new ConcurrentHashMap<>();
+
+    private final Function<? super K, ? extends V> factory;
+
+    /**
+     * Creates a registry whose values are created with {@link #computeIfAbsent(Object, Function)}.
+     */
+    public ConcurrentRegistry() {
+        this(null);
+    }
+
+    /**
+     *
+     * @param factory function creating the value for a key. Might be called concurrently for different keys.
+     */
+    public ConcurrentRegistry(Function<? super K, ? extends V> factory) {
+        this.factory = factory;
+    }
+
+    public V get(K key) {
+        return computeIfAbsent(key, factory);
+    }
+
+    /**
+     *
+     * @param key the key
+     * @param factory function creating the value if there is none for the key yet
+     * @return the value for the key
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        Future<V> future = entries.get(key);
+        if (future == null) {
+            FutureTask<V> task = new FutureTask<>(() -> factory.apply(key));
+            future = entries.putIfAbsent(key, task);
+            if (future == null) {
+                future = task;
+                task.run();
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        } catch (ExecutionException e) {
+            entries.remove(key, future);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Could not create value for " + key, cause);
+        }
+    }
+
+    /**
+     *
+     * @return values that were successfully created
+     */
+    public Collection<V> values() {
+        List<V> values = new ArrayList<>();
+        for (Future<V> future : entries.values()) {
+            if (future.isDone()) {
+                try {
+                    values.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // Failed creations are not values
+                }
+            }
+        }
+        return values;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+}
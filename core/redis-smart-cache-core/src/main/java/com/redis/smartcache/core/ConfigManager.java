@@ -14,6 +14,36 @@ public interface ConfigManager<T> extends AutoCloseable {
 
     void start() throws IOException;
 
+    /**
+     * Publishes the given config so that it is applied by all managers of the same config, including this one.
+     *
+     * @param config the config to publish
+     * @throws IOException if the config could not be serialized
+     */
+    void publish(T config) throws IOException;
+
+    /**
+     *
+     * @return version of the current config, changed by every update, or null if the config is not versioned
+     */
+    default String getVersion() {
+        return null;
+    }
+
+    /**
+     * Publishes the given config unless the config was updated since the given version, so that updates published in between
+     * by other managers are not overwritten. Managers that do not version their config publish unconditionally.
+     *
+     * @param config the config to publish
+     * @param version version of the config the given config was derived from, as returned by {@link #getVersion()}
+     * @return true if the config was published, false if the config was updated since the given version
+     * @throws IOException if the config could not be serialized
+     */
+    default boolean publish(T config, String version) throws IOException {
+        publish(config);
+        return true;
+    }
+
     @Override
     default void close() throws Exception {
         stop();
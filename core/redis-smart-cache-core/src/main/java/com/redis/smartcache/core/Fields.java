@@ -4,12 +4,24 @@ public interface Fields {
 
     public static final String METER_QUERY = "query";
 
+    public static final String METER_BACKEND = "backend";
+
+    public static final String METER_CACHE_GET = "cache.get";
+
     public static final String TAG_ID = "id";
 
+    public static final String ID_OTHER = "other";
+
     public static final String TAG_TABLE = "table";
 
     public static final String TAG_SQL = "sql";
 
     public static final String TAG_TYPE = "type";
 
+    public static final String TAG_RESULT = "result";
+
+    public static final String TAG_HIT = "hit";
+
+    public static final String TAG_MISS = "miss";
+
 }
@@ -0,0 +1,218 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
+import com.redis.lettucemod.api.sync.RedisModulesCommands;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.ZStoreArgs;
+
+/**
+ * Records how often cache keys are used and keeps the hottest ones in a Redis sorted set, along with the query behind each key
+ * in a hash, so that a starting process can load them before taking traffic.
+ * <p>
+ * Uses are counted in memory and added to the sorted set at a fixed interval. The sorted set is trimmed to the configured
+ * capacity after each flush, and its scores are halved at the decay interval by whichever process gets there first, so that
+ * keys that are no longer used fall off. Counts are approximate: uses recorded while a flush is running might be lost.
+ */
+public class HotKeyTracker implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(HotKeyTracker.class.getName());
+
+    public static final String KEY_KEYS = "keys";
+
+    public static final String KEY_QUERIES = "queries";
+
+    private static final String KEY_DECAY = "decay";
+
+    private static final double DECAY_WEIGHT = 0.5;
+
+    private static final int TRACKED_KEYS_FACTOR = 10;
+
+    private static final String THREAD_NAME = "smartcache-hot-keys";
+
+    private final StatefulRedisModulesConnection<String, String> connection;
+
+    private final String keysKey;
+
+    private final String queriesKey;
+
+    private final String decayKey;
+
+    private final int capacity;
+
+    private final long decayInterval;
+
+    private final Map<String, Hits> hits = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     *
+     * @param client Redis client to open the connection with
+     * @param keyBuilder key builder for the sorted set and hash keys
+     * @param capacity max number of hot keys kept in Redis
+     * @param flushInterval interval at which recorded uses are added to the sorted set
+     * @param decayInterval interval at which sorted set scores are halved
+     */
+    public HotKeyTracker(AbstractRedisClient client, KeyBuilder keyBuilder, int capacity, Duration flushInterval,
+            Duration decayInterval) {
+        this.connection = RedisModulesUtils.connection(client);
+        this.keysKey = keyBuilder.build(KEY_KEYS);
+        this.queriesKey = keyBuilder.build(KEY_QUERIES);
+        this.decayKey = keyBuilder.build(KEY_DECAY);
+        this.capacity = capacity;
+        this.decayInterval = decayInterval.toMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a use of the given cache key. Keys beyond the number of keys that can be tracked until the next flush are
+     * ignored.
+     *
+     * @param key the cache key
+     * @param query supplier of the query behind the key, called once per key between flushes
+     */
+    public void record(String key, Supplier<HotQuery> query) {
+        Hits keyHits = hits.get(key);
+        if (keyHits == null) {
+            if (hits.size() >= capacity * TRACKED_KEYS_FACTOR) {
+                return;
+            }
+            keyHits = hits.computeIfAbsent(key, k -> new Hits(query.get()));
+        }
+        keyHits.count.increment();
+    }
+
+    /**
+     * Adds uses recorded since the last flush to the sorted set, trims it to capacity and decays its scores if due.
+     */
+    public void flush() {
+        try {
+            doFlush();
+        } catch (RedisException e) {
+            log.log(Level.WARNING, "Could not record hot keys", e);
+        }
+    }
+
+    private void doFlush() {
+        Map<String, String> queries = new HashMap<>();
+        RedisModulesAsyncCommands<String, String> commands = connection.async();
+        List<RedisFuture<?>> futures = new ArrayList<>();
+        for (String key : new ArrayList<>(hits.keySet())) {
+            Hits keyHits = hits.remove(key);
+            if (keyHits != null) {
+                futures.add(commands.zincrby(keysKey, keyHits.count.sum(), key));
+                queries.put(key, keyHits.query.encode());
+            }
+        }
+        if (!queries.isEmpty()) {
+            futures.add(commands.hset(queriesKey, queries));
+            futures.add(commands.zremrangebyrank(keysKey, 0, -(capacity + 1L)));
+            LettuceFutures.awaitAll(connection.getTimeout(), futures.toArray(new RedisFuture[0]));
+        }
+        RedisModulesCommands<String, String> sync = connection.sync();
+        if (sync.hlen(queriesKey) > capacity * 2L) {
+            removeStaleQueries(sync);
+        }
+        if ("OK".equals(sync.set(decayKey, "1", SetArgs.Builder.nx().px(decayInterval)))) {
+            sync.zunionstore(keysKey, ZStoreArgs.Builder.weights(DECAY_WEIGHT), keysKey);
+        }
+    }
+
+    /**
+     * Removes queries whose keys were trimmed from the sorted set.
+     */
+    private void removeStaleQueries(RedisModulesCommands<String, String> sync) {
+        Set<String> keys = new HashSet<>(sync.zrange(keysKey, 0, -1));
+        List<String> stale = new ArrayList<>();
+        for (String key : sync.hkeys(queriesKey)) {
+            if (!keys.contains(key)) {
+                stale.add(key);
+            }
+        }
+        if (!stale.isEmpty()) {
+            sync.hdel(queriesKey, stale.toArray(new String[0]));
+        }
+    }
+
+    /**
+     *
+     * @return hot queries, hottest first
+     */
+    public List<HotQuery> hotQueries() {
+        RedisModulesCommands<String, String> sync = connection.sync();
+        List<String> keys = sync.zrevrange(keysKey, 0, capacity - 1L);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<HotQuery> queries = new ArrayList<>();
+        for (KeyValue<String, String> query : sync.hmget(queriesKey, keys.toArray(new String[0]))) {
+            if (query.hasValue()) {
+                try {
+                    queries.add(HotQuery.decode(query.getKey(), query.getValue()));
+                } catch (IllegalArgumentException e) {
+                    log.log(Level.FINE, "Ignoring hot key " + query.getKey(), e);
+                }
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Stops the flush thread, flushes uses recorded so far and closes the connection.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        connection.close();
+    }
+
+    private static class Hits {
+
+        private final HotQuery query;
+
+        private final LongAdder count = new LongAdder();
+
+        private Hits(HotQuery query) {
+            this.query = query;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.redis.smartcache.core;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A cached query, with its parameters, that is recorded as hot so that it can be loaded or executed again on startup.
+ */
+public class HotQuery {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String FIELD_SQL = "sql";
+
+    private static final String FIELD_PARAMETERS = "params";
+
+    private final String key;
+
+    private final String sql;
+
+    private final SortedMap<Integer, Object> parameters;
+
+    /**
+     *
+     * @param key the cache key
+     * @param sql the SQL of the query
+     * @param parameters the parameters by index, or null if they cannot be recorded
+     */
+    public HotQuery(String key, String sql, SortedMap<Integer, Object> parameters) {
+        this.key = key;
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public SortedMap<Integer, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     *
+     * @return true if the query and its parameters are known so that it can be executed again
+     */
+    public boolean isExecutable() {
+        return parameters != null;
+    }
+
+    /**
+     * Creates a hot query, dropping its parameters if some of them are of a type that cannot be recorded.
+     */
+    public static HotQuery of(String key, String sql, Map<Integer, Object> parameters) {
+        for (Object value : parameters.values()) {
+            if (ParameterType.of(value) == null) {
+                return new HotQuery(key, sql, null);
+            }
+        }
+        return new HotQuery(key, sql, new TreeMap<>(parameters));
+    }
+
+    public String encode() {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put(FIELD_SQL, sql);
+        if (parameters != null) {
+            ArrayNode array = node.putArray(FIELD_PARAMETERS);
+            parameters.forEach((index, value) -> array.addArray().add(index).add(ParameterType.of(value).name())
+                    .add(String.valueOf(value)));
+        }
+        return node.toString();
+    }
+
+    /**
+     *
+     * @param key the cache key
+     * @param value the value returned by {@link #encode()}
+     * @return the decoded query
+     * @throws IllegalArgumentException if the value cannot be decoded
+     */
+    public static HotQuery decode(String key, String value) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid hot query: " + value, e);
+        }
+        JsonNode parametersNode = node.get(FIELD_PARAMETERS);
+        SortedMap<Integer, Object> parameters = null;
+        if (parametersNode != null) {
+            parameters = new TreeMap<>();
+            for (JsonNode parameter : parametersNode) {
+                ParameterType type = ParameterType.valueOf(parameter.get(1).asText());
+                parameters.put(parameter.get(0).asInt(), type.parse(parameter.get(2).asText()));
+            }
+        }
+        return new HotQuery(key, node.get(FIELD_SQL).asText(), parameters);
+    }
+
+    /**
+     * Parameter types that can be recorded, along with the parsing of their string representation.
+     */
+    enum ParameterType {
+
+        STRING(String.class), BOOLEAN(Boolean.class), BYTE(Byte.class), SHORT(Short.class), INTEGER(Integer.class),
+        LONG(Long.class), FLOAT(Float.class), DOUBLE(Double.class), DECIMAL(BigDecimal.class), DATE(Date.class),
+        TIME(Time.class), TIMESTAMP(Timestamp.class);
+
+        private final Class<?> type;
+
+        ParameterType(Class<?> type) {
+            this.type = type;
+        }
+
+        static ParameterType of(Object value) {
+            for (ParameterType parameterType : values()) {
+                if (parameterType.type.isInstance(value)) {
+                    return parameterType;
+                }
+            }
+            return null;
+        }
+
+        Object parse(String value) {
+            switch (this) {
+                case BOOLEAN:
+                    return Boolean.valueOf(value);
+                case BYTE:
+                    return Byte.valueOf(value);
+                case SHORT:
+                    return Short.valueOf(value);
+                case INTEGER:
+                    return Integer.valueOf(value);
+                case LONG:
+                    return Long.valueOf(value);
+                case FLOAT:
+                    return Float.valueOf(value);
+                case DOUBLE:
+                    return Double.valueOf(value);
+                case DECIMAL:
+                    return new BigDecimal(value);
+                case DATE:
+                    return Date.valueOf(value);
+                case TIME:
+                    return Time.valueOf(value);
+                case TIMESTAMP:
+                    return Timestamp.valueOf(value);
+                default:
+                    return value;
+            }
+        }
+
+    }
+
+}
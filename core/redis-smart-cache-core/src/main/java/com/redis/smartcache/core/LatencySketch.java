@@ -0,0 +1,155 @@
+package com.redis.smartcache.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mergeable sketch of latencies in the manner of DDSketch: latencies are counted in buckets whose bounds grow geometrically,
+ * so that any quantile is estimated within {@value #RELATIVE_ACCURACY} relative accuracy, whatever the distribution. Two
+ * sketches are merged by adding their counts bucket by bucket, which Redis can do with {@code HINCRBY}, so that sketches of
+ * all application instances add up to the sketch of the whole fleet.
+ * <p>
+ * Latencies are in nanoseconds. Methods are synchronized.
+ */
+public class LatencySketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private static final int INITIAL_LENGTH = 64;
+
+    private long[] counts;
+
+    /**
+     * Bucket index of counts[0]
+     */
+    private int offset;
+
+    private long count;
+
+    /**
+     *
+     * @param nanos latency to record, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        add(index(Math.max(nanos, 1)), 1);
+    }
+
+    /**
+     *
+     * @return number of latencies recorded
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Adds the latencies of the given sketch to this one.
+     */
+    public void merge(LatencySketch sketch) {
+        sketch.buckets().forEach(this::add);
+    }
+
+    /**
+     *
+     * @param quantile the quantile to estimate, between 0 and 1
+     * @return the estimated latency at the given quantile in nanoseconds, or NaN if no latency was recorded
+     */
+    public synchronized double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Invalid quantile " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long cumulative = 0;
+        for (int position = 0; position < counts.length; position++) {
+            cumulative += counts[position];
+            if (cumulative > rank) {
+                return value(position + offset);
+            }
+        }
+        return value(counts.length - 1 + offset);
+    }
+
+    /**
+     *
+     * @return counts of non-empty buckets by bucket index
+     */
+    public synchronized Map<Integer, Long> buckets() {
+        Map<Integer, Long> buckets = new LinkedHashMap<>();
+        if (counts != null) {
+            for (int position = 0; position < counts.length; position++) {
+                if (counts[position] > 0) {
+                    buckets.put(position + offset, counts[position]);
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Adds the given count to the bucket with the given index.
+     */
+    public synchronized void add(int index, long bucketCount) {
+        if (counts == null) {
+            counts = new long[INITIAL_LENGTH];
+            offset = index - INITIAL_LENGTH / 2;
+        } else if (index < offset || index >= offset + counts.length) {
+            grow(index);
+        }
+        counts[index - offset] += bucketCount;
+        count += bucketCount;
+    }
+
+    private void grow(int index) {
+        int low = Math.min(index, offset);
+        int high = Math.max(index, offset + counts.length - 1);
+        int length = Math.max(counts.length * 2, high - low + 1);
+        long[] grown = new long[length];
+        // Leave room on the side the sketch grows towards
+        int newOffset = index < offset ? high - length + 1 : low;
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    /**
+     *
+     * @return the index of the bucket the given latency falls into
+     */
+    static int index(double nanos) {
+        return (int) Math.ceil(Math.log(nanos) / LOG_GAMMA);
+    }
+
+    /**
+     *
+     * @return the value representing the bucket with the given index, within relative accuracy of any value of the bucket
+     */
+    static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     *
+     * @param buckets bucket counts by bucket index, as stored in Redis
+     * @return the sketch with the given bucket counts
+     * @throws IllegalArgumentException if a bucket index or count is not a number
+     */
+    public static LatencySketch of(Map<String, String> buckets) {
+        LatencySketch sketch = new LatencySketch();
+        try {
+            for (Map.Entry<String, String> bucket : buckets.entrySet()) {
+                sketch.add(Integer.parseInt(bucket.getKey()), Long.parseLong(bucket.getValue()));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency sketch", e);
+        }
+        return sketch;
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+
+/**
+ * Records query latencies into {@link LatencySketch} instances, one per meter and query ID, and adds them every step to a Redis
+ * hash per meter, query ID and step, holding bucket counts by bucket index. Since all application instances add their counts
+ * to the same hashes, each hash is the sketch of the whole fleet for that step, from which exact quantiles within the sketch
+ * accuracy can be computed with {@link #read(String, String, long)} or by any client reading the hash.
+ * <p>
+ * Steps are aligned on the epoch and hashes expire after the retention period. Latencies recorded while a flush is running
+ * might be lost.
+ */
+public class LatencySketches implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(LatencySketches.class.getName());
+
+    private static final String THREAD_NAME = "smartcache-sketches";
+
+    private final StatefulRedisModulesConnection<String, String> connection;
+
+    private final KeyBuilder keyBuilder;
+
+    private final long step;
+
+    private final long retention;
+
+    private final ScheduledExecutorService executor;
+
+    private volatile Step current;
+
+    /**
+     * Start of the step following the one the next scheduled flush closes. Only accessed by the flush thread.
+     */
+    private long nextStart;
+
+    /**
+     *
+     * @param client Redis client to open the connection with
+     * @param keyBuilder key builder for the per-step hashes
+     * @param step interval at which sketches are added to Redis
+     * @param retention time after which the hashes of a step expire
+     */
+    public LatencySketches(AbstractRedisClient client, KeyBuilder keyBuilder, Duration step, Duration retention) {
+        this.connection = RedisModulesUtils.connection(client);
+        this.keyBuilder = keyBuilder;
+        this.step = step.toMillis();
+        this.retention = retention.toMillis();
+        long now = System.currentTimeMillis();
+        this.current = new Step(now / this.step * this.step);
+        this.nextStart = current.start + this.step;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::scheduledFlush, nextStart - now, this.step, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     *
+     * @param meter the meter name
+     * @param id the query ID
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(String meter, String id, long nanos) {
+        current.sketches.computeIfAbsent(new SketchId(meter, id), k -> new LatencySketch()).record(nanos);
+    }
+
+    /**
+     * Starts the next step from the boundary the run was scheduled for rather than from the clock, since scheduled runs can
+     * fire slightly before or well after their time.
+     */
+    private void scheduledFlush() {
+        long start = nextStart;
+        nextStart += step;
+        flush(start);
+    }
+
+    /**
+     * Adds latencies recorded since the last flush to the hashes of the step they were recorded in.
+     */
+    public void flush() {
+        flush(System.currentTimeMillis() / step * step);
+    }
+
+    private void flush(long nextStepStart) {
+        Step flushed = current;
+        current = new Step(nextStepStart);
+        if (flushed.sketches.isEmpty()) {
+            return;
+        }
+        try {
+            RedisModulesAsyncCommands<String, String> commands = connection.async();
+            List<RedisFuture<?>> futures = new ArrayList<>();
+            for (Map.Entry<SketchId, LatencySketch> entry : flushed.sketches.entrySet()) {
+                String key = key(entry.getKey().meter, entry.getKey().id, flushed.start);
+                entry.getValue().buckets()
+                        .forEach((index, count) -> futures.add(commands.hincrby(key, String.valueOf(index), count)));
+                futures.add(commands.pexpire(key, retention));
+            }
+            LettuceFutures.awaitAll(connection.getTimeout(), futures.toArray(new RedisFuture[0]));
+        } catch (RedisException e) {
+            log.log(Level.WARNING, "Could not publish latency sketches", e);
+        }
+    }
+
+    /**
+     *
+     * @param meter the meter name
+     * @param id the query ID
+     * @param stepStart start of the step in milliseconds since the epoch, a multiple of the step
+     * @return the sketch of all application instances for the given step, empty if no latency was recorded
+     */
+    public LatencySketch read(String meter, String id, long stepStart) {
+        return LatencySketch.of(connection.sync().hgetall(key(meter, id, stepStart)));
+    }
+
+    private String key(String meter, String id, long stepStart) {
+        return keyBuilder.build(meter, id, String.valueOf(stepStart));
+    }
+
+    /**
+     * Stops the flush thread, flushes latencies recorded so far and closes the connection.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        connection.close();
+    }
+
+    private static class Step {
+
+        private final long start;
+
+        private final Map<SketchId, LatencySketch> sketches = new ConcurrentHashMap<>();
+
+        private Step(long start) {
+            this.start = start;
+        }
+
+    }
+
+    private static class SketchId {
+
+        private final String meter;
+
+        private final String id;
+
+        private SketchId(String meter, String id) {
+            this.meter = meter;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * meter.hashCode() + id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SketchId)) {
+                return false;
+            }
+            SketchId other = (SketchId) obj;
+            return meter.equals(other.meter) && id.equals(other.id);
+        }
+
+    }
+
+}
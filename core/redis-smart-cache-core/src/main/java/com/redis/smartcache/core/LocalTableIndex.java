@@ -0,0 +1,101 @@
+package com.redis.smartcache.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.redis.smartcache.core.store.ByteStore;
+
+/**
+ * In-process counterpart of {@link TableIndex} for a {@link ByteStore}: keeps, for each table, the keys of the store whose
+ * queries read that table along with their expiration time, so that they can be removed from the store when the table is
+ * written to.
+ * <p>
+ * Keys that expired or were evicted from the store are pruned from a table once as many keys were added to it as it held after
+ * the previous pruning, so that pruning costs constant time per added key on average.
+ */
+public class LocalTableIndex {
+
+    private static final int MIN_PRUNE_THRESHOLD = 64;
+
+    private final ByteStore store;
+
+    private final Map<String, TableKeys> tables = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param store the store holding the indexed keys, usually shared by all connections using the same config
+     */
+    public LocalTableIndex(ByteStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Records the given key under each of the given tables.
+     *
+     * @param key the key of the store
+     * @param tables the tables read by the query behind the key
+     * @param ttlMillis time-to-live of the key, or 0 if it does not expire
+     */
+    public void add(String key, Collection<String> tables, long ttlMillis) {
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        for (String table : tables) {
+            TableKeys keys = this.tables.computeIfAbsent(TableIndex.unqualified(table), t -> new TableKeys());
+            keys.expirations.put(key, expiresAt);
+            if (keys.additions.incrementAndGet() >= keys.pruneThreshold) {
+                prune(keys);
+            }
+        }
+    }
+
+    private void prune(TableKeys keys) {
+        keys.additions.set(0);
+        long now = System.currentTimeMillis();
+        // Checked without reading so that indexed entries do not get a second chance from eviction
+        keys.expirations.entrySet().removeIf(e -> e.getValue() <= now || !store.contains(e.getKey()));
+        keys.pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, keys.expirations.size());
+    }
+
+    /**
+     * Removes the keys recorded under the given tables from the store.
+     *
+     * @param tables the tables that were written to
+     */
+    public void invalidate(Collection<String> tables) {
+        for (String table : tables) {
+            TableKeys keys = this.tables.remove(TableIndex.unqualified(table));
+            if (keys != null) {
+                keys.expirations.keySet().forEach(store::remove);
+            }
+        }
+    }
+
+    /**
+     * Removes the keys recorded under any table from the store.
+     */
+    public void invalidateAll() {
+        invalidate(new ArrayList<>(tables.keySet()));
+    }
+
+    /**
+     *
+     * @return number of keys recorded under the given table, including keys that expired since the last pruning
+     */
+    public int size(String table) {
+        TableKeys keys = tables.get(TableIndex.unqualified(table));
+        return keys == null ? 0 : keys.expirations.size();
+    }
+
+    private static class TableKeys {
+
+        private final Map<String, Long> expirations = new ConcurrentHashMap<>();
+
+        private final AtomicInteger additions = new AtomicInteger();
+
+        private volatile int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    }
+
+}
@@ -1,8 +1,6 @@
 package com.redis.smartcache.core;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Logger;
 
 import com.redis.lettucemod.api.StatefulRedisModulesConnection;
@@ -31,14 +29,15 @@ public class MeterRegistryManager implements AutoCloseable {
 
     private final ClientManager clientManager;
 
-    private final Map<Config, MeterRegistry> registries = new HashMap<>();
+    private final ConcurrentRegistry<Config, MeterRegistry> registries = new ConcurrentRegistry<>(
+            this::createMeterRegistry);
 
     public MeterRegistryManager(ClientManager clientManager) {
         this.clientManager = clientManager;
     }
 
     public MeterRegistry getRegistry(Config config) {
-        return registries.computeIfAbsent(config, this::createMeterRegistry);
+        return registries.get(config);
     }
 
     private MeterRegistry createMeterRegistry(Config config) {
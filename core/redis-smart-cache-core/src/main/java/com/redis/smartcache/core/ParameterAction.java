@@ -0,0 +1,32 @@
+package com.redis.smartcache.core;
+
+import java.util.Map;
+
+/**
+ * TTL of a rule with parameter conditions, which only applies to executions whose parameters satisfy all the conditions.
+ */
+public class ParameterAction {
+
+    private final ParameterCondition[] conditions;
+
+    private final long ttl;
+
+    public ParameterAction(ParameterCondition[] conditions, long ttl) {
+        this.conditions = conditions;
+        this.ttl = ttl;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public boolean test(Map<Integer, Object> parameters) {
+        for (ParameterCondition condition : conditions) {
+            if (!condition.test(parameters)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
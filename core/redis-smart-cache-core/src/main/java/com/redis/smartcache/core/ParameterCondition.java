@@ -0,0 +1,234 @@
+package com.redis.smartcache.core;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled {@link ParameterConfig}. Configured values are parsed once so that testing parameters, other than
+ * {@code java.time} values, does not allocate: numbers are compared as doubles, dates and timestamps as epoch milliseconds in
+ * the default time zone and other values as strings.
+ */
+public class ParameterCondition {
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private static final String TODAY = "today";
+
+    private static volatile Day today = Day.of(System.currentTimeMillis());
+
+    private final Integer index;
+
+    private final Operand value;
+
+    private final Operand[] values;
+
+    private final Set<String> stringValues;
+
+    private final Operand min;
+
+    private final Operand max;
+
+    /**
+     *
+     * @param config the condition to compile
+     * @throws IllegalArgumentException if the condition has no parameter index
+     */
+    public ParameterCondition(ParameterConfig config) {
+        if (config.getIndex() < 1) {
+            throw new IllegalArgumentException("Parameter index must be set and start at 1: " + config);
+        }
+        this.index = config.getIndex();
+        this.value = Operand.of(config.getValue());
+        this.values = operands(config.getValues());
+        this.stringValues = config.getValues() == null ? null : new HashSet<>(config.getValues());
+        this.min = Operand.of(config.getMin());
+        this.max = Operand.of(config.getMax());
+    }
+
+    private static Operand[] operands(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        return values.stream().map(Operand::of).toArray(Operand[]::new);
+    }
+
+    /**
+     *
+     * @param parameters parameter values by index
+     * @return true if the parameter is set and satisfies all constraints
+     */
+    public boolean test(Map<Integer, Object> parameters) {
+        Object parameter = parameters.get(index);
+        if (parameter == null) {
+            return false;
+        }
+        if (value != null && compare(parameter, value) != 0) {
+            return false;
+        }
+        if (values != null && !contains(parameter)) {
+            return false;
+        }
+        if (min != null) {
+            int comparison = compare(parameter, min);
+            if (comparison == INCOMPARABLE || comparison < 0) {
+                return false;
+            }
+        }
+        if (max != null) {
+            int comparison = compare(parameter, max);
+            return comparison != INCOMPARABLE && comparison <= 0;
+        }
+        return true;
+    }
+
+    private boolean contains(Object parameter) {
+        if (parameter instanceof String) {
+            return stringValues.contains(parameter);
+        }
+        for (Operand operand : values) {
+            if (compare(parameter, operand) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @return the sign of the comparison of the parameter with the operand, or {@link #INCOMPARABLE} if they cannot be
+     *         compared
+     */
+    private static int compare(Object parameter, Operand operand) {
+        if (parameter instanceof Number) {
+            return operand.numeric ? Double.compare(((Number) parameter).doubleValue(), operand.number) : INCOMPARABLE;
+        }
+        if (parameter instanceof java.util.Date) {
+            return operand.compareTime(((java.util.Date) parameter).getTime());
+        }
+        if (parameter instanceof LocalDate) {
+            return operand.compareTime(Date.valueOf((LocalDate) parameter).getTime());
+        }
+        if (parameter instanceof LocalDateTime) {
+            return operand.compareTime(Timestamp.valueOf((LocalDateTime) parameter).getTime());
+        }
+        if (parameter instanceof String) {
+            return Integer.signum(((String) parameter).compareTo(operand.text));
+        }
+        if (parameter instanceof Boolean) {
+            return parameter.toString().equalsIgnoreCase(operand.text) ? 0 : INCOMPARABLE;
+        }
+        return INCOMPARABLE;
+    }
+
+    private static class Operand {
+
+        private final String text;
+
+        private final boolean numeric;
+
+        private final double number;
+
+        private final boolean temporal;
+
+        private final long time;
+
+        private final boolean today;
+
+        private Operand(String text) {
+            this.text = text;
+            this.today = TODAY.equalsIgnoreCase(text);
+            Double parsedNumber = parseNumber(text);
+            this.numeric = parsedNumber != null;
+            this.number = numeric ? parsedNumber : 0;
+            Long parsedTime = parseTime(text);
+            this.temporal = today || parsedTime != null;
+            this.time = parsedTime == null ? 0 : parsedTime;
+        }
+
+        static Operand of(String text) {
+            return text == null ? null : new Operand(text);
+        }
+
+        private static Double parseNumber(String text) {
+            try {
+                return Double.valueOf(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Long parseTime(String text) {
+            try {
+                return Timestamp.valueOf(text).getTime();
+            } catch (IllegalArgumentException e) {
+                // Not a timestamp
+            }
+            try {
+                return Date.valueOf(text).getTime();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        int compareTime(long parameter) {
+            if (!temporal) {
+                return INCOMPARABLE;
+            }
+            if (today) {
+                Day day = today();
+                if (parameter < day.start) {
+                    return -1;
+                }
+                return parameter < day.end ? 0 : 1;
+            }
+            return Long.compare(parameter, time);
+        }
+
+    }
+
+    private static Day today() {
+        Day day = today;
+        long now = System.currentTimeMillis();
+        if (now >= day.end || now < day.start) {
+            day = Day.of(now);
+            today = day;
+        }
+        return day;
+    }
+
+    /**
+     * Bounds of a day in the default time zone, recomputed only when the day changes.
+     */
+    private static class Day {
+
+        private final long start;
+
+        private final long end;
+
+        private Day(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        static Day of(long time) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(time);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long start = calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            return new Day(start, calendar.getTimeInMillis());
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.redis.smartcache.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Condition on the value of a prepared statement parameter. All the constraints that are set must hold: equality with
+ * {@code value}, membership in {@code values}, and the inclusive {@code min}/{@code max} bounds.
+ * <p>
+ * Values are compared with parameters as numbers, dates or timestamps (e.g. {@code 2023-05-01} or
+ * {@code 2023-05-01 12:00:00}) when they can be parsed as such, and as strings otherwise. Date and timestamp parameters can be
+ * {@link java.util.Date}, {@link java.time.LocalDate} or {@link java.time.LocalDateTime} values. The special value
+ * {@code today} stands for the current day.
+ * <p>
+ * The index is required.
+ */
+public class ParameterConfig {
+
+    private int index;
+
+    private String value;
+
+    private List<String> values;
+
+    private String min;
+
+    private String max;
+
+    public ParameterConfig() {
+    }
+
+    public ParameterConfig(ParameterConfig source) {
+        this.index = source.index;
+        this.value = source.value;
+        this.values = source.values;
+        this.min = source.min;
+        this.max = source.max;
+    }
+
+    /**
+     *
+     * @return Index of the parameter, starting at 1, or 0 if not set
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public String getMin() {
+        return min;
+    }
+
+    public void setMin(String min) {
+        this.min = min;
+    }
+
+    public String getMax() {
+        return max;
+    }
+
+    public void setMax(String max) {
+        this.max = max;
+    }
+
+    public static ParameterConfig equalTo(int index, String value) {
+        ParameterConfig parameter = new ParameterConfig();
+        parameter.index = index;
+        parameter.value = value;
+        return parameter;
+    }
+
+    public static ParameterConfig in(int index, String... values) {
+        ParameterConfig parameter = new ParameterConfig();
+        parameter.index = index;
+        parameter.values = Arrays.asList(values);
+        return parameter;
+    }
+
+    /**
+     *
+     * @param min inclusive lower bound, or null for none
+     * @param max inclusive upper bound, or null for none
+     */
+    public static ParameterConfig range(int index, String min, String max) {
+        ParameterConfig parameter = new ParameterConfig();
+        parameter.index = index;
+        parameter.min = min;
+        parameter.max = max;
+        return parameter;
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterConfig [index=" + index + ", value=" + value + ", values=" + values + ", min=" + min + ", max="
+                + max + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, max, min, value, values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ParameterConfig other = (ParameterConfig) obj;
+        return index == other.index && Objects.equals(max, other.max) && Objects.equals(min, other.min)
+                && Objects.equals(value, other.value) && Objects.equals(values, other.values);
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.redis.smartcache.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.redis.smartcache.core.rules.RuleIndex;
+
+/**
+ * Matching plan compiled from a list of rule configs, giving the rules that can match a query without testing each of them:
+ * <ul>
+ * <li>{@code tables} rules are looked up by the set of tables of the query</li>
+ * <li>{@code tablesAny} rules are looked up by each table of the query</li>
+ * <li>{@code tablesAll} rules are looked up by each table of the query, under a single one of their tables</li>
+ * <li>{@code queryIds} rules are looked up by the id of the query</li>
+ * <li>{@code regex} rules are candidates only if the query SQL matches the alternation of all their patterns</li>
+ * <li>rules without criteria are always candidates</li>
+ * </ul>
+ * Candidates are returned by rule position, so that the session still fires them in order.
+ */
+public class QueryRuleIndex implements RuleIndex<Query> {
+
+    /**
+     * Constructs that change meaning when the pattern is embedded in an alternation: back references (group numbers are
+     * shifted), quotes and comments (they would swallow the closing parenthesis).
+     */
+    private static final Pattern UNCOMBINABLE = Pattern.compile("\\\\([1-9]|k<|Q)|\\(\\?[a-zA-Z-]*x");
+
+    private final BitSet always = new BitSet();
+
+    private final Map<Set<String>, BitSet> exactTables = new HashMap<>();
+
+    private final Map<String, BitSet> tables = new HashMap<>();
+
+    private final Map<String, BitSet> queryIds = new HashMap<>();
+
+    private final BitSet regexRules = new BitSet();
+
+    private final Pattern regex;
+
+    public QueryRuleIndex(List<RuleConfig> rules) {
+        List<String> patterns = new ArrayList<>();
+        for (int index = 0; index < rules.size(); index++) {
+            RuleConfig rule = rules.get(index);
+            if (rule.getTables() != null) {
+                add(exactTables, new HashSet<>(rule.getTables()), index);
+            } else if (rule.getTablesAll() != null) {
+                if (rule.getTablesAll().isEmpty()) {
+                    always.set(index);
+                } else {
+                    add(tables, rule.getTablesAll().get(0), index);
+                }
+            } else if (rule.getTablesAny() != null) {
+                for (String table : rule.getTablesAny()) {
+                    add(tables, table, index);
+                }
+            } else if (rule.getRegex() != null) {
+                if (UNCOMBINABLE.matcher(rule.getRegex()).find()) {
+                    always.set(index);
+                } else {
+                    regexRules.set(index);
+                    patterns.add(rule.getRegex());
+                }
+            } else if (rule.getQueryIds() != null) {
+                for (String id : rule.getQueryIds()) {
+                    add(queryIds, id, index);
+                }
+            } else {
+                always.set(index);
+            }
+        }
+        this.regex = alternation(patterns);
+    }
+
+    private Pattern alternation(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String pattern : patterns) {
+            if (builder.length() > 0) {
+                builder.append('|');
+            }
+            builder.append("(?:").append(pattern).append(')');
+        }
+        try {
+            return Pattern.compile(builder.toString());
+        } catch (PatternSyntaxException e) {
+            // Patterns that compile on their own might not compile together, e.g. duplicate group names
+            always.or(regexRules);
+            regexRules.clear();
+            return null;
+        }
+    }
+
+    private static <K> void add(Map<K, BitSet> index, K key, int position) {
+        index.computeIfAbsent(key, k -> new BitSet()).set(position);
+    }
+
+    @Override
+    public BitSet candidates(Query query) {
+        BitSet candidates = (BitSet) always.clone();
+        Collection<String> queryTables = query.getTables() == null ? Collections.emptySet() : query.getTables();
+        or(candidates, exactTables.get(queryTables));
+        for (String table : queryTables) {
+            or(candidates, tables.get(table));
+        }
+        or(candidates, queryIds.get(query.getId()));
+        if (regex != null && query.getSql() != null && regex.matcher(query.getSql()).matches()) {
+            candidates.or(regexRules);
+        }
+        return candidates;
+    }
+
+    private static void or(BitSet candidates, BitSet positions) {
+        if (positions != null) {
+            candidates.or(positions);
+        }
+    }
+
+}
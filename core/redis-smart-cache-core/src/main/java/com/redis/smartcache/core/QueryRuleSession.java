@@ -5,17 +5,19 @@ import java.beans.PropertyChangeListener;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.redis.smartcache.core.config.RulesetConfig;
 import com.redis.smartcache.core.rules.CollectionRule;
 import com.redis.smartcache.core.rules.PredicateRule;
 import com.redis.smartcache.core.rules.RegexRule;
 import com.redis.smartcache.core.rules.Rule;
+import com.redis.smartcache.core.rules.Rule.Control;
+import com.redis.smartcache.core.rules.RuleIndex;
 import com.redis.smartcache.core.rules.RuleSession;
 
 public class QueryRuleSession extends RuleSession<Query, Action> implements PropertyChangeListener {
@@ -30,12 +32,17 @@ public class QueryRuleSession extends RuleSession<Query, Action> implements Prop
         super(rules);
     }
 
+    public QueryRuleSession(List<Rule<Query, Action>> rules, RuleIndex<Query> index) {
+        super(rules, index);
+    }
+
     public static QueryRuleSession of(RulesetConfig ruleset) {
-        return new QueryRuleSession(rules(ruleset));
+        List<RuleConfig> ruleConfigs = Arrays.asList(ruleset.getRules());
+        return new QueryRuleSession(rules(ruleConfigs), new QueryRuleIndex(ruleConfigs));
     }
 
-    private static List<Rule<Query, Action>> rules(RulesetConfig ruleset) {
-        return Stream.of(ruleset.getRules()).map(QueryRuleSession::rule).collect(Collectors.toList());
+    private static List<Rule<Query, Action>> rules(List<RuleConfig> ruleConfigs) {
+        return ruleConfigs.stream().map(QueryRuleSession::rule).collect(Collectors.toList());
     }
 
     @Override
@@ -46,7 +53,8 @@ public class QueryRuleSession extends RuleSession<Query, Action> implements Prop
     }
 
     public void updateRules(RuleConfig[] ruleConfigs) {
-        setRules(Stream.of(ruleConfigs).map(QueryRuleSession::rule).collect(Collectors.toList()));
+        List<RuleConfig> rules = Arrays.asList(ruleConfigs);
+        setRules(rules(rules), new QueryRuleIndex(rules));
         log.log(Level.INFO, "Updated rules: {0}", Arrays.toString(ruleConfigs));
     }
 
@@ -56,24 +64,54 @@ public class QueryRuleSession extends RuleSession<Query, Action> implements Prop
         return action;
     }
 
+    private static Consumer<Action> action(RuleConfig rule) {
+        long ttl = rule.getTtl().toMillis();
+        if (rule.getTtlMin() == null && rule.getTtlMax() == null) {
+            return a -> a.setTtl(ttl);
+        }
+        // Missing bound defaults to the configured TTL; a zero lower bound would stop caching for good
+        long ttlMin = Math.max(1, rule.getTtlMin() == null ? ttl : rule.getTtlMin().toMillis());
+        long ttlMax = Math.max(ttlMin, rule.getTtlMax() == null ? ttl : rule.getTtlMax().toMillis());
+        long initialTtl = Math.min(Math.max(ttl, ttlMin), ttlMax);
+        return a -> {
+            a.setTtl(initialTtl);
+            a.setTtlRange(ttlMin, ttlMax);
+        };
+    }
+
+    /**
+     * Rules with parameter conditions cannot be decided for a query alone: they add a parameter action and let evaluation
+     * continue, so that the action of the next matching rule applies to executions whose parameters do not match.
+     */
     private static Rule<Query, Action> rule(RuleConfig rule) {
-        Consumer<Action> action = a -> a.setTtl(rule.getTtl().toMillis());
+        Consumer<Action> action;
+        Function<Query, Control> control;
+        if (rule.getParameters() == null || rule.getParameters().isEmpty()) {
+            action = action(rule);
+            control = Rule.stop();
+        } else {
+            ParameterAction parameterAction = new ParameterAction(
+                    rule.getParameters().stream().map(ParameterCondition::new).toArray(ParameterCondition[]::new),
+                    rule.getTtl().toMillis());
+            action = a -> a.addParameterAction(parameterAction);
+            control = q -> Control.CONTINUE;
+        }
         if (rule.getTables() != null) {
-            return CollectionRule.builder(Query::getTables, action).exact(rule.getTables());
+            return CollectionRule.builder(Query::getTables, action).control(control).exact(rule.getTables());
         }
         if (rule.getTablesAll() != null) {
-            return CollectionRule.builder(Query::getTables, action).all(rule.getTablesAll());
+            return CollectionRule.builder(Query::getTables, action).control(control).all(rule.getTablesAll());
         }
         if (rule.getTablesAny() != null) {
-            return CollectionRule.builder(Query::getTables, action).any(rule.getTablesAny());
+            return CollectionRule.builder(Query::getTables, action).control(control).any(rule.getTablesAny());
         }
         if (rule.getRegex() != null) {
-            return new RegexRule<>(Pattern.compile(rule.getRegex()), Query::getSql, action);
+            return new RegexRule<>(Pattern.compile(rule.getRegex()), Query::getSql, action, control);
         }
         if (rule.getQueryIds() != null) {
-            return new PredicateRule<>(q -> rule.getQueryIds().contains(q.getId()), action);
+            return new PredicateRule<>(q -> rule.getQueryIds().contains(q.getId()), action, control);
         }
-        return new PredicateRule<>(l -> true, action);
+        return new PredicateRule<>(l -> true, action, control);
     }
 
 }
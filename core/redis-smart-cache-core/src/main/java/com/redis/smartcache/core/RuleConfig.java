@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import io.airlift.units.Duration;
 
@@ -17,6 +18,8 @@ public class RuleConfig implements Cloneable {
 
     private final PropertyChangeSupport support = new PropertyChangeSupport(this);
 
+    private String name;
+
     private List<String> tables;
 
     private List<String> tablesAny;
@@ -27,12 +30,19 @@ public class RuleConfig implements Cloneable {
 
     private List<String> queryIds;
 
+    private List<ParameterConfig> parameters;
+
     private Duration ttl = TTL_NO_CACHING;
 
+    private Duration ttlMin;
+
+    private Duration ttlMax;
+
     public RuleConfig() {
     }
 
     public RuleConfig(RuleConfig source) {
+        this.name = source.name;
         if (source.tables != null) {
             this.tables = new ArrayList<>(source.tables);
         }
@@ -45,17 +55,26 @@ public class RuleConfig implements Cloneable {
         if (queryIds != null) {
             this.queryIds = new ArrayList<>(source.queryIds);
         }
+        if (source.parameters != null) {
+            this.parameters = source.parameters.stream().map(ParameterConfig::new).collect(Collectors.toList());
+        }
         this.regex = source.regex;
         this.ttl = source.ttl;
+        this.ttlMin = source.ttlMin;
+        this.ttlMax = source.ttlMax;
     }
 
     private RuleConfig(Builder builder) {
+        this.name = builder.name;
         this.tables = builder.tables;
         this.tablesAny = builder.tablesAny;
         this.tablesAll = builder.tablesAll;
         this.regex = builder.regex;
         this.queryIds = builder.queryIds;
+        this.parameters = builder.parameters;
         this.ttl = builder.ttl;
+        this.ttlMin = builder.ttlMin;
+        this.ttlMax = builder.ttlMax;
     }
 
     public void addPropertyChangeListener(PropertyChangeListener listener) {
@@ -66,6 +85,19 @@ public class RuleConfig implements Cloneable {
         support.removePropertyChangeListener(listener);
     }
 
+    /**
+     *
+     * @return Optional name identifying this rule, e.g. for rules managed by the driver itself
+     */
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        support.firePropertyChange("name", this.name, name);
+        this.name = name;
+    }
+
     public List<String> getQueryIds() {
         return queryIds;
     }
@@ -111,6 +143,19 @@ public class RuleConfig implements Cloneable {
         this.tablesAll = tablesAll;
     }
 
+    /**
+     *
+     * @return Conditions on prepared statement parameters that must all hold, in addition to the other criteria
+     */
+    public List<ParameterConfig> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(List<ParameterConfig> parameters) {
+        support.firePropertyChange("parameters", this.parameters, parameters);
+        this.parameters = parameters;
+    }
+
     /**
      *
      * @return Key expiration duration. Use a duration of zero for no caching
@@ -124,15 +169,42 @@ public class RuleConfig implements Cloneable {
         this.ttl = ttl;
     }
 
+    /**
+     *
+     * @return Lower bound of the adaptive time-to-live, or null if the time-to-live is not adaptive
+     */
+    public Duration getTtlMin() {
+        return ttlMin;
+    }
+
+    public void setTtlMin(Duration ttlMin) {
+        support.firePropertyChange("ttlMin", this.ttlMin, ttlMin);
+        this.ttlMin = ttlMin;
+    }
+
+    /**
+     *
+     * @return Upper bound of the adaptive time-to-live, or null if the time-to-live is not adaptive
+     */
+    public Duration getTtlMax() {
+        return ttlMax;
+    }
+
+    public void setTtlMax(Duration ttlMax) {
+        support.firePropertyChange("ttlMax", this.ttlMax, ttlMax);
+        this.ttlMax = ttlMax;
+    }
+
     @Override
     public String toString() {
-        return "RuleConfig [tables=" + tables + ", tablesAny=" + tablesAny + ", tablesAll=" + tablesAll + ", regex=" + regex
-                + ", queryIds=" + queryIds + ", ttl=" + ttl + "]";
+        return "RuleConfig [name=" + name + ", tables=" + tables + ", tablesAny=" + tablesAny + ", tablesAll=" + tablesAll
+                + ", regex=" + regex + ", queryIds=" + queryIds + ", parameters=" + parameters + ", ttl=" + ttl + ", ttlMin="
+                + ttlMin + ", ttlMax=" + ttlMax + "]";
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(queryIds, regex, tables, tablesAll, tablesAny, ttl);
+        return Objects.hash(name, parameters, queryIds, regex, tables, tablesAll, tablesAny, ttl, ttlMin, ttlMax);
     }
 
     @Override
@@ -144,9 +216,11 @@ public class RuleConfig implements Cloneable {
         if (getClass() != obj.getClass())
             return false;
         RuleConfig other = (RuleConfig) obj;
-        return Objects.equals(queryIds, other.queryIds) && Objects.equals(regex, other.regex)
-                && Objects.equals(tables, other.tables) && Objects.equals(tablesAll, other.tablesAll)
-                && Objects.equals(tablesAny, other.tablesAny) && Objects.equals(ttl, other.ttl);
+        return Objects.equals(name, other.name) && Objects.equals(parameters, other.parameters)
+                && Objects.equals(queryIds, other.queryIds)
+                && Objects.equals(regex, other.regex) && Objects.equals(tables, other.tables) && Objects.equals(tablesAll, other.tablesAll)
+                && Objects.equals(tablesAny, other.tablesAny) && Objects.equals(ttl, other.ttl)
+                && Objects.equals(ttlMin, other.ttlMin) && Objects.equals(ttlMax, other.ttlMax);
     }
 
     @Override
@@ -190,6 +264,8 @@ public class RuleConfig implements Cloneable {
 
     public static final class Builder {
 
+        private String name;
+
         private List<String> tables;
 
         private List<String> tablesAny;
@@ -200,11 +276,22 @@ public class RuleConfig implements Cloneable {
 
         private List<String> queryIds;
 
+        private List<ParameterConfig> parameters;
+
         private Duration ttl = DEFAULT_TTL;
 
+        private Duration ttlMin;
+
+        private Duration ttlMax;
+
         private Builder() {
         }
 
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
         public Builder tables(String... tables) {
             this.tables = Arrays.asList(tables);
             return this;
@@ -230,11 +317,26 @@ public class RuleConfig implements Cloneable {
             return this;
         }
 
+        public Builder parameters(ParameterConfig... parameters) {
+            this.parameters = Arrays.asList(parameters);
+            return this;
+        }
+
         public Builder ttl(Duration ttl) {
             this.ttl = ttl;
             return this;
         }
 
+        /**
+         * Makes the time-to-live adaptive: it starts at the configured TTL and is adjusted within the given bounds depending
+         * on how often query results change.
+         */
+        public Builder ttlRange(Duration ttlMin, Duration ttlMax) {
+            this.ttlMin = ttlMin;
+            this.ttlMax = ttlMax;
+            return this;
+        }
+
         public RuleConfig build() {
             return new RuleConfig(this);
         }
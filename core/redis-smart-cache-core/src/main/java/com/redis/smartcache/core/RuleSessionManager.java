@@ -1,11 +1,10 @@
 package com.redis.smartcache.core;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.fasterxml.jackson.dataformat.javaprop.JavaPropsMapper;
 import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.config.RedisConfig;
 import com.redis.smartcache.core.config.RulesetConfig;
 
 import io.lettuce.core.AbstractRedisClient;
@@ -14,9 +13,13 @@ public class RuleSessionManager implements AutoCloseable {
 
     private final JavaPropsMapper mapper = Mappers.propsMapper();
 
-    private final Map<Config, ConfigManager<RulesetConfig>> configManagers = new HashMap<>();
+    private final ConcurrentRegistry<Config, ConfigManager<RulesetConfig>> configManagers = new ConcurrentRegistry<>(
+            this::createConfigManager);
 
-    private final Map<Config, QueryRuleSession> ruleSessions = new HashMap<>();
+    private final ConcurrentRegistry<Config, QueryRuleSession> ruleSessions = new ConcurrentRegistry<>(
+            this::createRuleSession);
+
+    private final ConcurrentRegistry<RedisConfig, StreamPoller> pollers = new ConcurrentRegistry<>();
 
     private final ClientManager clientManager;
 
@@ -25,12 +28,18 @@ public class RuleSessionManager implements AutoCloseable {
     }
 
     public QueryRuleSession getRuleSession(Config config) {
-        return ruleSessions.computeIfAbsent(config, this::createRuleSession);
+        return ruleSessions.get(config);
+    }
+
+    public ConfigManager<RulesetConfig> getConfigManager(Config config) {
+        return configManagers.get(config);
     }
 
     private ConfigManager<RulesetConfig> createConfigManager(Config config) {
         AbstractRedisClient client = clientManager.getClient(config.getRedis());
-        StreamConfigManager configManager = new StreamConfigManager(client, config, mapper);
+        // All config streams on the same Redis are watched by a single poller
+        StreamPoller poller = pollers.computeIfAbsent(config.getRedis(), c -> new StreamPoller(client));
+        StreamConfigManager configManager = new StreamConfigManager(client, config, mapper, poller);
         try {
             configManager.start();
         } catch (IOException e) {
@@ -45,10 +54,15 @@ public class RuleSessionManager implements AutoCloseable {
             configManager.close();
         }
         configManagers.clear();
+        ruleSessions.clear();
+        for (StreamPoller poller : pollers.values()) {
+            poller.close();
+        }
+        pollers.clear();
     }
 
     private QueryRuleSession createRuleSession(Config config) {
-        ConfigManager<RulesetConfig> configManager = configManagers.computeIfAbsent(config, this::createConfigManager);
+        ConfigManager<RulesetConfig> configManager = configManagers.get(config);
         RulesetConfig ruleset = configManager.get();
         QueryRuleSession session = QueryRuleSession.of(ruleset);
         ruleset.addPropertyChangeListener(session);
@@ -1,13 +1,10 @@
 package com.redis.smartcache.core;
 
 import java.io.IOException;
-import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.OptionalLong;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -16,23 +13,26 @@ import java.util.logging.Logger;
 import com.fasterxml.jackson.dataformat.javaprop.JavaPropsMapper;
 import com.redis.lettucemod.api.StatefulRedisModulesConnection;
 import com.redis.lettucemod.util.RedisModulesUtils;
+import com.redis.smartcache.core.StreamPoller.Subscription;
 import com.redis.smartcache.core.config.Config;
 import com.redis.smartcache.core.config.RulesetConfig;
 
 import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.Limit;
 import io.lettuce.core.Range;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.StreamMessage;
-import io.lettuce.core.XReadArgs;
-import io.lettuce.core.XReadArgs.StreamOffset;
 
 public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consumer<StreamMessage<String, String>> {
 
     private static final Logger log = Logger.getLogger(StreamConfigManager.class.getName());
 
-    public static final Duration DEFAULT_BLOCK = Duration.ofMillis(300);
-
-    public static final OptionalLong DEFAULT_COUNT = OptionalLong.empty();
+    /**
+     * Adds a message to the stream only if the last message of the stream is the given one
+     */
+    private static final String PUBLISH_SCRIPT = "local last = redis.call('XREVRANGE', KEYS[1], '+', '-', 'COUNT', 1)\n"
+            + "local id = '" + StreamPoller.INITIAL_OFFSET + "'\n" + "if #last > 0 then id = last[1][1] end\n"
+            + "if id ~= ARGV[1] then return false end\n" + "return redis.call('XADD', KEYS[1], '*', unpack(ARGV, 2))";
 
     private final AbstractRedisClient client;
 
@@ -40,32 +40,41 @@ public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consum
 
     private final Config config;
 
-    private Duration block = DEFAULT_BLOCK;
-
-    private OptionalLong count = DEFAULT_COUNT;
+    private final StreamPoller poller;
 
-    private StreamPoller poller;
+    private final boolean ownsPoller;
 
-    private ExecutorService executor;
+    private Subscription subscription;
 
     private StatefulRedisModulesConnection<String, String> connection;
 
-    public StreamConfigManager(AbstractRedisClient client, Config config, JavaPropsMapper mapper) {
-        this.config = config;
-        this.client = client;
-        this.mapper = mapper;
-    }
+    /**
+     * ID of the last message of the config stream applied here
+     */
+    private volatile String version = StreamPoller.INITIAL_OFFSET;
 
-    public void setBlock(Duration block) {
-        this.block = block;
+    /**
+     * Creates a config manager that watches its config stream with its own poller.
+     */
+    public StreamConfigManager(AbstractRedisClient client, Config config, JavaPropsMapper mapper) {
+        this(client, config, mapper, new StreamPoller(client), true);
     }
 
-    public void setCount(long count) {
-        setCount(OptionalLong.of(count));
+    /**
+     * 
+     * @param poller shared poller to watch the config stream with. It is not closed when this config manager is stopped.
+     */
+    public StreamConfigManager(AbstractRedisClient client, Config config, JavaPropsMapper mapper, StreamPoller poller) {
+        this(client, config, mapper, poller, false);
     }
 
-    public void setCount(OptionalLong count) {
-        this.count = count;
+    private StreamConfigManager(AbstractRedisClient client, Config config, JavaPropsMapper mapper, StreamPoller poller,
+            boolean ownsPoller) {
+        this.config = config;
+        this.client = client;
+        this.mapper = mapper;
+        this.poller = poller;
+        this.ownsPoller = ownsPoller;
     }
 
     @Override
@@ -74,17 +83,47 @@ public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consum
         connection = RedisModulesUtils.connection(client);
         List<StreamMessage<String, String>> messages = connection.sync().xrevrange(key, Range.create("-", "+"),
                 Limit.create(0, 1));
+        // Watch the stream from the last message seen here so that no update is missed in between
+        String offset = StreamPoller.INITIAL_OFFSET;
         if (messages.isEmpty()) {
             Map<String, String> map = mapper.writeValueAsMap(config.getRuleset());
             if (!map.isEmpty()) {
-                connection.sync().xadd(key, map);
+                offset = connection.sync().xadd(key, map);
             }
+            version = offset;
         } else {
             accept(messages.get(0));
+            offset = messages.get(0).getId();
         }
-        executor = Executors.newSingleThreadExecutor();
-        poller = new StreamPoller(connection, xreadArgs(), StreamOffset.latest(key), this);
-        executor.submit(poller);
+        poller.start();
+        subscription = poller.subscribe(key, offset, this);
+    }
+
+    @Override
+    public void publish(RulesetConfig ruleset) throws IOException {
+        connection.sync().xadd(key(), mapper.writeValueAsMap(ruleset));
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Adds the given ruleset to the config stream, in a script so that no message can be added between checking the last
+     * message and adding the new one.
+     */
+    @Override
+    public boolean publish(RulesetConfig ruleset, String version) throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add(version);
+        mapper.writeValueAsMap(ruleset).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        String id = connection.sync().eval(PUBLISH_SCRIPT, ScriptOutputType.VALUE, new String[] { key() },
+                args.toArray(new String[0]));
+        return id != null;
     }
 
     public String key() {
@@ -109,6 +148,9 @@ public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consum
             }
         } catch (Exception e) {
             log.log(Level.SEVERE, "Could not parse config", e);
+        } finally {
+            // Updated after the rules so that a config derived from the rules is never published with a newer version
+            version = message.getId();
         }
     }
 
@@ -139,16 +181,7 @@ public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consum
     }
 
     public boolean isRunning() {
-        return poller.getState() == State.STARTED;
-    }
-
-    private XReadArgs xreadArgs() {
-        XReadArgs args = new XReadArgs();
-        if (!block.isZero()) {
-            args.block(block);
-        }
-        count.ifPresent(args::count);
-        return args;
+        return subscription != null && poller.getState() == State.STARTED;
     }
 
     @Override
@@ -158,12 +191,17 @@ public class StreamConfigManager implements ConfigManager<RulesetConfig>, Consum
 
     @Override
     public void stop() throws InterruptedException, ExecutionException, TimeoutException {
-        poller.stop();
-        poller = null;
-        executor.shutdown();
-        executor = null;
-        connection.close();
-        connection = null;
+        if (subscription != null) {
+            poller.unsubscribe(subscription);
+            subscription = null;
+        }
+        if (ownsPoller) {
+            poller.close();
+        }
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
     }
 
 }
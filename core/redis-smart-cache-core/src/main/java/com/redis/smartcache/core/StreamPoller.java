@@ -1,52 +1,261 @@
 package com.redis.smartcache.core;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.util.RedisModulesUtils;
 
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisException;
 import io.lettuce.core.StreamMessage;
 import io.lettuce.core.XReadArgs;
 import io.lettuce.core.XReadArgs.StreamOffset;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 
-public class StreamPoller implements Runnable {
+/**
+ * Watches any number of streams with a single blocking XREAD on a single connection, run by a daemon thread. Streams are
+ * added and removed with {@link #subscribe(String, String, Consumer)} and {@link #unsubscribe(Subscription)}. Read errors are
+ * retried with exponential back-off.
+ * <p>
+ * With Redis Cluster, an XREAD can only read streams of the same hash slot: streams are grouped by slot and each group is
+ * read in turn, the block duration being split between groups.
+ * <p>
+ * A poller that is closed cannot be started again.
+ */
+public class StreamPoller implements AutoCloseable {
 
-    private final StatefulRedisModulesConnection<String, String> connection;
+    private static final Logger log = Logger.getLogger(StreamPoller.class.getName());
 
-    private final XReadArgs xreadArgs;
+    public static final Duration DEFAULT_BLOCK = Duration.ofMillis(300);
 
-    private final StreamOffset<String> offset;
+    public static final String INITIAL_OFFSET = "0-0";
 
-    private final Consumer<StreamMessage<String, String>> consumer;
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
 
-    private boolean stop;
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
 
-    private State state = State.STARTING;
+    private static final int MAX_SHIFT = 20;
 
-    public StreamPoller(StatefulRedisModulesConnection<String, String> connection, XReadArgs xreadArgs,
-            StreamOffset<String> offset, Consumer<StreamMessage<String, String>> consumer) {
-        this.connection = connection;
-        this.xreadArgs = xreadArgs;
-        this.offset = offset;
-        this.consumer = consumer;
+    private static final String THREAD_NAME = "smartcache-stream-poller";
+
+    private final AbstractRedisClient client;
+
+    private final Duration block;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.STARTING);
+
+    private StatefulRedisModulesConnection<String, String> connection;
+
+    private volatile Thread thread;
+
+    private int failures;
+
+    public StreamPoller(AbstractRedisClient client) {
+        this(client, DEFAULT_BLOCK);
+    }
+
+    /**
+     *
+     * @param client Redis client to open the XREAD connection with
+     * @param block max duration of a blocking XREAD. Bounds the time it takes for a new subscription to be read.
+     */
+    public StreamPoller(AbstractRedisClient client, Duration block) {
+        this.client = client;
+        this.block = block;
+    }
+
+    /**
+     * Opens the XREAD connection and starts the daemon polling thread. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (state.get() == State.STARTED) {
+            return;
+        }
+        if (state.get() != State.STARTING) {
+            throw new IllegalStateException("Stream poller is closed");
+        }
+        connection = RedisModulesUtils.connection(client);
+        thread = new Thread(this::run, THREAD_NAME);
+        thread.setDaemon(true);
+        state.set(State.STARTED);
+        thread.start();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     *
+     * @param key the stream key
+     * @param offset ID of the last message already processed by the consumer. Only messages after this one are read.
+     * @param consumer the consumer of new messages. Called from the polling thread.
+     * @return the subscription, to be passed to {@link #unsubscribe(Subscription)}
+     */
+    public Subscription subscribe(String key, String offset, Consumer<StreamMessage<String, String>> consumer) {
+        Subscription subscription = new Subscription(key, offset, consumer);
+        subscriptions.add(subscription);
+        LockSupport.unpark(thread);
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private void run() {
+        while (state.get() == State.STARTED) {
+            List<Subscription> current = new ArrayList<>(subscriptions);
+            if (current.isEmpty()) {
+                LockSupport.parkNanos(this, block.toNanos());
+                continue;
+            }
+            try {
+                poll(current);
+                failures = 0;
+            } catch (RedisException e) {
+                if (state.get() == State.STARTED) {
+                    backoff(e);
+                }
+            } catch (RuntimeException e) {
+                log.log(Level.SEVERE, "Unexpected error while reading config streams", e);
+                if (state.get() == State.STARTED) {
+                    backoff(e);
+                }
+            }
+        }
+        state.set(State.STOPPED);
+    }
+
+    private void poll(List<Subscription> current) {
+        // Each stream is read from the oldest offset among its subscribers
+        Map<String, String> offsets = new LinkedHashMap<>();
+        for (Subscription subscription : current) {
+            offsets.merge(subscription.key, subscription.offset,
+                    (offset1, offset2) -> compareIds(offset1, offset2) <= 0 ? offset1 : offset2);
+        }
+        List<Map<String, String>> groups = groups(offsets);
+        // XREAD blocks forever with a 0 duration
+        Duration groupBlock = Duration.ofMillis(Math.max(1, block.toMillis() / groups.size()));
+        for (Map<String, String> group : groups) {
+            read(group, groupBlock, current);
+        }
+    }
+
+    private List<Map<String, String>> groups(Map<String, String> offsets) {
+        if (!(connection instanceof StatefulRedisClusterConnection)) {
+            return Collections.singletonList(offsets);
+        }
+        Map<Integer, Map<String, String>> slots = new TreeMap<>();
+        offsets.forEach((key, offset) -> slots.computeIfAbsent(SlotHash.getSlot(key), s -> new LinkedHashMap<>()).put(key,
+                offset));
+        return new ArrayList<>(slots.values());
     }
 
     @SuppressWarnings("unchecked")
-    @Override
-    public void run() {
-        this.state = State.STARTED;
-        while (!stop) {
-            connection.sync().xread(xreadArgs, offset).forEach(consumer);
+    private void read(Map<String, String> offsets, Duration groupBlock, List<Subscription> current) {
+        StreamOffset<String>[] streams = offsets.entrySet().stream().map(e -> StreamOffset.from(e.getKey(), e.getValue()))
+                .toArray(StreamOffset[]::new);
+        List<StreamMessage<String, String>> messages = connection.sync().xread(XReadArgs.Builder.block(groupBlock),
+                streams);
+        for (StreamMessage<String, String> message : messages) {
+            for (Subscription subscription : current) {
+                subscription.accept(message);
+            }
         }
-        this.state = State.STOPPED;
     }
 
-    public void stop() {
-        stop = true;
-        this.state = State.STOPPING;
+    private void backoff(RuntimeException error) {
+        long delay = Math.min(MAX_BACKOFF.toMillis(), INITIAL_BACKOFF.toMillis() << Math.min(failures, MAX_SHIFT));
+        failures++;
+        log.log(Level.WARNING, "Could not read config streams, retrying in {0} ms: {1}",
+                new Object[] { delay, error.getMessage() });
+        log.log(Level.FINE, "Could not read config streams", error);
+        LockSupport.parkNanos(this, Duration.ofMillis(delay).toNanos());
     }
 
-    public State getState() {
-        return state;
+    /**
+     * Compares two stream message IDs of the form {@code <millis>-<sequence>}.
+     */
+    static int compareIds(String id1, String id2) {
+        int separator1 = id1.indexOf('-');
+        int separator2 = id2.indexOf('-');
+        long millis1 = Long.parseLong(separator1 == -1 ? id1 : id1.substring(0, separator1));
+        long millis2 = Long.parseLong(separator2 == -1 ? id2 : id2.substring(0, separator2));
+        if (millis1 != millis2) {
+            return Long.compare(millis1, millis2);
+        }
+        long sequence1 = separator1 == -1 ? 0 : Long.parseLong(id1.substring(separator1 + 1));
+        long sequence2 = separator2 == -1 ? 0 : Long.parseLong(id2.substring(separator2 + 1));
+        return Long.compare(sequence1, sequence2);
+    }
+
+    /**
+     * Stops the polling thread and closes the XREAD connection. A poller that was never started is marked as stopped without
+     * opening any connection.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (state.compareAndSet(State.STARTING, State.STOPPED)) {
+            subscriptions.clear();
+            return;
+        }
+        if (!state.compareAndSet(State.STARTED, State.STOPPING)) {
+            // Already stopping or stopped
+            return;
+        }
+        LockSupport.unpark(thread);
+        thread.join(block.toMillis() + connection.getTimeout().toMillis());
+        connection.close();
+        subscriptions.clear();
+    }
+
+    public static class Subscription {
+
+        private final String key;
+
+        private final Consumer<StreamMessage<String, String>> consumer;
+
+        private volatile String offset;
+
+        private Subscription(String key, String offset, Consumer<StreamMessage<String, String>> consumer) {
+            this.key = key;
+            this.offset = offset;
+            this.consumer = consumer;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        private void accept(StreamMessage<String, String> message) {
+            if (!key.equals(message.getStream()) || compareIds(message.getId(), offset) <= 0) {
+                return;
+            }
+            offset = message.getId();
+            try {
+                consumer.accept(message);
+            } catch (RuntimeException e) {
+                log.log(Level.SEVERE, "Could not process message " + message.getId() + " from stream " + key, e);
+            }
+        }
+
     }
 
 }
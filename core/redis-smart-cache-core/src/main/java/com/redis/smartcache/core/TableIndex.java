@@ -0,0 +1,149 @@
+package com.redis.smartcache.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+
+/**
+ * Keeps, for each table, a Redis sorted set of the cache keys whose queries read that table, scored by their expiration time,
+ * so that all cached results of a table can be deleted when the table is written to.
+ * <p>
+ * Keys are added asynchronously when results are cached. Whenever a key is added to a sorted set, expired keys are pruned from
+ * it and the sorted set is set to expire along with its last key, so that sets of tables that are no longer read do not
+ * linger. Names of indexed tables are kept in a set so that all tables can be invalidated at once. Tables are identified by
+ * their unqualified name so that {@code public.orders} and {@code orders} share the same set.
+ */
+public class TableIndex implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(TableIndex.class.getName());
+
+    private static final String NO_EXPIRATION = "+inf";
+
+    /**
+     * Prunes expired keys, adds the key and makes the sorted set expire with its last key
+     */
+    private static final String ADD_SCRIPT = "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])\n"
+            + "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[3])\n"
+            + "local last = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')\n"
+            + "if last[2] == 'inf' then return redis.call('PERSIST', KEYS[1]) end\n"
+            + "return redis.call('PEXPIREAT', KEYS[1], last[2])";
+
+    private final StatefulRedisModulesConnection<String, String> connection;
+
+    private final KeyBuilder keyBuilder;
+
+    /**
+     *
+     * @param client Redis client to open the connection with
+     * @param keyBuilder key builder for the per-table sorted sets
+     */
+    public TableIndex(AbstractRedisClient client, KeyBuilder keyBuilder) {
+        this.connection = RedisModulesUtils.connection(client);
+        this.keyBuilder = keyBuilder;
+    }
+
+    /**
+     *
+     * @param table a possibly qualified table name
+     * @return the table name without its catalog and schema
+     */
+    public static String unqualified(String table) {
+        return table.substring(table.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Records the given cache key under each of the given tables, without waiting for Redis to reply.
+     *
+     * @param key the cache key
+     * @param tables the tables read by the query behind the key
+     * @param ttlMillis time-to-live of the cache key, or 0 if it does not expire
+     */
+    public void add(String key, Collection<String> tables, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        String expiresAt = ttlMillis > 0 ? String.valueOf(now + ttlMillis) : NO_EXPIRATION;
+        RedisModulesAsyncCommands<String, String> commands = connection.async();
+        try {
+            for (String table : tables) {
+                String name = unqualified(table);
+                commands.eval(ADD_SCRIPT, ScriptOutputType.INTEGER, new String[] { tableKey(name) }, String.valueOf(now),
+                        expiresAt, key);
+                commands.sadd(tablesKey(), name);
+            }
+        } catch (RedisException e) {
+            log.log(Level.FINE, "Could not index cache key " + key, e);
+        }
+    }
+
+    /**
+     * Reads the cache keys recorded under the given tables, with all sorted sets read in one pipelined batch.
+     *
+     * @param tables the tables that were written to
+     * @return the cache keys of the given tables
+     */
+    public List<String> keys(Collection<String> tables) {
+        RedisModulesAsyncCommands<String, String> commands = connection.async();
+        List<RedisFuture<List<String>>> futures = new ArrayList<>();
+        for (String table : tables) {
+            futures.add(commands.zrange(tableKey(unqualified(table)), 0, -1));
+        }
+        // Commands are all sent before waiting for the first reply
+        long timeout = connection.getTimeout().toMillis();
+        List<String> keys = new ArrayList<>();
+        for (RedisFuture<List<String>> future : futures) {
+            keys.addAll(LettuceFutures.awaitOrCancel(future, timeout, TimeUnit.MILLISECONDS));
+        }
+        return keys;
+    }
+
+    /**
+     *
+     * @return names of the tables whose sorted sets might hold keys
+     */
+    public Set<String> tables() {
+        return connection.sync().smembers(tablesKey());
+    }
+
+    /**
+     * Deletes the given cache keys along with the sorted sets of the given tables, with a single command.
+     *
+     * @param tables the tables that were written to
+     * @param keys the cache keys of the given tables, as returned by {@link #keys(Collection)}
+     */
+    public void delete(Collection<String> tables, Collection<String> keys) {
+        List<String> deleted = new ArrayList<>(keys);
+        for (String table : tables) {
+            deleted.add(tableKey(unqualified(table)));
+        }
+        if (!deleted.isEmpty()) {
+            connection.sync().unlink(deleted.toArray(new String[0]));
+        }
+    }
+
+    private String tableKey(String table) {
+        return keyBuilder.build(table);
+    }
+
+    private String tablesKey() {
+        return keyBuilder.build();
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+
+}
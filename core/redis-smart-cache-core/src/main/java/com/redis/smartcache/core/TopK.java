@@ -0,0 +1,199 @@
+package com.redis.smartcache.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch estimating the most frequent items of a stream in bounded memory. A fixed number of counters is kept,
+ * sorted by count: an item that is not tracked replaces the least counted one and inherits its count as over-estimation
+ * error. Any item occurring more than {@code n / capacity} times in a stream of {@code n} items is guaranteed to be tracked.
+ * <p>
+ * An item is reported as top if it ranks among the first {@code k} counters and its guaranteed count, that is its count minus
+ * its error, is above the count of the least counted item, so that items of a long tail replacing each other at the bottom
+ * of the sketch are not reported. Methods are synchronized.
+ */
+public class TopK {
+
+    private final int k;
+
+    private final String[] items;
+
+    private final long[] counts;
+
+    private final long[] errors;
+
+    private final Map<String, Integer> positions;
+
+    private int size;
+
+    /**
+     *
+     * @param k number of top items to report
+     * @param capacity number of counters, at least k. The larger, the more accurate the estimation.
+     */
+    public TopK(int k, int capacity) {
+        if (k <= 0 || capacity < k) {
+            throw new IllegalArgumentException("Invalid top-k size " + k + " or capacity " + capacity);
+        }
+        this.k = k;
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Counts an occurrence of the given item.
+     *
+     * @return true if the item is top after being counted
+     */
+    public synchronized boolean offer(String item) {
+        return offer(item, 1);
+    }
+
+    /**
+     * Counts the given number of occurrences of the given item at once.
+     *
+     * @param count number of occurrences, at least 1
+     * @return true if the item is top after being counted
+     */
+    public synchronized boolean offer(String item, long count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+        Integer position = positions.get(item);
+        int index;
+        if (position == null) {
+            if (size < items.length) {
+                index = size++;
+            } else {
+                index = items.length - 1;
+                positions.remove(items[index]);
+                errors[index] = counts[index];
+            }
+            items[index] = item;
+            positions.put(item, index);
+        } else {
+            index = position;
+        }
+        return isTop(count == 1 ? increment(index) : increment(index, count));
+    }
+
+    /**
+     *
+     * @return true if the given item is top
+     */
+    public synchronized boolean isTop(String item) {
+        Integer position = positions.get(item);
+        return position != null && isTop(position);
+    }
+
+    /**
+     *
+     * @return the estimated count of the given item, or 0 if it is not tracked
+     */
+    public synchronized long count(String item) {
+        Integer position = positions.get(item);
+        return position == null ? 0 : counts[position];
+    }
+
+    /**
+     *
+     * @return the top items, most frequent first
+     */
+    public synchronized List<String> top() {
+        List<String> top = new ArrayList<>(k);
+        for (int index = 0; index < Math.min(k, size); index++) {
+            if (isTop(index)) {
+                top.add(items[index]);
+            }
+        }
+        return top;
+    }
+
+    private boolean isTop(int index) {
+        return index < k && counts[index] - errors[index] > floor();
+    }
+
+    /**
+     *
+     * @return the count an item that is not tracked would replace
+     */
+    private long floor() {
+        return size < items.length ? 0 : counts[items.length - 1];
+    }
+
+    /**
+     * Increments the counter at the given index, moving it first to the leftmost index of the counters with the same count so
+     * that counters stay sorted.
+     *
+     * @return the new index of the counter
+     */
+    private int increment(int index) {
+        long count = counts[index];
+        int low = 0;
+        int high = index;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (counts[middle] > count) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low != index) {
+            swap(low, index);
+        }
+        counts[low]++;
+        return low;
+    }
+
+    /**
+     * Adds the given count to the counter at the given index, moving it before the counters with a lower count than its new
+     * count so that counters stay sorted.
+     *
+     * @return the new index of the counter
+     */
+    private int increment(int index, long delta) {
+        long count = counts[index] + delta;
+        int low = 0;
+        int high = index;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (counts[middle] >= count) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        String item = items[index];
+        long error = errors[index];
+        System.arraycopy(items, low, items, low + 1, index - low);
+        System.arraycopy(counts, low, counts, low + 1, index - low);
+        System.arraycopy(errors, low, errors, low + 1, index - low);
+        items[low] = item;
+        counts[low] = count;
+        errors[low] = error;
+        for (int moved = low; moved <= index; moved++) {
+            positions.put(items[moved], moved);
+        }
+        return low;
+    }
+
+    private void swap(int left, int right) {
+        String item = items[left];
+        long count = counts[left];
+        long error = errors[left];
+        items[left] = items[right];
+        counts[left] = counts[right];
+        errors[left] = errors[right];
+        items[right] = item;
+        counts[right] = count;
+        errors[right] = error;
+        positions.put(items[left], left);
+        positions.put(items[right], right);
+    }
+
+}
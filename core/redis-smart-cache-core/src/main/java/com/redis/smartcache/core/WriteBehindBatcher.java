@@ -0,0 +1,308 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Collects cache writes from all connections to the same Redis and writes them in pipelined batches on a dedicated connection
+ * with manual command flushing. A batch is flushed when the queue reaches the batch size or when the flush interval elapses,
+ * whichever comes first. Writes to a key that is already queued replace the queued value so only the latest one is sent.
+ * <p>
+ * Cache writes are best-effort: when the queue is full, or while the circuit breaker or the back-off controller reject writes,
+ * queued values are dropped.
+ */
+public class WriteBehindBatcher implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(WriteBehindBatcher.class.getName());
+
+    public static final String METER_BATCH = "cache.write.batch";
+
+    public static final String METER_QUEUE = "cache.write.queue";
+
+    public static final String METER_DROPPED = "cache.write.dropped";
+
+    private static final String THREAD_NAME = "smartcache-write-behind";
+
+    private final StatefulRedisModulesConnection<String, byte[]> connection;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final BackoffController backoff;
+
+    private final int batchSize;
+
+    private final long flushInterval;
+
+    private final int queueCapacity;
+
+    private final Map<String, Write> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Held while a batch is taken from the queue and written
+     */
+    private final Lock batchLock = new ReentrantLock();
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    private volatile DistributionSummary batchSizes;
+
+    /**
+     *
+     * @param client Redis client to open the write connection with
+     * @param circuitBreaker circuit breaker shared with the cache reads
+     * @param backoff write back-off shared with the synchronous cache writes
+     * @param batchSize number of queued writes that triggers a flush
+     * @param flushInterval max time a queued write waits before being flushed
+     * @param queueCapacity max number of distinct keys waiting to be written
+     */
+    public WriteBehindBatcher(AbstractRedisClient client, CircuitBreaker circuitBreaker, BackoffController backoff,
+            int batchSize, Duration flushInterval, int queueCapacity) {
+        this.connection = RedisModulesUtils.connection(client, RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        this.connection.setAutoFlushCommands(false);
+        this.circuitBreaker = circuitBreaker;
+        this.backoff = backoff;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(1, flushInterval.toNanos());
+        this.queueCapacity = Math.max(this.batchSize, queueCapacity);
+        this.flusher = new Thread(this::run, THREAD_NAME);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a write. Never blocks.
+     *
+     * @param key the cache key
+     * @param value the encoded value
+     * @param ttlMillis time-to-live in milliseconds, or 0 for no expiration
+     * @return false if the write was dropped because the queue is full or the batcher is closed
+     */
+    public boolean offer(String key, byte[] value, long ttlMillis) {
+        if (!running) {
+            return false;
+        }
+        Write write = new Write(value, ttlMillis);
+        if (pending.replace(key, write) != null) {
+            return true;
+        }
+        if (depth.incrementAndGet() > queueCapacity) {
+            depth.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (pending.put(key, write) != null) {
+            // Another thread queued the same key in the meantime
+            depth.decrementAndGet();
+        }
+        if (depth.get() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    /**
+     * Drops the queued writes of the given keys and waits for the batch being written, if any, so that no write of these keys
+     * queued before this call reaches Redis after it returns.
+     *
+     * @param keys the cache keys whose writes must not be sent, e.g. because they are being invalidated
+     */
+    public void cancel(Collection<String> keys) {
+        for (String key : keys) {
+            if (pending.remove(key) != null) {
+                depth.decrementAndGet();
+            }
+        }
+        batchLock.lock();
+        batchLock.unlock();
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void run() {
+        while (running || depth.get() > 0) {
+            if (running && depth.get() < batchSize) {
+                LockSupport.parkNanos(this, flushInterval);
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                backoff.log(Level.WARNING, "Could not flush cache writes.", e);
+            }
+        }
+    }
+
+    private void flush() {
+        Iterator<String> keys = pending.keySet().iterator();
+        while (keys.hasNext()) {
+            if (!backoff.allowWrite() || !circuitBreaker.allowRequest()) {
+                discard(keys);
+                return;
+            }
+            batchLock.lock();
+            try {
+                if (!flushBatch(keys)) {
+                    return;
+                }
+            } finally {
+                batchLock.unlock();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return false if no write was left to flush
+     */
+    private boolean flushBatch(Iterator<String> keys) {
+        RedisModulesAsyncCommands<String, byte[]> commands = connection.async();
+        List<RedisFuture<String>> futures = new ArrayList<>(batchSize);
+        while (keys.hasNext() && futures.size() < batchSize) {
+            String key = keys.next();
+            Write write = pending.remove(key);
+            if (write == null) {
+                continue;
+            }
+            depth.decrementAndGet();
+            if (write.ttlMillis > 0) {
+                futures.add(commands.psetex(key, write.ttlMillis, write.value));
+            } else {
+                futures.add(commands.set(key, write.value));
+            }
+        }
+        if (futures.isEmpty()) {
+            return false;
+        }
+        connection.flushCommands();
+        DistributionSummary summary = batchSizes;
+        if (summary != null) {
+            summary.record(futures.size());
+        }
+        await(futures);
+        return true;
+    }
+
+    private void discard(Iterator<String> keys) {
+        while (keys.hasNext()) {
+            if (pending.remove(keys.next()) != null) {
+                depth.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void await(List<RedisFuture<String>> futures) {
+        long timeout = connection.getTimeout().toNanos();
+        long deadline = System.nanoTime() + timeout;
+        Exception error = null;
+        for (RedisFuture<String> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (TimeoutException e) {
+                error = e;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (error == null) {
+            circuitBreaker.onSuccess();
+            backoff.onSuccess();
+            return;
+        }
+        if (BackoffController.isOom(error)) {
+            // Redis is reachable: only writes back off, reads go on
+            backoff.onOom(error);
+        } else {
+            circuitBreaker.onFailure();
+            backoff.log(Level.WARNING, "Could not write batch of {0} rowsets to cache.", error, futures.size());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder(METER_BATCH).description("Number of cache writes per pipelined flush")
+                .register(registry);
+        Gauge.builder(METER_QUEUE, depth, AtomicInteger::get).description("Number of cache writes waiting to be flushed")
+                .register(registry);
+        FunctionCounter.builder(METER_DROPPED, dropped, AtomicLong::get)
+                .description("Number of cache writes dropped because the queue was full or Redis unavailable")
+                .register(registry);
+    }
+
+    /**
+     * Flushes the writes still in the queue and closes the write connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(connection.getTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warning("Write-behind flusher did not terminate in time");
+        }
+        connection.close();
+    }
+
+    private static class Write {
+
+        private final byte[] value;
+
+        private final long ttlMillis;
+
+        private Write(byte[] value, long ttlMillis) {
+            this.value = value;
+            this.ttlMillis = ttlMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.redis.smartcache.core.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.airlift.units.Duration;
+
+public class AutoCacheConfig {
+
+    public static final Duration DEFAULT_MIN_LATENCY = new Duration(100, TimeUnit.MILLISECONDS);
+
+    public static final double DEFAULT_MIN_RATE = 1;
+
+    public static final Duration DEFAULT_TTL = new Duration(1, TimeUnit.MINUTES);
+
+    public static final double DEFAULT_MIN_HIT_RATIO = 0.1;
+
+    public static final long DEFAULT_MIN_GETS = 100;
+
+    public static final Duration DEFAULT_RETRY_INTERVAL = new Duration(1, TimeUnit.HOURS);
+
+    private boolean enabled;
+
+    private Duration minLatency = DEFAULT_MIN_LATENCY;
+
+    private double minRate = DEFAULT_MIN_RATE;
+
+    private Duration ttl = DEFAULT_TTL;
+
+    private double minHitRatio = DEFAULT_MIN_HIT_RATIO;
+
+    private long minGets = DEFAULT_MIN_GETS;
+
+    private Duration retryInterval = DEFAULT_RETRY_INTERVAL;
+
+    /**
+     *
+     * @return true if slow and frequent queries are cached without a rule
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     *
+     * @return median backend latency above which a query is cached
+     */
+    public Duration getMinLatency() {
+        return minLatency;
+    }
+
+    public void setMinLatency(Duration minLatency) {
+        this.minLatency = minLatency;
+    }
+
+    /**
+     *
+     * @return backend calls per second above which a query is cached
+     */
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public void setMinRate(double minRate) {
+        this.minRate = minRate;
+    }
+
+    /**
+     *
+     * @return time-to-live of queries that are cached automatically
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     *
+     * @return hit ratio below which an automatically cached query stops being cached
+     */
+    public double getMinHitRatio() {
+        return minHitRatio;
+    }
+
+    public void setMinHitRatio(double minHitRatio) {
+        this.minHitRatio = minHitRatio;
+    }
+
+    /**
+     *
+     * @return number of cache lookups needed before the hit ratio of a query is considered
+     */
+    public long getMinGets() {
+        return minGets;
+    }
+
+    public void setMinGets(long minGets) {
+        this.minGets = minGets;
+    }
+
+    /**
+     *
+     * @return time after which a query that stopped being cached is considered again for caching
+     */
+    public Duration getRetryInterval() {
+        return retryInterval;
+    }
+
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+}
@@ -14,14 +14,48 @@ public class CacheConfig {
 
     private static final Duration DEFAULT_OOM_RETRY_INTERVAL = new Duration(1, TimeUnit.MINUTES);
 
+    private static final Duration DEFAULT_OOM_MAX_RETRY_INTERVAL = new Duration(10, TimeUnit.MINUTES);
+
+    public static final double DEFAULT_MEMORY_THRESHOLD = 0.95;
+
+    private static final Duration DEFAULT_MEMORY_PROBE_INTERVAL = new Duration(1, TimeUnit.SECONDS);
+
+    private CacheType type = CacheType.REDIS;
+
     private DataSize codecBufferCapacity = DEFAULT_BUFFER_CAPACITY;
 
     private String keySeparator = KeyBuilder.DEFAULT_SEPARATOR;
 
     private Duration oomRetryInterval = DEFAULT_OOM_RETRY_INTERVAL;
 
+    private Duration oomMaxRetryInterval = DEFAULT_OOM_MAX_RETRY_INTERVAL;
+
+    private double memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+
+    private Duration memoryProbeInterval = DEFAULT_MEMORY_PROBE_INTERVAL;
+
+    private boolean invalidation;
+
     private RedisConfig redis;
 
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+
+    private WriteBehindConfig writeBehind = new WriteBehindConfig();
+
+    private LocalCacheConfig local = new LocalCacheConfig();
+
+    private WarmupConfig warmup = new WarmupConfig();
+
+    private AutoCacheConfig auto = new AutoCacheConfig();
+
+    public CacheType getType() {
+        return type;
+    }
+
+    public void setType(CacheType type) {
+        this.type = type;
+    }
+
     /**
      * 
      * @return max byte buffer capacity in bytes
@@ -46,6 +80,47 @@ public class CacheConfig {
         this.oomRetryInterval = oomRetryInterval;
     }
 
+    public Duration getOomMaxRetryInterval() {
+        return oomMaxRetryInterval;
+    }
+
+    public void setOomMaxRetryInterval(Duration oomMaxRetryInterval) {
+        this.oomMaxRetryInterval = oomMaxRetryInterval;
+    }
+
+    /**
+     * 
+     * @return Redis used_memory/maxmemory ratio above which cache writes are suspended. Use 0 to disable memory probing.
+     */
+    public double getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    public void setMemoryThreshold(double memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    public Duration getMemoryProbeInterval() {
+        return memoryProbeInterval;
+    }
+
+    public void setMemoryProbeInterval(Duration memoryProbeInterval) {
+        this.memoryProbeInterval = memoryProbeInterval;
+    }
+
+    /**
+     * 
+     * @return true if cached results are indexed by table so that they are deleted when their tables are written to through
+     *         the driver
+     */
+    public boolean isInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(boolean invalidation) {
+        this.invalidation = invalidation;
+    }
+
     public RedisConfig getRedis() {
         return redis;
     }
@@ -54,6 +129,46 @@ public class CacheConfig {
         this.redis = redis;
     }
 
+    public CircuitBreakerConfig getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreakerConfig circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public WriteBehindConfig getWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(WriteBehindConfig writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public LocalCacheConfig getLocal() {
+        return local;
+    }
+
+    public void setLocal(LocalCacheConfig local) {
+        this.local = local;
+    }
+
+    public WarmupConfig getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(WarmupConfig warmup) {
+        this.warmup = warmup;
+    }
+
+    public AutoCacheConfig getAuto() {
+        return auto;
+    }
+
+    public void setAuto(AutoCacheConfig auto) {
+        this.auto = auto;
+    }
+
     public String getKeySeparator() {
         return keySeparator;
     }
@@ -0,0 +1,21 @@
+package com.redis.smartcache.core.config;
+
+public enum CacheType {
+
+    /**
+     * Results are cached in Redis and shared by all application instances.
+     */
+    REDIS,
+
+    /**
+     * Results are cached in the memory of the application process.
+     */
+    LOCAL,
+
+    /**
+     * Results are cached in the memory of the application process in front of Redis. Results read from Redis are kept locally
+     * for a limited time.
+     */
+    TIERED
+
+}
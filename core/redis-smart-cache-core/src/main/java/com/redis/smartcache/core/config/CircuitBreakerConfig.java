@@ -0,0 +1,41 @@
+package com.redis.smartcache.core.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.airlift.units.Duration;
+
+public class CircuitBreakerConfig {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    public static final Duration DEFAULT_WAIT_DURATION = new Duration(10, TimeUnit.SECONDS);
+
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    private Duration waitDuration = DEFAULT_WAIT_DURATION;
+
+    /**
+     *
+     * @return number of consecutive Redis failures after which the circuit opens
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     *
+     * @return how long the circuit stays open before a probe request is let through
+     */
+    public Duration getWaitDuration() {
+        return waitDuration;
+    }
+
+    public void setWaitDuration(Duration waitDuration) {
+        this.waitDuration = waitDuration;
+    }
+
+}
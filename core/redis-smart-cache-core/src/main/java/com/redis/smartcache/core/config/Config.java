@@ -14,6 +14,8 @@ public class Config {
 
     private int queryCacheCapacity = DEFAULT_QUERY_CACHE_CAPACITY;
 
+    private boolean normalizeLiterals;
+
     private DriverConfig driver = new DriverConfig();
 
     private RedisConfig redis = new RedisConfig();
@@ -56,6 +58,19 @@ public class Config {
         this.queryCacheCapacity = capacity;
     }
 
+    /**
+     * 
+     * @return true if literals of static statements are replaced with placeholders, so that statements differing only by
+     *         their literals share the same query.
+     */
+    public boolean isNormalizeLiterals() {
+        return normalizeLiterals;
+    }
+
+    public void setNormalizeLiterals(boolean normalizeLiterals) {
+        this.normalizeLiterals = normalizeLiterals;
+    }
+
     public DriverConfig getDriver() {
         return driver;
     }
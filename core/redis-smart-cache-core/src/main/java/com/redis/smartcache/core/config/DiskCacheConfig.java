@@ -0,0 +1,58 @@
+package com.redis.smartcache.core.config;
+
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+
+public class DiskCacheConfig {
+
+    public static final DataSize DEFAULT_MAX_SIZE = DataSize.of(1, Unit.GIGABYTE);
+
+    public static final DataSize DEFAULT_SEGMENT_SIZE = DataSize.of(64, Unit.MEGABYTE);
+
+    private String directory;
+
+    private DataSize maxSize = DEFAULT_MAX_SIZE;
+
+    private DataSize segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    /**
+     *
+     * @return directory of the memory-mapped segment files, or null to disable the disk tier
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public boolean isEnabled() {
+        return directory != null && !directory.isEmpty();
+    }
+
+    /**
+     *
+     * @return max total size of the segment files
+     */
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     *
+     * @return size of each segment file, which is also the max size of an encoded result
+     */
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+}
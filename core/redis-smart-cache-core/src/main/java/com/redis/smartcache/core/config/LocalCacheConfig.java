@@ -0,0 +1,79 @@
+package com.redis.smartcache.core.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import io.airlift.units.Duration;
+
+public class LocalCacheConfig {
+
+    public static final DataSize DEFAULT_MAX_SIZE = DataSize.of(256, Unit.MEGABYTE);
+
+    public static final DataSize DEFAULT_SLAB_SIZE = DataSize.of(4, Unit.MEGABYTE);
+
+    public static final Duration DEFAULT_TTL = new Duration(1, TimeUnit.MINUTES);
+
+    private LocalStorage storage = LocalStorage.HEAP;
+
+    private DataSize maxSize = DEFAULT_MAX_SIZE;
+
+    private DataSize slabSize = DEFAULT_SLAB_SIZE;
+
+    private Duration ttl = DEFAULT_TTL;
+
+    private DiskCacheConfig disk = new DiskCacheConfig();
+
+    public LocalStorage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(LocalStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     *
+     * @return max total size of the encoded results held in the local cache
+     */
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     *
+     * @return size of the off-heap memory slabs, which is also the max size of an encoded result
+     */
+    public DataSize getSlabSize() {
+        return slabSize;
+    }
+
+    public void setSlabSize(DataSize slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    /**
+     *
+     * @return time-to-live of results copied to the local cache when read from Redis
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public DiskCacheConfig getDisk() {
+        return disk;
+    }
+
+    public void setDisk(DiskCacheConfig disk) {
+        this.disk = disk;
+    }
+
+}
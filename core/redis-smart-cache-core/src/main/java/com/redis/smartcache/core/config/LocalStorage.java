@@ -0,0 +1,15 @@
+package com.redis.smartcache.core.config;
+
+public enum LocalStorage {
+
+    /**
+     * Encoded results are kept in heap byte arrays.
+     */
+    HEAP,
+
+    /**
+     * Encoded results are kept in direct memory slabs, outside of the Java heap. Bounded by -XX:MaxDirectMemorySize.
+     */
+    OFF_HEAP
+
+}
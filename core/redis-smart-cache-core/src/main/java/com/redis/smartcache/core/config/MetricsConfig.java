@@ -8,12 +8,24 @@ public class MetricsConfig {
 
     public static final Duration DEFAULT_STEP = new Duration(60, TimeUnit.SECONDS);
 
+    public static final int DEFAULT_MAX_QUERIES = 1000;
+
+    public static final Duration DEFAULT_SKETCH_RETENTION = new Duration(1, TimeUnit.HOURS);
+
     private boolean enabled = true;
 
     private MetricsRegistry registry = MetricsRegistry.REDIS;
 
     private Duration step = DEFAULT_STEP;
 
+    private int topQueries;
+
+    private int maxQueries = DEFAULT_MAX_QUERIES;
+
+    private boolean sketches;
+
+    private Duration sketchRetention = DEFAULT_SKETCH_RETENTION;
+
     /**
      * 
      * @return metrics publishing interval
@@ -42,4 +54,54 @@ public class MetricsConfig {
         this.registry = registry;
     }
 
+    /**
+     *
+     * @return number of hottest queries metered individually, the others being metered together. 0 meters every query
+     *         individually.
+     */
+    public int getTopQueries() {
+        return topQueries;
+    }
+
+    public void setTopQueries(int topQueries) {
+        this.topQueries = topQueries;
+    }
+
+    /**
+     *
+     * @return max number of queries metered individually when top queries are enabled
+     */
+    public int getMaxQueries() {
+        return maxQueries;
+    }
+
+    public void setMaxQueries(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    /**
+     *
+     * @return true if query latencies are recorded into mergeable sketches published to Redis instead of client-side
+     *         percentiles
+     */
+    public boolean isSketches() {
+        return sketches;
+    }
+
+    public void setSketches(boolean sketches) {
+        this.sketches = sketches;
+    }
+
+    /**
+     *
+     * @return time after which published sketches expire
+     */
+    public Duration getSketchRetention() {
+        return sketchRetention;
+    }
+
+    public void setSketchRetention(Duration retention) {
+        this.sketchRetention = retention;
+    }
+
 }
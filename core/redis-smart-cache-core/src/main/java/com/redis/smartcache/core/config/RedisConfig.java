@@ -18,6 +18,12 @@ public class RedisConfig {
 
     private char[] password;
 
+    private String readFrom;
+
+    private int ioThreadPoolSize;
+
+    private int computationThreadPoolSize;
+
     public boolean isTls() {
         return tls;
     }
@@ -66,6 +72,44 @@ public class RedisConfig {
         this.password = password;
     }
 
+    /**
+     * 
+     * @return Lettuce ReadFrom setting (e.g. REPLICA_PREFERRED, NEAREST) used to route cache reads in a Redis Cluster, or null
+     *         to read from primaries
+     */
+    public String getReadFrom() {
+        return readFrom;
+    }
+
+    public void setReadFrom(String readFrom) {
+        this.readFrom = readFrom;
+    }
+
+    /**
+     * 
+     * @return number of Netty I/O threads shared by all Redis clients, or 0 for the Lettuce default (number of processors).
+     *         Only the first Redis config used by the driver determines the thread pool sizes.
+     */
+    public int getIoThreadPoolSize() {
+        return ioThreadPoolSize;
+    }
+
+    public void setIoThreadPoolSize(int ioThreadPoolSize) {
+        this.ioThreadPoolSize = ioThreadPoolSize;
+    }
+
+    /**
+     * 
+     * @return number of computation threads shared by all Redis clients, or 0 for the Lettuce default (number of processors)
+     */
+    public int getComputationThreadPoolSize() {
+        return computationThreadPoolSize;
+    }
+
+    public void setComputationThreadPoolSize(int computationThreadPoolSize) {
+        this.computationThreadPoolSize = computationThreadPoolSize;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(uri);
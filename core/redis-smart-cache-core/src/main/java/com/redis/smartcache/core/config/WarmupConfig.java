@@ -0,0 +1,101 @@
+package com.redis.smartcache.core.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.airlift.units.Duration;
+
+public class WarmupConfig {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = new Duration(10, TimeUnit.SECONDS);
+
+    public static final Duration DEFAULT_DECAY_INTERVAL = new Duration(1, TimeUnit.HOURS);
+
+    public static final double DEFAULT_RATE = 10;
+
+    private boolean enabled;
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    private Duration decayInterval = DEFAULT_DECAY_INTERVAL;
+
+    private boolean reexecute;
+
+    private double rate = DEFAULT_RATE;
+
+    /**
+     *
+     * @return true if hot cache keys are recorded and loaded when a config is first connected
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     *
+     * @return max number of hot keys kept in Redis
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     *
+     * @return interval at which hits recorded by this process are added to the hot keys in Redis
+     */
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     *
+     * @return interval at which hot key scores are halved so that keys that are no longer used fall off
+     */
+    public Duration getDecayInterval() {
+        return decayInterval;
+    }
+
+    public void setDecayInterval(Duration decayInterval) {
+        this.decayInterval = decayInterval;
+    }
+
+    /**
+     *
+     * @return true if hot queries whose results are no longer cached are executed again in the background
+     */
+    public boolean isReexecute() {
+        return reexecute;
+    }
+
+    public void setReexecute(boolean reexecute) {
+        this.reexecute = reexecute;
+    }
+
+    /**
+     *
+     * @return max number of hot queries executed again per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+}
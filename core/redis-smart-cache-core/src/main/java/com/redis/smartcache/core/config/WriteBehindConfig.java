@@ -0,0 +1,71 @@
+package com.redis.smartcache.core.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.airlift.units.Duration;
+
+public class WriteBehindConfig {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = new Duration(10, TimeUnit.MILLISECONDS);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private boolean enabled;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     *
+     * @return true if cache writes are queued and flushed in pipelined batches instead of written synchronously
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     *
+     * @return number of queued writes that triggers a flush
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     *
+     * @return max time a queued write waits before being flushed
+     */
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     *
+     * @return max number of distinct keys waiting to be written. Writes beyond that are dropped.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+}
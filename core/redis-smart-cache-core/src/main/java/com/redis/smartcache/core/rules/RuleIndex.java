@@ -0,0 +1,21 @@
+package com.redis.smartcache.core.rules;
+
+import java.util.BitSet;
+
+/**
+ * Narrows down the rules of a session to the ones that can match a given fact, so that the session does not have to test
+ * every rule.
+ *
+ * @param <L> the fact type
+ */
+@FunctionalInterface
+public interface RuleIndex<L> {
+
+    /**
+     *
+     * @param fact the fact to match
+     * @return positions of the rules that might match the fact. Rules at other positions must not match it.
+     */
+    BitSet candidates(L fact);
+
+}
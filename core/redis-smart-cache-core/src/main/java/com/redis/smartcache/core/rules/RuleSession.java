@@ -1,45 +1,94 @@
 package com.redis.smartcache.core.rules;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import com.redis.smartcache.core.rules.Rule.Control;
 
 public class RuleSession<L, R> {
 
-    private final List<Rule<L, R>> rules;
+    private volatile Plan<L, R> plan;
 
     public RuleSession() {
         this(new ArrayList<>());
     }
 
     public RuleSession(Collection<Rule<L, R>> rules) {
-        this.rules = new ArrayList<>(rules);
+        this(rules, null);
+    }
+
+    /**
+     *
+     * @param rules the rules in firing order
+     * @param index index of the given rules, or null to test every rule
+     */
+    public RuleSession(Collection<Rule<L, R>> rules, RuleIndex<L> index) {
+        this.plan = new Plan<>(rules, index);
     }
 
     public List<Rule<L, R>> getRules() {
-        return rules;
+        return plan.rules;
     }
 
     public void fire(L fact, R action) {
-        synchronized (rules) {
-            for (Rule<L, R> rule : rules) {
-                if (rule.getCondition().test(fact)) {
-                    rule.getAction().accept(action);
-                    if (rule.getControl().apply(fact) == Control.STOP) {
-                        return;
-                    }
+        Plan<L, R> current = plan;
+        if (current.index == null) {
+            for (Rule<L, R> rule : current.rules) {
+                if (fire(rule, fact, action)) {
+                    return;
                 }
             }
+            return;
+        }
+        BitSet candidates = current.index.candidates(fact);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (fire(current.rules.get(i), fact, action)) {
+                return;
+            }
         }
     }
 
+    /**
+     *
+     * @return true if firing must stop after the given rule
+     */
+    private boolean fire(Rule<L, R> rule, L fact, R action) {
+        if (rule.getCondition().test(fact)) {
+            rule.getAction().accept(action);
+            return rule.getControl().apply(fact) == Control.STOP;
+        }
+        return false;
+    }
+
     public void setRules(List<Rule<L, R>> rules) {
-        synchronized (this.rules) {
-            this.rules.clear();
-            this.rules.addAll(rules);
+        setRules(rules, null);
+    }
+
+    /**
+     * Replaces the rules of this session. Facts being fired while rules are replaced are matched against either the previous
+     * or the new rules.
+     *
+     * @param rules the rules in firing order
+     * @param index index of the given rules, or null to test every rule
+     */
+    public void setRules(List<Rule<L, R>> rules, RuleIndex<L> index) {
+        this.plan = new Plan<>(rules, index);
+    }
+
+    private static class Plan<L, R> {
+
+        private final List<Rule<L, R>> rules;
+
+        private final RuleIndex<L> index;
+
+        private Plan(Collection<Rule<L, R>> rules, RuleIndex<L> index) {
+            this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+            this.index = index;
         }
+
     }
 
 }
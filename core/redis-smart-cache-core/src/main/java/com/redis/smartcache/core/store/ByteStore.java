@@ -0,0 +1,96 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Size-bounded, concurrent and TTL-aware key/value store for encoded cache entries held by the application process.
+ */
+public interface ByteStore extends MeterBinder, AutoCloseable {
+
+    String METER_SIZE = "cache.local.size";
+
+    String METER_ENTRIES = "cache.local.entries";
+
+    String METER_EVICTIONS = "cache.local.evictions";
+
+    String METER_ALLOCATED = "cache.local.allocated";
+
+    String TAG_STORE = "store";
+
+    /**
+     * Reads the value for the given key. The buffer passed to the reader is only valid for the duration of the call.
+     *
+     * @param <T> the type of the value read
+     * @param key the key
+     * @param reader function reading the value
+     * @return the result of the reader, or null if the key is absent or expired
+     */
+    <T> T get(String key, Function<ByteBuffer, T> reader);
+
+    /**
+     * Tells whether the given key has a live entry without reading it: unlike {@link #get(String, Function)}, the entry is not
+     * marked as used for eviction nor moved to another tier.
+     *
+     * @param key the key
+     * @return true if the key is present and not expired
+     */
+    boolean contains(String key);
+
+    /**
+     * Stores a copy of the remaining bytes of the given buffer, evicting other entries if needed.
+     *
+     * @param key the key
+     * @param value the value, from its position to its limit
+     * @param ttlMillis time-to-live in milliseconds, or 0 for no expiration
+     * @return false if the value could not be stored, e.g. because it is larger than the store
+     */
+    boolean put(String key, ByteBuffer value, long ttlMillis);
+
+    void remove(String key);
+
+    /**
+     *
+     * @return short name identifying the kind of store in metrics
+     */
+    String getName();
+
+    /**
+     *
+     * @return number of bytes used by the stored values
+     */
+    long getSize();
+
+    /**
+     *
+     * @return number of bytes allocated by the store, including unused space
+     */
+    default long getAllocatedSize() {
+        return getSize();
+    }
+
+    long getEntryCount();
+
+    long getEvictionCount();
+
+    @Override
+    default void bindTo(MeterRegistry registry) {
+        Gauge.builder(METER_SIZE, this, ByteStore::getSize).tag(TAG_STORE, getName()).baseUnit("bytes")
+                .description("Size of the values held in the local cache").register(registry);
+        Gauge.builder(METER_ALLOCATED, this, ByteStore::getAllocatedSize).tag(TAG_STORE, getName()).baseUnit("bytes")
+                .description("Memory allocated by the local cache").register(registry);
+        Gauge.builder(METER_ENTRIES, this, ByteStore::getEntryCount).tag(TAG_STORE, getName())
+                .description("Number of entries in the local cache").register(registry);
+        FunctionCounter.builder(METER_EVICTIONS, this, ByteStore::getEvictionCount).tag(TAG_STORE, getName())
+                .description("Number of entries evicted from the local cache to make room for new ones").register(registry);
+    }
+
+    @Override
+    void close();
+
+}
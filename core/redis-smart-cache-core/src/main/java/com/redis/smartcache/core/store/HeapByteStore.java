@@ -0,0 +1,197 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * ByteStore keeping values in heap byte arrays. When full, entries are evicted in insertion order, except that entries read
+ * since they were last considered get a second chance (CLOCK). Expired entries are dropped when read or when
+ * considered for eviction.
+ */
+public class HeapByteStore implements ByteStore {
+
+    public static final String NAME = "heap";
+
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Keys in eviction order. Keys that were removed stay in the queue until they are polled or purged.
+     */
+    private final Queue<String> clock = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final long maxSize;
+
+    /**
+     *
+     * @param maxSize max total size of the values in bytes
+     */
+    public HeapByteStore(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T get(String key, Function<ByteBuffer, T> reader) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            remove(key, entry);
+            return null;
+        }
+        entry.referenced = true;
+        return reader.apply(ByteBuffer.wrap(entry.value).asReadOnlyBuffer());
+    }
+
+    @Override
+    public boolean contains(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean put(String key, ByteBuffer value, long ttlMillis) {
+        int length = value.remaining();
+        if (length > maxSize) {
+            return false;
+        }
+        byte[] bytes = new byte[length];
+        value.duplicate().get(bytes);
+        Entry entry = new Entry(bytes, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0);
+        Entry previous = entries.put(key, entry);
+        if (previous == null) {
+            size.addAndGet(length);
+            enqueue(key);
+        } else {
+            // The key keeps its place in the queue
+            size.addAndGet(length - previous.value.length);
+        }
+        evict();
+        return true;
+    }
+
+    @Override
+    public void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size.addAndGet(-entry.value.length);
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            size.addAndGet(-entry.value.length);
+        }
+    }
+
+    private void enqueue(String key) {
+        clock.offer(key);
+        if (queued.incrementAndGet() > entries.size() * 2L + PURGE_THRESHOLD) {
+            purge();
+        }
+    }
+
+    /**
+     * Drops keys that are no longer in the store, or queued more than once, from the eviction queue.
+     */
+    private synchronized void purge() {
+        Set<String> live = new HashSet<>();
+        for (int count = queued.get(); count > 0; count--) {
+            String key = clock.poll();
+            if (key == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (entries.containsKey(key) && live.add(key)) {
+                clock.offer(key);
+                queued.incrementAndGet();
+            }
+        }
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        String key;
+        while (size.get() > maxSize && (key = clock.poll()) != null) {
+            queued.decrementAndGet();
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced && !entry.isExpired(now)) {
+                entry.referenced = false;
+                clock.offer(key);
+                queued.incrementAndGet();
+                continue;
+            }
+            if (entries.remove(key, entry)) {
+                size.addAndGet(-entry.value.length);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+        clock.clear();
+        queued.set(0);
+        size.set(0);
+    }
+
+    private static class Entry {
+
+        private final byte[] value;
+
+        private final long expiresAt;
+
+        private volatile boolean referenced;
+
+        private Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt > 0 && now >= expiresAt;
+        }
+
+    }
+
+}
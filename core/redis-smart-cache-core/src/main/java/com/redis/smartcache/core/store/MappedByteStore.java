@@ -0,0 +1,523 @@
+package com.redis.smartcache.core.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * ByteStore keeping values in memory-mapped files so that they survive process restarts.
+ * <p>
+ * Values are appended to fixed-size segment files. Removals are appended as tombstones. On startup the segments are scanned
+ * from oldest to newest to rebuild the in-memory index, stopping at the first incomplete or corrupted record of each segment.
+ * When the max size is reached the oldest segment is compacted: its live entries that were read since they were last
+ * considered are copied to the newest segment, the others are evicted, and the segment file is deleted.
+ * <p>
+ * The directory is locked for the lifetime of the store so that it is not shared by several stores or processes. The
+ * time-to-live of loaded entries can be capped, since they missed any change made while the store was closed.
+ */
+public class MappedByteStore implements ByteStore {
+
+    private static final Logger log = Logger.getLogger(MappedByteStore.class.getName());
+
+    public static final String NAME = "disk";
+
+    private static final String SEGMENT_EXTENSION = ".segment";
+
+    private static final String LOCK_FILE = "lock";
+
+    private static final byte TYPE_PUT = 1;
+
+    private static final byte TYPE_REMOVE = 2;
+
+    /**
+     * Record length, CRC32 of the rest of the record, type, expiration time and key length.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 1 + 8 + 4;
+
+    private static final int CRC_OFFSET = 8;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final long loadedTtlMillis;
+
+    private final Map<String, Location> entries = new ConcurrentHashMap<>();
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private final StampedLock lock = new StampedLock();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final FileChannel lockChannel;
+
+    private final FileLock fileLock;
+
+    private long nextSegmentId;
+
+    private boolean closed;
+
+    /**
+     *
+     * @param directory directory holding the segment files, created if needed
+     * @param maxSize max total size of the segment files in bytes
+     * @param segmentSize size of each segment file in bytes, which bounds the size of a value
+     * @throws IOException if the directory cannot be read or is used by another store
+     */
+    public MappedByteStore(Path directory, long maxSize, int segmentSize) throws IOException {
+        this(directory, maxSize, segmentSize, 0);
+    }
+
+    /**
+     *
+     * @param directory directory holding the segment files, created if needed
+     * @param maxSize max total size of the segment files in bytes
+     * @param segmentSize size of each segment file in bytes, which bounds the size of a value
+     * @param loadedTtlMillis max time-to-live of the entries found in the directory, counted from when they are loaded, or 0
+     *        to keep their expiration time. Bounds how long entries that missed changes made while the store was closed are
+     *        served.
+     * @throws IOException if the directory cannot be read or is used by another store
+     */
+    public MappedByteStore(Path directory, long maxSize, int segmentSize, long loadedTtlMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.loadedTtlMillis = loadedTtlMillis;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxSize / segmentSize));
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        } catch (OverlappingFileLockException e) {
+            // Locked by another store of this process
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Directory " + directory + " is already in use");
+        }
+        this.fileLock = acquired;
+        load();
+    }
+
+    private void load() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        long now = System.currentTimeMillis();
+        for (Path path : paths) {
+            Segment segment = new Segment(segmentId(path), path, map(path));
+            segments.add(segment);
+            scan(segment, now);
+            nextSegmentId = segment.id + 1;
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+        log.log(Level.FINE, "Loaded {0} entries from {1} segments in {2}",
+                new Object[] { entries.size(), segments.size(), directory });
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void scan(Segment segment, long now) {
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length < HEADER_SIZE || length > segmentSize - position || crc(buffer, position, length) != buffer
+                    .getInt(position + 4)) {
+                break;
+            }
+            byte type = buffer.get(position + CRC_OFFSET);
+            long expiresAt = buffer.getLong(position + CRC_OFFSET + 1);
+            int keyLength = buffer.getInt(position + CRC_OFFSET + 9);
+            if (keyLength < 0 || keyLength > length - HEADER_SIZE) {
+                break;
+            }
+            String key = key(buffer, position + HEADER_SIZE, keyLength);
+            if (type == TYPE_PUT && (expiresAt == 0 || expiresAt > now)) {
+                int valueOffset = position + HEADER_SIZE + keyLength;
+                int valueLength = length - HEADER_SIZE - keyLength;
+                index(key, new Location(segment, valueOffset, valueLength, loadedExpiresAt(expiresAt, now)));
+            } else {
+                unindex(key);
+            }
+            position += length;
+        }
+        segment.position = position;
+    }
+
+    private long loadedExpiresAt(long expiresAt, long now) {
+        if (loadedTtlMillis <= 0) {
+            return expiresAt;
+        }
+        long max = now + loadedTtlMillis;
+        return expiresAt == 0 ? max : Math.min(expiresAt, max);
+    }
+
+    private static String key(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer, int position, int length) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(position + length);
+        record.position(position + CRC_OFFSET);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T get(String key, Function<ByteBuffer, T> reader) {
+        return getWithExpiresAt(key, (value, expiresAt) -> reader.apply(value));
+    }
+
+    /**
+     * Reads the value of the given key along with its expiration time, both from the same record.
+     *
+     * @param key the key
+     * @param reader function applied to the value and its expiration time in epoch milliseconds, 0 if the entry does not
+     *        expire. The value is only valid during the call.
+     * @return the result of the reader, or null if there is no live entry for the key
+     */
+    public <T> T getWithExpiresAt(String key, BiFunction<ByteBuffer, Long, T> reader) {
+        Location location;
+        long stamp = lock.readLock();
+        try {
+            location = entries.get(key);
+            if (location == null) {
+                return null;
+            }
+            if (!location.isExpired(System.currentTimeMillis())) {
+                location.referenced = true;
+                return reader.apply(location.value(), location.expiresAt);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        // Expired entries are dropped from the index only: the record is discarded when its segment is compacted
+        stamp = lock.writeLock();
+        try {
+            if (entries.remove(key, location)) {
+                release(key, location);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        Location location = entries.get(key);
+        return location != null && !location.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean put(String key, ByteBuffer value, long ttlMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (HEADER_SIZE + keyBytes.length + (long) value.remaining() > segmentSize) {
+            return false;
+        }
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return false;
+            }
+            append(TYPE_PUT, key, keyBytes, value, expiresAt, true);
+            return true;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not write to " + directory, e);
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        long stamp = lock.writeLock();
+        try {
+            Location location = entries.get(key);
+            if (closed || location == null) {
+                return;
+            }
+            // The tombstone keeps older records of the key from being loaded again on restart
+            append(TYPE_REMOVE, key, key.getBytes(StandardCharsets.UTF_8), ByteBuffer.allocate(0), 0, true);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not write to " + directory, e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Must be called with the write lock held.
+     */
+    private void append(byte type, String key, byte[] keyBytes, ByteBuffer value, long expiresAt, boolean compact)
+            throws IOException {
+        int length = HEADER_SIZE + keyBytes.length + value.remaining();
+        Segment segment = segments.getLast();
+        while (length > segmentSize - segment.position) {
+            roll();
+            if (compact) {
+                compact();
+            }
+            // Compaction copies live entries to the newest segment, which they might fill or roll
+            segment = segments.getLast();
+        }
+        int position = segment.position;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(position + 4 + 4);
+        buffer.put(type);
+        buffer.putLong(expiresAt);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(value.duplicate());
+        segment.buffer.putInt(position + 4, crc(segment.buffer, position, length));
+        // Written last so that a partially written record is never loaded
+        segment.buffer.putInt(position, length);
+        segment.position += length;
+        if (type == TYPE_PUT) {
+            index(key, new Location(segment, position + HEADER_SIZE + keyBytes.length, value.remaining(), expiresAt));
+        } else {
+            unindex(key);
+        }
+    }
+
+    private void index(String key, Location location) {
+        Location previous = entries.put(key, location);
+        // Released first since the previous record might be in the same segment
+        if (previous != null) {
+            release(key, previous);
+        }
+        location.segment.keys.add(key);
+        size.addAndGet(location.valueLength);
+    }
+
+    private void unindex(String key) {
+        Location previous = entries.remove(key);
+        if (previous != null) {
+            release(key, previous);
+        }
+    }
+
+    private void release(String key, Location location) {
+        size.addAndGet(-location.valueLength);
+        location.segment.keys.remove(key);
+    }
+
+    private Segment roll() throws IOException {
+        long id = nextSegmentId++;
+        Path path = directory.resolve(String.format("%016d%s", id, SEGMENT_EXTENSION));
+        Segment segment = new Segment(id, path, map(path));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Compacts the oldest segments until there are at most max segments.
+     */
+    private void compact() throws IOException {
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.removeFirst();
+            long now = System.currentTimeMillis();
+            // Copied since releasing an entry removes its key from the segment
+            for (String key : new ArrayList<>(oldest.keys)) {
+                Location location = entries.get(key);
+                if (location == null || location.segment != oldest) {
+                    continue;
+                }
+                if (location.referenced && !location.isExpired(now)) {
+                    // Second chance: the copy starts unreferenced
+                    append(TYPE_PUT, key, key.getBytes(StandardCharsets.UTF_8), location.value(), location.expiresAt, false);
+                } else {
+                    entries.remove(key);
+                    release(key, location);
+                    if (!location.isExpired(now)) {
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+            delete(oldest);
+        }
+    }
+
+    private void delete(Segment segment) {
+        try {
+            // The mapping stays valid until the buffer is garbage collected
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not delete segment " + segment.path, e);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     *
+     * @return total size of the segment files in bytes
+     */
+    @Override
+    public long getAllocatedSize() {
+        long stamp = lock.readLock();
+        try {
+            return (long) segments.size() * segmentSize;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Flushes the segments to disk and releases the directory lock. Entries are kept on disk.
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+            entries.clear();
+            segments.clear();
+            fileLock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static class Segment {
+
+        private final long id;
+
+        private final Path path;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Keys of the live entries of the segment, in write order, used to find them when it is compacted. Keys are removed when
+         * their entry is overwritten, removed or expired.
+         */
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        private int position;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+    }
+
+    private static class Location {
+
+        private final Segment segment;
+
+        private final int valueOffset;
+
+        private final int valueLength;
+
+        private final long expiresAt;
+
+        private volatile boolean referenced;
+
+        private Location(Segment segment, int valueOffset, int valueLength, long expiresAt) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.expiresAt = expiresAt;
+        }
+
+        private ByteBuffer value() {
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.limit(valueOffset + valueLength);
+            buffer.position(valueOffset);
+            return buffer.slice().asReadOnlyBuffer();
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt > 0 && now >= expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,408 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * ByteStore keeping values outside of the Java heap, in direct ByteBuffer slabs, so that large caches add no GC pressure. Only
+ * the index lives on the heap.
+ * <p>
+ * Slabs are allocated on demand, up to the max size, and each slab is split into chunks of a single size class. A value is
+ * stored in the smallest chunk that fits it. When a size class has no free chunk and no slab can be allocated, an entry of that
+ * class is evicted in insertion order, except that entries read since they were last considered get a second chance (CLOCK).
+ * If the size class holds no entry at all, a slab is taken from the size class with the most slabs.
+ * <p>
+ * Readers decode values straight from the slabs under a shared lock, so chunks are only freed or reused once no reader is
+ * using them. Values are copied into the slabs under the exclusive lock.
+ */
+public class OffHeapByteStore implements ByteStore {
+
+    public static final String NAME = "off-heap";
+
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private static final int CHUNK_ALIGNMENT = 8;
+
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final StampedLock lock = new StampedLock();
+
+    private final int slabSize;
+
+    private final int maxSlabs;
+
+    private final SizeClass[] sizeClasses;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong allocated = new AtomicLong();
+
+    private boolean closed;
+
+    /**
+     *
+     * @param maxSize max off-heap memory allocated for the slabs in bytes
+     * @param slabSize size of each slab in bytes, which is also the max size of a value
+     */
+    public OffHeapByteStore(long maxSize, int slabSize) {
+        this.slabSize = (int) Math.min(slabSize, maxSize);
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxSize / this.slabSize);
+        this.sizeClasses = sizeClasses(this.slabSize);
+    }
+
+    private static SizeClass[] sizeClasses(int slabSize) {
+        List<SizeClass> classes = new ArrayList<>();
+        int chunkSize = Math.min(MIN_CHUNK_SIZE, slabSize);
+        while (chunkSize < slabSize) {
+            classes.add(new SizeClass(chunkSize));
+            int next = (int) Math.ceil(chunkSize * GROWTH_FACTOR);
+            chunkSize = (next + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
+        }
+        classes.add(new SizeClass(slabSize));
+        return classes.toArray(new SizeClass[0]);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T get(String key, Function<ByteBuffer, T> reader) {
+        Entry entry;
+        long stamp = lock.readLock();
+        try {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.isExpired(System.currentTimeMillis())) {
+                entry.referenced = true;
+                return reader.apply(slice(entry));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        remove(key, entry);
+        return null;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.currentTimeMillis());
+    }
+
+    private ByteBuffer slice(Entry entry) {
+        ByteBuffer buffer = entry.buffer.duplicate();
+        buffer.limit(entry.offset + entry.length);
+        buffer.position(entry.offset);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean put(String key, ByteBuffer value, long ttlMillis) {
+        int length = value.remaining();
+        SizeClass sizeClass = sizeClass(length);
+        if (sizeClass == null) {
+            return false;
+        }
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return false;
+            }
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                release(previous);
+            }
+            long chunk = allocate(sizeClass);
+            if (chunk == -1) {
+                return false;
+            }
+            Entry entry = new Entry(key, sizeClass, slabs.get(slab(chunk)), slab(chunk), offset(chunk), length, expiresAt);
+            ByteBuffer target = entry.buffer.duplicate();
+            target.position(entry.offset);
+            target.put(value.duplicate());
+            entries.put(key, entry);
+            size.addAndGet(length);
+            sizeClass.entries++;
+            sizeClass.clock.offer(entry);
+            if (sizeClass.clock.size() > sizeClass.entries * 2L + PURGE_THRESHOLD) {
+                sizeClass.clock.removeIf(e -> !e.live);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private SizeClass sizeClass(int length) {
+        for (SizeClass sizeClass : sizeClasses) {
+            if (sizeClass.chunkSize >= length) {
+                return sizeClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Must be called with the write lock held.
+     *
+     * @return the allocated chunk, or -1 if none could be allocated
+     */
+    private long allocate(SizeClass sizeClass) {
+        if (sizeClass.free.isEmpty()) {
+            if (slabs.size() < maxSlabs) {
+                slabs.add(ByteBuffer.allocateDirect(slabSize));
+                allocated.addAndGet(slabSize);
+                assign(slabs.size() - 1, sizeClass);
+            } else if (!evict(sizeClass)) {
+                SizeClass largest = largest(sizeClass);
+                if (largest == null) {
+                    return -1;
+                }
+                assign(reclaim(largest), sizeClass);
+            }
+        }
+        return sizeClass.free.pop();
+    }
+
+    private void assign(int slab, SizeClass sizeClass) {
+        sizeClass.slabs.add(slab);
+        int chunks = slabSize / sizeClass.chunkSize;
+        for (int index = chunks - 1; index >= 0; index--) {
+            sizeClass.free.push(chunk(slab, index * sizeClass.chunkSize));
+        }
+    }
+
+    private boolean evict(SizeClass sizeClass) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        while ((entry = sizeClass.clock.poll()) != null) {
+            if (!entry.live) {
+                continue;
+            }
+            if (entry.referenced && !entry.isExpired(now)) {
+                entry.referenced = false;
+                sizeClass.clock.offer(entry);
+                continue;
+            }
+            entries.remove(entry.key, entry);
+            release(entry);
+            evictions.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private SizeClass largest(SizeClass exclude) {
+        SizeClass largest = null;
+        for (SizeClass sizeClass : sizeClasses) {
+            if (sizeClass != exclude && !sizeClass.slabs.isEmpty()
+                    && (largest == null || sizeClass.slabs.size() > largest.slabs.size())) {
+                largest = sizeClass;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Evicts all entries of the last slab of the given size class and takes the slab away from it.
+     *
+     * @return the reclaimed slab
+     */
+    private int reclaim(SizeClass sizeClass) {
+        int slab = sizeClass.slabs.remove(sizeClass.slabs.size() - 1);
+        Iterator<Entry> iterator = sizeClass.clock.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.slab == slab) {
+                iterator.remove();
+                if (entry.live && entries.remove(entry.key, entry)) {
+                    release(entry);
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        sizeClass.free.removeIf(chunk -> slab(chunk) == slab);
+        return slab;
+    }
+
+    @Override
+    public void remove(String key) {
+        long stamp = lock.writeLock();
+        try {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                release(entry);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        long stamp = lock.writeLock();
+        try {
+            if (entries.remove(key, entry)) {
+                release(entry);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the chunk of an entry that was removed from the index to its size class. Must be called with the write lock
+     * held.
+     */
+    private void release(Entry entry) {
+        entry.live = false;
+        entry.sizeClass.entries--;
+        entry.sizeClass.free.push(chunk(entry.slab, entry.offset));
+        size.addAndGet(-entry.length);
+    }
+
+    private static long chunk(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slab(long chunk) {
+        return (int) (chunk >>> 32);
+    }
+
+    private static int offset(long chunk) {
+        return (int) chunk;
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     *
+     * @return off-heap memory allocated for the slabs in bytes
+     */
+    @Override
+    public long getAllocatedSize() {
+        return allocated.get();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Drops all entries and slabs. Direct memory is released once the slabs are garbage collected.
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            closed = true;
+            entries.clear();
+            slabs.clear();
+            for (SizeClass sizeClass : sizeClasses) {
+                sizeClass.clear();
+            }
+            size.set(0);
+            allocated.set(0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Slabs, free chunks and entries of a chunk size. Only accessed with the write lock held.
+     */
+    private static class SizeClass {
+
+        private final int chunkSize;
+
+        private final List<Integer> slabs = new ArrayList<>();
+
+        private final Deque<Long> free = new ArrayDeque<>();
+
+        /**
+         * Entries in eviction order. Entries that were removed stay in the queue until they are polled or purged.
+         */
+        private final Deque<Entry> clock = new ArrayDeque<>();
+
+        private int entries;
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private void clear() {
+            slabs.clear();
+            free.clear();
+            clock.clear();
+            entries = 0;
+        }
+
+    }
+
+    private static class Entry {
+
+        private final String key;
+
+        private final SizeClass sizeClass;
+
+        private final ByteBuffer buffer;
+
+        private final int slab;
+
+        private final int offset;
+
+        private final int length;
+
+        private final long expiresAt;
+
+        private volatile boolean referenced;
+
+        private boolean live = true;
+
+        private Entry(String key, SizeClass sizeClass, ByteBuffer buffer, int slab, int offset, int length, long expiresAt) {
+            this.key = key;
+            this.sizeClass = sizeClass;
+            this.buffer = buffer;
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt > 0 && now >= expiresAt;
+        }
+
+    }
+
+}
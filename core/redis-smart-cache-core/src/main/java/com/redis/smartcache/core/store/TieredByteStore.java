@@ -0,0 +1,114 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ByteStore writing values to both a memory store and a disk store, and reading from memory first. Values read from disk are
+ * copied to memory with their remaining time-to-live, so that entries persisted before a restart are promoted back to memory
+ * as they are used.
+ */
+public class TieredByteStore implements ByteStore {
+
+    public static final String NAME = "tiered";
+
+    private final ByteStore memory;
+
+    private final MappedByteStore disk;
+
+    public TieredByteStore(ByteStore memory, MappedByteStore disk) {
+        this.memory = memory;
+        this.disk = disk;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T get(String key, Function<ByteBuffer, T> reader) {
+        T value = memory.get(key, reader);
+        if (value != null) {
+            return value;
+        }
+        return disk.getWithExpiresAt(key, (buffer, expiresAt) -> {
+            promote(key, buffer, expiresAt);
+            return reader.apply(buffer);
+        });
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return memory.contains(key) || disk.contains(key);
+    }
+
+    private void promote(String key, ByteBuffer buffer, long expiresAt) {
+        if (expiresAt == 0) {
+            memory.put(key, buffer, 0);
+            return;
+        }
+        long ttlMillis = expiresAt - System.currentTimeMillis();
+        if (ttlMillis > 0) {
+            memory.put(key, buffer, ttlMillis);
+        }
+    }
+
+    @Override
+    public boolean put(String key, ByteBuffer value, long ttlMillis) {
+        boolean stored = memory.put(key, value, ttlMillis);
+        return disk.put(key, value, ttlMillis) || stored;
+    }
+
+    @Override
+    public void remove(String key) {
+        memory.remove(key);
+        disk.remove(key);
+    }
+
+    public ByteStore getMemory() {
+        return memory;
+    }
+
+    public MappedByteStore getDisk() {
+        return disk;
+    }
+
+    @Override
+    public long getSize() {
+        return memory.getSize() + disk.getSize();
+    }
+
+    @Override
+    public long getAllocatedSize() {
+        return memory.getAllocatedSize() + disk.getAllocatedSize();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return disk.getEntryCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return disk.getEvictionCount();
+    }
+
+    /**
+     * Registers the meters of each tier, tagged with the tier store name.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        memory.bindTo(registry);
+        disk.bindTo(registry);
+    }
+
+    @Override
+    public void close() {
+        memory.close();
+        disk.close();
+    }
+
+}
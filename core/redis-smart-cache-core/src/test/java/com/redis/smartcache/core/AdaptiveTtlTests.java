@@ -0,0 +1,44 @@
+package com.redis.smartcache.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveTtlTests {
+
+    private static final String KEY = "key";
+
+    @Test
+    void growsWhileUnchanged() {
+        AdaptiveTtl ttl = new AdaptiveTtl(1000, 100, 5000);
+        Assertions.assertEquals(1000, ttl.update(KEY, 1));
+        Assertions.assertEquals(2000, ttl.update(KEY, 1));
+        Assertions.assertEquals(4000, ttl.update(KEY, 1));
+        Assertions.assertEquals(5000, ttl.update(KEY, 1));
+        Assertions.assertEquals(5000, ttl.getTtl());
+    }
+
+    @Test
+    void shrinksWhenChanged() {
+        AdaptiveTtl ttl = new AdaptiveTtl(1000, 300, 5000);
+        ttl.update(KEY, 1);
+        Assertions.assertEquals(500, ttl.update(KEY, 2));
+        Assertions.assertEquals(300, ttl.update(KEY, 3));
+        Assertions.assertEquals(300, ttl.update(KEY, 4));
+    }
+
+    @Test
+    void comparesSameKeyOnly() {
+        AdaptiveTtl ttl = new AdaptiveTtl(1000, 100, 5000);
+        ttl.update("key1", 1);
+        Assertions.assertEquals(1000, ttl.update("key2", 2));
+        Assertions.assertEquals(2000, ttl.update("key1", 1));
+    }
+
+    @Test
+    void setRange() {
+        AdaptiveTtl ttl = new AdaptiveTtl(1000, 100, 5000);
+        ttl.setRange(100, 500);
+        Assertions.assertEquals(500, ttl.getTtl());
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.AutoCachePlanner.QueryStats;
+import com.redis.smartcache.core.config.AutoCacheConfig;
+import com.redis.smartcache.core.config.RulesetConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AutoCachePlannerTests {
+
+    private static final RuleConfig OPERATOR_RULE = RuleConfig.tables("customers")
+            .ttl(io.airlift.units.Duration.valueOf("1h")).build();
+
+    private static final RuleConfig CATCH_ALL = RulesetConfig.DEFAULT_RULE;
+
+    private final AutoCacheConfig config = new AutoCacheConfig();
+
+    private AutoCachePlanner planner(RulesetConfig ruleset, SimpleMeterRegistry registry) {
+        return new AutoCachePlanner(config, registry, new TestConfigManager(ruleset), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void enableSlowFrequentQuery() {
+        AutoCachePlanner planner = planner(RulesetConfig.of(OPERATOR_RULE, CATCH_ALL), new SimpleMeterRegistry());
+        Map<String, QueryStats> stats = new HashMap<>();
+        stats.put("slow", new QueryStats(100, 500, 0, 0));
+        stats.put("fast", new QueryStats(100, 1, 0, 0));
+        stats.put("rare", new QueryStats(1, 500, 0, 0));
+        stats.put("cached", new QueryStats(100, 500, 10, 5));
+        RuleConfig[] rules = planner.plan(new RuleConfig[] { OPERATOR_RULE, CATCH_ALL }, stats);
+        Assertions.assertEquals(3, rules.length);
+        Assertions.assertEquals(OPERATOR_RULE, rules[0]);
+        Assertions.assertEquals(AutoCachePlanner.RULE_ENABLED, rules[1].getName());
+        Assertions.assertEquals(Arrays.asList("slow"), rules[1].getQueryIds());
+        Assertions.assertEquals(config.getTtl(), rules[1].getTtl());
+        Assertions.assertEquals(CATCH_ALL, rules[2]);
+        Assertions.assertNull(planner.plan(rules, stats));
+    }
+
+    @Test
+    void disablePoorHitRatio() {
+        RuleConfig enabled = RuleConfig.queryIds("good", "poor").name(AutoCachePlanner.RULE_ENABLED)
+                .ttl(config.getTtl()).build();
+        AutoCachePlanner planner = planner(RulesetConfig.of(enabled, CATCH_ALL), new SimpleMeterRegistry());
+        Map<String, QueryStats> stats = new HashMap<>();
+        stats.put("good", new QueryStats(10, 500, 1000, 990));
+        stats.put("poor", new QueryStats(1000, 500, 1000, 0));
+        RuleConfig[] rules = planner.plan(new RuleConfig[] { enabled, CATCH_ALL }, stats);
+        Assertions.assertEquals(3, rules.length);
+        Assertions.assertEquals(AutoCachePlanner.RULE_DISABLED, rules[0].getName());
+        Assertions.assertEquals(Arrays.asList("poor"), rules[0].getQueryIds());
+        Assertions.assertEquals(0, rules[0].getTtl().toMillis());
+        Assertions.assertEquals(Arrays.asList("good"), rules[1].getQueryIds());
+        // Disabled queries are not enabled again before the retry interval
+        stats.put("poor", new QueryStats(1000, 500, 0, 0));
+        Assertions.assertNull(planner.plan(rules, stats));
+        config.setRetryInterval(io.airlift.units.Duration.valueOf("0s"));
+        rules = planner.plan(rules, stats);
+        Assertions.assertEquals(2, rules.length);
+        Assertions.assertEquals(AutoCachePlanner.RULE_ENABLED, rules[0].getName());
+        Assertions.assertEquals(Arrays.asList("good", "poor"), rules[0].getQueryIds());
+    }
+
+    @Test
+    void planFromMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RulesetConfig ruleset = RulesetConfig.of(CATCH_ALL);
+        AutoCachePlanner planner = planner(ruleset, registry);
+        Timer timer = Timer.builder(Fields.METER_BACKEND).tag(Fields.TAG_ID, "slow").publishPercentiles(0.5)
+                .register(registry);
+        for (int index = 0; index < 100; index++) {
+            timer.record(200, TimeUnit.MILLISECONDS);
+        }
+        Counter.builder(Fields.METER_CACHE_GET).tag(Fields.TAG_ID, "slow").tag(Fields.TAG_RESULT, Fields.TAG_MISS)
+                .register(registry);
+        planner.plan();
+        Assertions.assertEquals(2, ruleset.getRules().length);
+        Assertions.assertEquals(Arrays.asList("slow"), ruleset.getRules()[0].getQueryIds());
+    }
+
+    @Test
+    void forgetUnmeteredQueries() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RulesetConfig ruleset = RulesetConfig.of(CATCH_ALL);
+        AutoCachePlanner planner = planner(ruleset, registry);
+        Timer timer = slowTimer(registry, "slow");
+        planner.plan();
+        Assertions.assertEquals(Arrays.asList("slow"), ruleset.getRules()[0].getQueryIds());
+        registry.remove(timer);
+        planner.plan();
+        Assertions.assertArrayEquals(new RuleConfig[] { CATCH_ALL }, ruleset.getRules());
+    }
+
+    @Test
+    void concurrentUpdate() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RulesetConfig ruleset = RulesetConfig.of(CATCH_ALL);
+        AtomicBoolean updated = new AtomicBoolean();
+        TestConfigManager configManager = new TestConfigManager(ruleset) {
+
+            @Override
+            public RulesetConfig get() {
+                // An operator adds a rule while the planner plans
+                if (updated.compareAndSet(false, true)) {
+                    publish(RulesetConfig.of(OPERATOR_RULE, CATCH_ALL));
+                }
+                return super.get();
+            }
+
+        };
+        AutoCachePlanner planner = new AutoCachePlanner(config, registry, configManager, Duration.ofSeconds(10));
+        slowTimer(registry, "slow");
+        planner.plan();
+        Assertions.assertArrayEquals(new RuleConfig[] { OPERATOR_RULE, CATCH_ALL }, ruleset.getRules());
+        slowTimer(registry, "slow");
+        planner.plan();
+        Assertions.assertEquals(3, ruleset.getRules().length);
+        Assertions.assertEquals(OPERATOR_RULE, ruleset.getRules()[0]);
+        Assertions.assertEquals(Arrays.asList("slow"), ruleset.getRules()[1].getQueryIds());
+    }
+
+    private static Timer slowTimer(SimpleMeterRegistry registry, String id) {
+        Timer timer = Timer.builder(Fields.METER_BACKEND).tag(Fields.TAG_ID, id).publishPercentiles(0.5).register(registry);
+        for (int index = 0; index < 100; index++) {
+            timer.record(200, TimeUnit.MILLISECONDS);
+        }
+        return timer;
+    }
+
+    private static class TestConfigManager implements ConfigManager<RulesetConfig> {
+
+        private final RulesetConfig ruleset;
+
+        private int version;
+
+        TestConfigManager(RulesetConfig ruleset) {
+            this.ruleset = ruleset;
+        }
+
+        @Override
+        public RulesetConfig get() {
+            return ruleset;
+        }
+
+        @Override
+        public void start() {
+            // Nothing to start
+        }
+
+        @Override
+        public void publish(RulesetConfig config) {
+            ruleset.setRules(config.getRules());
+            version++;
+        }
+
+        @Override
+        public String getVersion() {
+            return String.valueOf(version);
+        }
+
+        @Override
+        public boolean publish(RulesetConfig config, String expectedVersion) {
+            if (!getVersion().equals(expectedVersion)) {
+                return false;
+            }
+            publish(config);
+            return true;
+        }
+
+        @Override
+        public void stop() {
+            // Nothing to stop
+        }
+
+    }
+
+}
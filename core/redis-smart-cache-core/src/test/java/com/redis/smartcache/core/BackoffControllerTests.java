@@ -0,0 +1,90 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BackoffControllerTests {
+
+    private static final Exception OOM = new IllegalStateException("OOM command not allowed");
+
+    @Test
+    void oomBackoff() {
+        BackoffController backoff = new BackoffController(Duration.ofMillis(100), Duration.ofSeconds(1));
+        Assertions.assertTrue(backoff.allowWrite());
+        backoff.onOom(OOM);
+        Assertions.assertFalse(backoff.allowWrite());
+        // In-flight writes failing with OOM do not extend the back-off
+        backoff.onOom(OOM);
+        Awaitility.await().atMost(Duration.ofMillis(500)).until(backoff::allowWrite);
+    }
+
+    @Test
+    void memoryPressure() {
+        AtomicReference<String> info = new AtomicReference<>("used_memory:96\r\nmaxmemory:100\r\n");
+        BackoffController backoff = new BackoffController(Duration.ofMillis(100), Duration.ofSeconds(1),
+                () -> CompletableFuture.completedFuture(info.get()), .95, Duration.ofMillis(10));
+        Assertions.assertFalse(backoff.allowWrite());
+        Assertions.assertTrue(backoff.isMemoryPressure());
+        info.set("used_memory:50\r\nmaxmemory:100\r\n");
+        Awaitility.await().atMost(Duration.ofMillis(500)).until(backoff::allowWrite);
+        info.set("used_memory:50\r\nmaxmemory:0\r\n");
+        Awaitility.await().pollDelay(Duration.ofMillis(20)).atMost(Duration.ofMillis(500)).until(backoff::allowWrite);
+    }
+
+    @Test
+    void logLimitPerMessage() {
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+
+            @Override
+            public void publish(LogRecord logRecord) {
+                records.add(logRecord);
+            }
+
+            @Override
+            public void flush() {
+                // Nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // Nothing to close
+            }
+
+        };
+        handler.setLevel(Level.ALL);
+        Logger logger = Logger.getLogger(BackoffController.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.FINE);
+        logger.addHandler(handler);
+        try {
+            BackoffController backoff = new BackoffController(Duration.ofMillis(100), Duration.ofSeconds(1));
+            backoff.log(Level.WARNING, "Could not get {0}", null, "a");
+            // Another message is not suppressed by the first one
+            backoff.log(Level.WARNING, "Could not put {0}", null, "b");
+            backoff.log(Level.WARNING, "Could not get {0}", null, "c");
+            Assertions.assertEquals(3, records.size());
+            Assertions.assertEquals(Level.WARNING, records.get(0).getLevel());
+            Assertions.assertEquals("Could not get a", records.get(0).getMessage());
+            Assertions.assertEquals(Level.WARNING, records.get(1).getLevel());
+            Assertions.assertEquals("Could not put b", records.get(1).getMessage());
+            Assertions.assertEquals(Level.FINE, records.get(2).getLevel());
+            Assertions.assertEquals("Could not get c", records.get(2).getMessage());
+        } finally {
+            logger.removeHandler(handler);
+            logger.setLevel(level);
+        }
+    }
+
+}
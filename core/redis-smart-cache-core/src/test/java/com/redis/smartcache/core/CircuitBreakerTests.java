@@ -0,0 +1,66 @@
+package com.redis.smartcache.core;
+
+import java.time.Duration;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.CircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CircuitBreakerTests {
+
+    private static final Duration WAIT_DURATION = Duration.ofMillis(100);
+
+    @Test
+    void opensAfterThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, WAIT_DURATION);
+        breaker.onFailure();
+        breaker.onFailure();
+        Assertions.assertEquals(State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        Assertions.assertEquals(State.OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void successResetsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(2, WAIT_DURATION);
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        Assertions.assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(1, WAIT_DURATION);
+        breaker.onFailure();
+        Assertions.assertFalse(breaker.allowRequest());
+        Awaitility.await().atMost(Duration.ofSeconds(1)).until(breaker::allowRequest);
+        Assertions.assertEquals(State.HALF_OPEN, breaker.getState());
+        // Only one probe is let through
+        Assertions.assertFalse(breaker.allowRequest());
+        breaker.onFailure();
+        Assertions.assertEquals(State.OPEN, breaker.getState());
+        Awaitility.await().atMost(Duration.ofSeconds(1)).until(breaker::allowRequest);
+        breaker.onSuccess();
+        Assertions.assertEquals(State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void meters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CircuitBreaker breaker = new CircuitBreaker(1, WAIT_DURATION);
+        breaker.bindTo(registry);
+        breaker.onFailure();
+        Assertions.assertEquals(State.OPEN.ordinal(), registry.get(CircuitBreaker.METER_STATE).gauge().value());
+        Assertions.assertEquals(1, registry.get(CircuitBreaker.METER_TRANSITIONS).tag(CircuitBreaker.TAG_STATE, "open")
+                .functionCounter().count());
+    }
+
+}
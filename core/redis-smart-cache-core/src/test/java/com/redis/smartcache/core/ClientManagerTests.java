@@ -0,0 +1,50 @@
+package com.redis.smartcache.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.config.RedisConfig;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.resource.ClientResources;
+
+class ClientManagerTests {
+
+    private static RedisConfig config(String uri) {
+        RedisConfig config = new RedisConfig();
+        config.setUri(uri);
+        config.setIoThreadPoolSize(2);
+        config.setComputationThreadPoolSize(3);
+        return config;
+    }
+
+    @Test
+    void sharedResources() {
+        try (ClientManager manager = new ClientManager()) {
+            AbstractRedisClient client1 = manager.getClient(config("redis://localhost:6379"));
+            AbstractRedisClient client2 = manager.getClient(config("redis://localhost:6380"));
+            Assertions.assertNotSame(client1, client2);
+            Assertions.assertSame(client1, manager.getClient(config("redis://localhost:6379")));
+            ClientResources resources = client1.getResources();
+            Assertions.assertSame(resources, client2.getResources());
+            Assertions.assertEquals(2, resources.ioThreadPoolSize());
+            Assertions.assertEquals(3, resources.computationThreadPoolSize());
+        }
+    }
+
+    @Test
+    void closeReleasesResources() {
+        ClientManager manager = new ClientManager();
+        RedisConfig config = config("redis://localhost:6379");
+        AbstractRedisClient client = manager.getClient(config);
+        ClientResources resources = client.getResources();
+        manager.close();
+        Assertions.assertTrue(resources.eventExecutorGroup().isShuttingDown());
+        // Clients created after close get new resources
+        AbstractRedisClient newClient = manager.getClient(config);
+        Assertions.assertNotSame(client, newClient);
+        Assertions.assertNotSame(resources, newClient.getResources());
+        manager.close();
+    }
+
+}
@@ -86,6 +86,54 @@ class ConfigTests {
 		}
 	}
 
+	@Test
+	void sharedStreamPoller() throws Exception {
+		try (RedisModulesClient client = RedisModulesClient.create(redis.getRedisURI());
+				StatefulRedisModulesConnection<String, String> connection = client.connect();
+				StreamPoller poller = new StreamPoller(client)) {
+			JavaPropsMapper mapper = Mappers.propsMapper();
+			Config config1 = new Config();
+			config1.setName("app1");
+			Config config2 = new Config();
+			config2.setName("app2");
+			try (StreamConfigManager manager1 = new StreamConfigManager(client, config1, mapper, poller);
+					StreamConfigManager manager2 = new StreamConfigManager(client, config2, mapper, poller)) {
+				manager1.start();
+				manager2.start();
+				await().until(manager1::isRunning);
+				await().until(manager2::isRunning);
+				Map<String, String> body = new HashMap<>();
+				body.put("rules[0].ttl", "123s");
+				connection.sync().xadd(manager1.key(), body);
+				body.put("rules[0].ttl", "456s");
+				connection.sync().xadd(manager2.key(), body);
+				await().until(() -> config1.getRuleset().getRules()[0].getTtl().getValue(TimeUnit.SECONDS) == 123);
+				await().until(() -> config2.getRuleset().getRules()[0].getTtl().getValue(TimeUnit.SECONDS) == 456);
+			}
+			Assertions.assertEquals(State.STARTED, poller.getState());
+		}
+	}
+
+	@Test
+	void closeBeforeStart() throws Exception {
+		try (RedisModulesClient client = RedisModulesClient.create(redis.getRedisURI())) {
+			StreamPoller poller = new StreamPoller(client);
+			poller.close();
+			Assertions.assertEquals(State.STOPPED, poller.getState());
+			Assertions.assertThrows(IllegalStateException.class, poller::start);
+			poller.close();
+			Assertions.assertEquals(State.STOPPED, poller.getState());
+		}
+	}
+
+	@Test
+	void streamIds() {
+		Assertions.assertTrue(StreamPoller.compareIds("0-0", "1-0") < 0);
+		Assertions.assertTrue(StreamPoller.compareIds("1700000000000-2", "1700000000000-10") < 0);
+		Assertions.assertTrue(StreamPoller.compareIds("1700000000001-0", "1700000000000-10") > 0);
+		Assertions.assertEquals(0, StreamPoller.compareIds("123-4", "123-4"));
+	}
+
 	@Test
 	void duplicateConfig() throws Exception {
 		String key = "smartcache:config";
@@ -0,0 +1,77 @@
+package com.redis.smartcache.core;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.lettucemod.RedisModulesClient;
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.testcontainers.RedisStackContainer;
+
+@Testcontainers
+class HotKeyTrackerTests {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofHours(1);
+
+    private static final Duration DECAY_INTERVAL = Duration.ofHours(1);
+
+    @Container
+    private final RedisStackContainer redis = new RedisStackContainer(
+            RedisStackContainer.DEFAULT_IMAGE_NAME.withTag(RedisStackContainer.DEFAULT_TAG));
+
+    @BeforeEach
+    void flushAll() {
+        try (RedisModulesClient client = RedisModulesClient.create(redis.getRedisURI());
+                StatefulRedisModulesConnection<String, String> connection = client.connect()) {
+            connection.sync().flushall();
+        }
+    }
+
+    @Test
+    void encodeDecode() {
+        Map<Integer, Object> parameters = new HashMap<>();
+        parameters.put(1, 123);
+        parameters.put(2, "abc");
+        parameters.put(3, new BigDecimal("1.50"));
+        parameters.put(5, Timestamp.valueOf("2023-01-02 03:04:05.6"));
+        HotQuery query = HotQuery.of("key", "SELECT * FROM test WHERE a = ?", parameters);
+        HotQuery decoded = HotQuery.decode("key", query.encode());
+        Assertions.assertEquals(query.getSql(), decoded.getSql());
+        Assertions.assertEquals(query.getParameters(), decoded.getParameters());
+        Map<Integer, Object> unsupported = new HashMap<>();
+        unsupported.put(1, new byte[] { 1 });
+        HotQuery notExecutable = HotQuery.decode("key", HotQuery.of("key", "SELECT 1", unsupported).encode());
+        Assertions.assertFalse(notExecutable.isExecutable());
+    }
+
+    @Test
+    void hotQueries() {
+        try (RedisModulesClient client = RedisModulesClient.create(redis.getRedisURI());
+                HotKeyTracker tracker = new HotKeyTracker(client, KeyBuilder.of("test"), 2, FLUSH_INTERVAL,
+                        DECAY_INTERVAL)) {
+            for (int index = 0; index < 3; index++) {
+                String key = "key" + index;
+                for (int count = 0; count <= index; count++) {
+                    tracker.record(key, () -> HotQuery.of(key, "SELECT " + key, new HashMap<>()));
+                }
+            }
+            tracker.flush();
+            List<HotQuery> queries = tracker.hotQueries();
+            // Trimmed to capacity, hottest first
+            Assertions.assertEquals(2, queries.size());
+            Assertions.assertEquals("key2", queries.get(0).getKey());
+            Assertions.assertEquals("SELECT key2", queries.get(0).getSql());
+            Assertions.assertEquals("key1", queries.get(1).getKey());
+        }
+    }
+
+}
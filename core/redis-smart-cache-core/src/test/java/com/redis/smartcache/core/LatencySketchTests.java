@@ -0,0 +1,72 @@
+package com.redis.smartcache.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencySketchTests {
+
+    private static void assertAccurate(double expected, double actual) {
+        Assertions.assertTrue(Math.abs(actual - expected) <= expected * LatencySketch.RELATIVE_ACCURACY,
+                "Expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void quantiles() {
+        LatencySketch sketch = new LatencySketch();
+        for (int value = 1; value <= 10000; value++) {
+            sketch.record(value * 1000L);
+        }
+        Assertions.assertEquals(10000, sketch.count());
+        assertAccurate(1000, sketch.quantile(0));
+        assertAccurate(5000000, sketch.quantile(0.5));
+        assertAccurate(9900000, sketch.quantile(0.99));
+        assertAccurate(10000000, sketch.quantile(1));
+    }
+
+    @Test
+    void empty() {
+        LatencySketch sketch = new LatencySketch();
+        Assertions.assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        Assertions.assertTrue(sketch.buckets().isEmpty());
+    }
+
+    @Test
+    void merge() {
+        LatencySketch slow = new LatencySketch();
+        LatencySketch fast = new LatencySketch();
+        for (int index = 0; index < 90; index++) {
+            fast.record(1000000);
+        }
+        for (int index = 0; index < 10; index++) {
+            slow.record(1000000000);
+        }
+        LatencySketch fleet = new LatencySketch();
+        fleet.merge(fast);
+        fleet.merge(slow);
+        Assertions.assertEquals(100, fleet.count());
+        assertAccurate(1000000, fleet.quantile(0.5));
+        assertAccurate(1000000000, fleet.quantile(0.95));
+    }
+
+    @Test
+    void buckets() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.record(1000);
+        sketch.record(1000);
+        sketch.record(100000000000L);
+        sketch.record(0);
+        Map<String, String> hash = new HashMap<>();
+        sketch.buckets().forEach((index, count) -> hash.put(String.valueOf(index), String.valueOf(count)));
+        LatencySketch decoded = LatencySketch.of(hash);
+        Assertions.assertEquals(sketch.buckets(), decoded.buckets());
+        Assertions.assertEquals(4, decoded.count());
+        assertAccurate(1000, decoded.quantile(0.5));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LatencySketch.of(Collections.singletonMap("a", "1")));
+    }
+
+}
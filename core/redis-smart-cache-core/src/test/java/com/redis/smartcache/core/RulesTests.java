@@ -1,9 +1,15 @@
 package com.redis.smartcache.core;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -103,6 +109,137 @@ class RulesTests {
         Assertions.assertEquals(0, action.getTtl());
     }
 
+    @Test
+    void testAdaptiveTtl() {
+        RuleConfig rule = RuleConfig.tablesAny(PRODUCTS).ttl(DURATION_300S)
+                .ttlRange(Duration.valueOf("10s"), Duration.valueOf("1h")).build();
+        QueryRuleSession ruleSession = QueryRuleSession.of(RulesetConfig.of(rule));
+        Action action = ruleSession.fire(query("SELECT * FROM " + PRODUCTS_P, PRODUCTS));
+        Assertions.assertTrue(action.isAdaptive());
+        Assertions.assertEquals(DURATION_300S.toMillis(), action.getTtl());
+        Assertions.assertEquals(10000, action.getTtlMin());
+        Assertions.assertEquals(3600000, action.getTtlMax());
+        Assertions.assertFalse(ruleSession.fire(BLAH_QUERY).isAdaptive());
+    }
+
+    @Test
+    void testParameters() {
+        RuleConfig tenant = RuleConfig.tablesAny(PRODUCTS).parameters(ParameterConfig.in(1, "tenant1", "tenant2"))
+                .ttl(DURATION_0S).build();
+        RuleConfig recent = RuleConfig.passthrough().parameters(ParameterConfig.range(2, "today", null)).ttl(DURATION_0S)
+                .build();
+        RuleConfig rule = RuleConfig.tablesAny(PRODUCTS).ttl(DEFAULT_TTL).build();
+        QueryRuleSession ruleSession = QueryRuleSession.of(RulesetConfig.of(tenant, recent, rule));
+        Action action = ruleSession.fire(query("SELECT * FROM " + PRODUCTS_P + " WHERE tenant = ? AND date > ?", PRODUCTS));
+        Assertions.assertTrue(action.hasParameterActions());
+        Assertions.assertEquals(DEFAULT_TTL.toMillis(), action.getTtl());
+        Map<Integer, Object> parameters = new HashMap<>();
+        parameters.put(1, "tenant1");
+        parameters.put(2, java.sql.Date.valueOf("2020-01-01"));
+        Assertions.assertEquals(0, action.parameterAction(parameters).getTtl());
+        parameters.put(1, "tenant3");
+        Assertions.assertNull(action.parameterAction(parameters));
+        parameters.put(2, new java.sql.Timestamp(System.currentTimeMillis()));
+        Assertions.assertEquals(0, action.parameterAction(parameters).getTtl());
+        Assertions.assertEquals(0, ruleSession.fire(BLAH_QUERY).getTtl());
+    }
+
+    @Test
+    void testParameterCondition() {
+        Map<Integer, Object> parameters = new HashMap<>();
+        parameters.put(1, 42);
+        parameters.put(2, new BigDecimal("12.5"));
+        parameters.put(3, "abc");
+        parameters.put(4, java.sql.Date.valueOf("2023-05-01"));
+        parameters.put(5, true);
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.equalTo(1, "42")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.equalTo(1, "43")).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.in(1, "1", "42")).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.range(2, "10", "12.5")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.range(2, "13", null)).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.in(3, "abc", "def")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.range(3, "b", null)).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.range(4, "2023-01-01", "2023-12-31")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.range(4, "2023-05-01 00:00:01", null)).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.equalTo(5, "true")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.equalTo(1, "abc")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.equalTo(6, "42")).test(parameters));
+        parameters.put(6, LocalDate.of(2023, 5, 1));
+        parameters.put(7, LocalDateTime.of(2023, 5, 1, 12, 0));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.equalTo(6, "2023-05-01")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.range(6, "2023-05-02", null)).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.range(7, "2023-05-01", "2023-05-01 12:00:00")).test(parameters));
+        Assertions.assertFalse(new ParameterCondition(ParameterConfig.range(7, null, "2023-05-01 11:59:59")).test(parameters));
+        Assertions.assertTrue(new ParameterCondition(ParameterConfig.equalTo(7, "today")).test(
+                Collections.singletonMap(7, LocalDateTime.now())));
+    }
+
+    @Test
+    void testParameterIndexRequired() {
+        ParameterConfig parameter = new ParameterConfig();
+        parameter.setValue("42");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParameterCondition(parameter));
+        RulesetConfig ruleset = RulesetConfig.of(RuleConfig.passthrough().parameters(parameter).ttl(DURATION_0S).build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> QueryRuleSession.of(ruleset));
+    }
+
+    @Test
+    void testRuleOrder() {
+        RuleConfig rule1 = RuleConfig.tablesAny(ORDERS).ttl(DURATION_0S).build();
+        RuleConfig rule2 = RuleConfig.regex("SELECT .*").ttl(DURATION_300S).build();
+        RuleConfig rule3 = RuleConfig.tables(PRODUCTS).ttl(DEFAULT_TTL).build();
+        RuleConfig rule4 = RuleConfig.passthrough().ttl(Duration.valueOf("1s")).build();
+        QueryRuleSession ruleSession = QueryRuleSession.of(RulesetConfig.of(rule1, rule2, rule3, rule4));
+        Assertions.assertEquals(0, ruleSession.fire(query("SELECT * FROM " + ORDERS_O, ORDERS)).getTtl());
+        Assertions.assertEquals(DURATION_300S.toMillis(), ruleSession.fire(query("SELECT * FROM " + PRODUCTS_P, PRODUCTS)).getTtl());
+        Assertions.assertEquals(DEFAULT_TTL.toMillis(), ruleSession.fire(query("select * from " + PRODUCTS_P, PRODUCTS)).getTtl());
+        Assertions.assertEquals(1000, ruleSession.fire(query("select * from " + CUSTOMERS_C, CUSTOMERS)).getTtl());
+    }
+
+    @Test
+    void testIndexedMatchesLinear() {
+        List<RuleConfig> rules = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            Duration ttl = Duration.valueOf((index + 1) + "s");
+            switch (index % 6) {
+                case 0:
+                    rules.add(RuleConfig.tables("table" + index, "table" + (index + 1)).ttl(ttl).build());
+                    break;
+                case 1:
+                    rules.add(RuleConfig.tablesAny("table" + index, "table" + (index + 2)).ttl(ttl).build());
+                    break;
+                case 2:
+                    rules.add(RuleConfig.tablesAll("table" + index, "table" + (index - 1)).ttl(ttl).build());
+                    break;
+                case 3:
+                    rules.add(RuleConfig.regex("(?i)select \\* from table" + index + "\\b.*").ttl(ttl).build());
+                    break;
+                case 4:
+                    rules.add(RuleConfig.regex("SELECT (\\w+), \\1 FROM table" + index).ttl(ttl).build());
+                    break;
+                default:
+                    rules.add(RuleConfig.queryIds(String.valueOf(HashingFunctions.crc32(sql(index)))).ttl(ttl).build());
+                    break;
+            }
+        }
+        RulesetConfig ruleset = RulesetConfig.of(rules.toArray(new RuleConfig[0]));
+        QueryRuleSession indexed = QueryRuleSession.of(ruleset);
+        QueryRuleSession linear = new QueryRuleSession(indexed.getRules());
+        List<Query> queries = new ArrayList<>();
+        for (int index = 0; index < 101; index++) {
+            queries.add(query(sql(index), "table" + index));
+            queries.add(query(sql(index) + ", table" + (index + 1), "table" + index, "table" + (index + 1)));
+            queries.add(query("SELECT a, a FROM table" + index, "table" + index));
+        }
+        for (Query query : queries) {
+            Assertions.assertEquals(linear.fire(query).getTtl(), indexed.fire(query).getTtl(), query.getSql());
+        }
+    }
+
+    private static String sql(int index) {
+        return "SELECT * FROM table" + index;
+    }
+
     private static Query query(String sql, String... tables) {
         Query query = new Query();
         query.setId(String.valueOf(HashingFunctions.crc32(sql)));
@@ -0,0 +1,62 @@
+package com.redis.smartcache.core;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TopKTests {
+
+    @Test
+    void heavyHitters() {
+        TopK topK = new TopK(2, 10);
+        for (int round = 0; round < 100; round++) {
+            topK.offer("hot1");
+            topK.offer("hot1");
+            topK.offer("hot2");
+            for (int index = 0; index < 5; index++) {
+                topK.offer("tail" + (round * 5 + index));
+            }
+        }
+        Assertions.assertEquals(Arrays.asList("hot1", "hot2"), topK.top());
+        Assertions.assertTrue(topK.isTop("hot1"));
+        Assertions.assertFalse(topK.isTop("tail499"));
+        Assertions.assertTrue(topK.count("hot1") >= 200);
+    }
+
+    @Test
+    void longTail() {
+        TopK topK = new TopK(2, 10);
+        for (int index = 0; index < 10; index++) {
+            Assertions.assertEquals(index < 2, topK.offer("item" + index));
+        }
+        // Items replacing each other at the bottom of the sketch are not top
+        for (int index = 10; index < 100; index++) {
+            Assertions.assertFalse(topK.offer("item" + index));
+        }
+        Assertions.assertTrue(topK.top().isEmpty());
+    }
+
+    @Test
+    void counts() {
+        TopK topK = new TopK(2, 10);
+        topK.offer("a", 5);
+        topK.offer("b", 3);
+        topK.offer("c", 7);
+        Assertions.assertTrue(topK.offer("b", 10));
+        Assertions.assertEquals(Arrays.asList("b", "c"), topK.top());
+        Assertions.assertEquals(13, topK.count("b"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> topK.offer("a", 0));
+    }
+
+    @Test
+    void notFull() {
+        TopK topK = new TopK(3, 30);
+        Assertions.assertTrue(topK.offer("a"));
+        Assertions.assertTrue(topK.offer("b"));
+        Assertions.assertTrue(topK.offer("b"));
+        Assertions.assertEquals(Arrays.asList("b", "a"), topK.top());
+        Assertions.assertEquals(0, topK.count("c"));
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HeapByteStoreTests {
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String get(ByteStore store, String key) {
+        return store.get(key, buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+
+    @Test
+    void putGet() {
+        HeapByteStore store = new HeapByteStore(1024);
+        Assertions.assertTrue(store.put("key1", bytes("value1"), 0));
+        Assertions.assertEquals("value1", get(store, "key1"));
+        Assertions.assertNull(get(store, "key2"));
+        Assertions.assertEquals(6, store.getSize());
+        store.put("key1", bytes("value"), 0);
+        Assertions.assertEquals("value", get(store, "key1"));
+        Assertions.assertEquals(5, store.getSize());
+        store.remove("key1");
+        Assertions.assertNull(get(store, "key1"));
+        Assertions.assertEquals(0, store.getSize());
+        Assertions.assertEquals(0, store.getEntryCount());
+    }
+
+    @Test
+    void ttl() {
+        HeapByteStore store = new HeapByteStore(1024);
+        store.put("key1", bytes("value1"), 100);
+        Assertions.assertEquals("value1", get(store, "key1"));
+        Awaitility.await().until(() -> get(store, "key1") == null);
+        Assertions.assertEquals(0, store.getSize());
+    }
+
+    @Test
+    void eviction() {
+        HeapByteStore store = new HeapByteStore(30);
+        for (int index = 0; index < 3; index++) {
+            store.put("key" + index, bytes("0123456789"), 0);
+        }
+        Assertions.assertEquals(3, store.getEntryCount());
+        // key0 was read so it gets a second chance and key1 is evicted instead
+        get(store, "key0");
+        store.put("key3", bytes("0123456789"), 0);
+        Assertions.assertNull(get(store, "key1"));
+        Assertions.assertEquals("0123456789", get(store, "key0"));
+        Assertions.assertEquals(30, store.getSize());
+        Assertions.assertEquals(1, store.getEvictionCount());
+    }
+
+    @Test
+    void containsDoesNotReference() {
+        HeapByteStore store = new HeapByteStore(30);
+        for (int index = 0; index < 3; index++) {
+            store.put("key" + index, bytes("0123456789"), 0);
+        }
+        Assertions.assertTrue(store.contains("key0"));
+        Assertions.assertFalse(store.contains("key3"));
+        // key0 was only checked so it gets no second chance
+        store.put("key3", bytes("0123456789"), 0);
+        Assertions.assertFalse(store.contains("key0"));
+        Assertions.assertTrue(store.contains("key1"));
+    }
+
+    @Test
+    void tooLarge() {
+        HeapByteStore store = new HeapByteStore(5);
+        Assertions.assertFalse(store.put("key1", bytes("value1"), 0));
+        Assertions.assertEquals(0, store.getEntryCount());
+    }
+
+    @Test
+    void metrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HeapByteStore store = new HeapByteStore(1024);
+        store.bindTo(registry);
+        store.put("key1", bytes("value1"), 0);
+        Assertions.assertEquals(6,
+                registry.get(ByteStore.METER_SIZE).tag(ByteStore.TAG_STORE, HeapByteStore.NAME).gauge().value());
+        Assertions.assertEquals(1, registry.get(ByteStore.METER_ENTRIES).gauge().value());
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.redis.smartcache.core.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedByteStoreTests {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static final int MAX_SIZE = SEGMENT_SIZE * 4;
+
+    @TempDir
+    Path directory;
+
+    private static ByteBuffer bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] get(ByteStore store, String key) {
+        return store.get(key, buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+
+    private MappedByteStore store() throws IOException {
+        return new MappedByteStore(directory, MAX_SIZE, SEGMENT_SIZE);
+    }
+
+    @Test
+    void survivesRestart() throws IOException {
+        try (MappedByteStore store = store()) {
+            store.put("key1", bytes(100, 1), 0);
+            store.put("key2", bytes(100, 2), 0);
+            store.put("key3", bytes(100, 3), 60000);
+            store.remove("key2");
+            store.put("key1", bytes(50, 5), 0);
+        }
+        try (MappedByteStore store = store()) {
+            Assertions.assertArrayEquals(bytes(50, 5).array(), get(store, "key1"));
+            Assertions.assertNull(get(store, "key2"));
+            Assertions.assertArrayEquals(bytes(100, 3).array(), get(store, "key3"));
+            Assertions.assertEquals(2, store.getEntryCount());
+            Assertions.assertEquals(150, store.getSize());
+        }
+    }
+
+    @Test
+    void expiredEntriesNotLoaded() throws Exception {
+        try (MappedByteStore store = store()) {
+            store.put("key1", bytes(10, 1), 50);
+        }
+        Thread.sleep(100);
+        try (MappedByteStore store = store()) {
+            Assertions.assertNull(get(store, "key1"));
+            Assertions.assertEquals(0, store.getEntryCount());
+        }
+    }
+
+    @Test
+    void compaction() throws IOException {
+        try (MappedByteStore store = store()) {
+            store.put("hot", bytes(50, 1), 0);
+            for (int index = 0; index < 100; index++) {
+                store.put("key" + index, bytes(200, index), 0);
+                // Read entries are copied forward when their segment is compacted
+                get(store, "hot");
+            }
+            Assertions.assertArrayEquals(bytes(50, 1).array(), get(store, "hot"));
+            Assertions.assertNull(get(store, "key0"));
+            Assertions.assertTrue(store.getEvictionCount() > 0);
+            Assertions.assertTrue(store.getAllocatedSize() <= MAX_SIZE);
+        }
+    }
+
+    @Test
+    void compactionOfHotSegment() throws IOException {
+        try (MappedByteStore store = new MappedByteStore(directory, SEGMENT_SIZE * 2, SEGMENT_SIZE)) {
+            for (int index = 0; index < 50; index++) {
+                store.put("key" + index, bytes(200, index), 0);
+                // All entries are read so that compaction copies them forward, filling the newest segments
+                for (int read = Math.max(0, index - 8); read <= index; read++) {
+                    get(store, "key" + read);
+                }
+            }
+            Assertions.assertArrayEquals(bytes(200, 49).array(), get(store, "key49"));
+            Assertions.assertTrue(store.getAllocatedSize() <= SEGMENT_SIZE * 2);
+        }
+    }
+
+    @Test
+    void expiresAt() throws IOException {
+        try (MappedByteStore store = store()) {
+            long before = System.currentTimeMillis();
+            store.put("key1", bytes(10, 1), 60000);
+            store.put("key2", bytes(10, 2), 0);
+            long expiresAt = store.getWithExpiresAt("key1", (buffer, expiration) -> expiration);
+            Assertions.assertTrue(expiresAt >= before + 60000 && expiresAt <= System.currentTimeMillis() + 60000);
+            long noExpiration = store.getWithExpiresAt("key2", (buffer, expiration) -> expiration);
+            Assertions.assertEquals(0, noExpiration);
+            Assertions.assertNull(store.getWithExpiresAt("key3", (buffer, expiration) -> expiration));
+        }
+    }
+
+    @Test
+    void loadedTtl() throws IOException {
+        try (MappedByteStore store = store()) {
+            store.put("key1", bytes(10, 1), 0);
+            store.put("key2", bytes(10, 2), 30000);
+            store.put("key3", bytes(10, 3), 600000);
+        }
+        long before = System.currentTimeMillis();
+        try (MappedByteStore store = new MappedByteStore(directory, MAX_SIZE, SEGMENT_SIZE, 60000)) {
+            long expiresAt = store.getWithExpiresAt("key1", (buffer, expiration) -> expiration);
+            Assertions.assertTrue(expiresAt >= before + 60000 && expiresAt <= System.currentTimeMillis() + 60000);
+            Assertions.assertTrue(store.getWithExpiresAt("key2", (buffer, expiration) -> expiration) <= before + 30000);
+            expiresAt = store.getWithExpiresAt("key3", (buffer, expiration) -> expiration);
+            Assertions.assertTrue(expiresAt <= System.currentTimeMillis() + 60000);
+        }
+    }
+
+    @Test
+    void directoryLocked() throws IOException {
+        try (MappedByteStore store = store()) {
+            Assertions.assertThrows(IOException.class, this::store);
+        }
+        // Lock is released on close
+        store().close();
+    }
+
+    @Test
+    void tiered() throws IOException {
+        try (MappedByteStore store = store()) {
+            store.put("key1", bytes(100, 1), 0);
+        }
+        try (TieredByteStore store = new TieredByteStore(new HeapByteStore(MAX_SIZE), store())) {
+            Assertions.assertEquals(0, store.getMemory().getEntryCount());
+            // Checking for a key does not promote it
+            Assertions.assertTrue(store.contains("key1"));
+            Assertions.assertFalse(store.contains("key2"));
+            Assertions.assertEquals(0, store.getMemory().getEntryCount());
+            Assertions.assertArrayEquals(bytes(100, 1).array(), get(store, "key1"));
+            // Disk hits are promoted to memory
+            Assertions.assertEquals(1, store.getMemory().getEntryCount());
+            store.remove("key1");
+            Assertions.assertNull(get(store, "key1"));
+        }
+    }
+
+}
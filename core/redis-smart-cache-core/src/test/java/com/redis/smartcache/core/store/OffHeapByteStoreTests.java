@@ -0,0 +1,114 @@
+package com.redis.smartcache.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OffHeapByteStoreTests {
+
+    private static final int SLAB_SIZE = 512;
+
+    private static ByteBuffer bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] get(ByteStore store, String key) {
+        return store.get(key, buffer -> {
+            Assertions.assertTrue(buffer.isDirect());
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+
+    @Test
+    void putGet() {
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE * 2, SLAB_SIZE)) {
+            Assertions.assertTrue(store.put("key1", bytes(100, 1), 0));
+            Assertions.assertTrue(store.put("key2", bytes(10, 2), 0));
+            Assertions.assertArrayEquals(bytes(100, 1).array(), get(store, "key1"));
+            Assertions.assertArrayEquals(bytes(10, 2).array(), get(store, "key2"));
+            Assertions.assertNull(get(store, "key3"));
+            Assertions.assertEquals(110, store.getSize());
+            Assertions.assertEquals(SLAB_SIZE * 2, store.getAllocatedSize());
+            store.put("key1", bytes(50, 3), 0);
+            Assertions.assertArrayEquals(bytes(50, 3).array(), get(store, "key1"));
+            Assertions.assertEquals(60, store.getSize());
+            store.remove("key1");
+            Assertions.assertNull(get(store, "key1"));
+            Assertions.assertEquals(1, store.getEntryCount());
+        }
+    }
+
+    @Test
+    void ttl() {
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE, SLAB_SIZE)) {
+            store.put("key1", bytes(10, 1), 100);
+            Assertions.assertNotNull(get(store, "key1"));
+            Awaitility.await().until(() -> get(store, "key1") == null);
+            Assertions.assertEquals(0, store.getSize());
+        }
+    }
+
+    @Test
+    void eviction() {
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE, SLAB_SIZE)) {
+            // 100-byte values use 104-byte chunks: 4 per slab
+            for (int index = 0; index < 4; index++) {
+                store.put("key" + index, bytes(100, index), 0);
+            }
+            Assertions.assertEquals(4, store.getEntryCount());
+            // key0 was read so it gets a second chance and key1 is evicted instead
+            get(store, "key0");
+            store.put("key4", bytes(100, 4), 0);
+            Assertions.assertNull(get(store, "key1"));
+            Assertions.assertArrayEquals(bytes(100, 0).array(), get(store, "key0"));
+            Assertions.assertArrayEquals(bytes(100, 4).array(), get(store, "key4"));
+            Assertions.assertEquals(1, store.getEvictionCount());
+        }
+    }
+
+    @Test
+    void slabReassignment() {
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE, SLAB_SIZE)) {
+            for (int index = 0; index < 4; index++) {
+                store.put("key" + index, bytes(100, index), 0);
+            }
+            // No slab left for 300-byte values: the only slab is taken from the 100-byte values
+            Assertions.assertTrue(store.put("large", bytes(300, 9), 0));
+            Assertions.assertArrayEquals(bytes(300, 9).array(), get(store, "large"));
+            Assertions.assertEquals(1, store.getEntryCount());
+            Assertions.assertEquals(4, store.getEvictionCount());
+            Assertions.assertTrue(store.put("key0", bytes(100, 0), 0));
+            Assertions.assertNull(get(store, "large"));
+        }
+    }
+
+    @Test
+    void tooLarge() {
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE, SLAB_SIZE)) {
+            Assertions.assertFalse(store.put("key1", bytes(SLAB_SIZE + 1, 1), 0));
+            Assertions.assertEquals(0, store.getAllocatedSize());
+        }
+    }
+
+    @Test
+    void metrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (OffHeapByteStore store = new OffHeapByteStore(SLAB_SIZE, SLAB_SIZE)) {
+            store.bindTo(registry);
+            store.put("key1", bytes(10, 1), 0);
+            Assertions.assertEquals(SLAB_SIZE,
+                    registry.get(ByteStore.METER_ALLOCATED).tag(ByteStore.TAG_STORE, OffHeapByteStore.NAME).gauge().value());
+            Assertions.assertEquals(10, registry.get(ByteStore.METER_SIZE).gauge().value());
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.redis.smartcache;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+import com.redis.smartcache.jdbc.SmartConnection;
+
+/**
+ * Connection and prepared statement of a benchmark thread, since JDBC connections are not shared between threads.
+ */
+public class ConnectionWorker implements AutoCloseable {
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final SmartConnection connection;
+
+    private final PreparedStatement preparedStatement;
+
+    public ConnectionWorker(SmartConnection connection) throws SQLException {
+        this.connection = connection;
+        this.preparedStatement = connection.prepareStatement(DriverExecutionPlan.SQL);
+    }
+
+    public SmartConnection getConnection() {
+        return connection;
+    }
+
+    public PreparedStatement getPreparedStatement() {
+        return preparedStatement;
+    }
+
+    /**
+     * 
+     * @return a random parameter value. Values below hitRatio * KEY_COUNT are cache hits.
+     */
+    public int nextId() {
+        return random.nextInt(DriverExecutionPlan.KEY_COUNT);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        preparedStatement.close();
+        connection.close();
+    }
+
+}
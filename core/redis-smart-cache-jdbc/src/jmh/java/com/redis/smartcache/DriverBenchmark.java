@@ -0,0 +1,78 @@
+package com.redis.smartcache;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End-to-end driver benchmarks: rule evaluation, key computation, metrics, cache lookup, codec and RowSet population, with a
+ * stub backend and a local cache instead of a database and Redis. Each invocation runs
+ * {@value DriverExecutionPlan#QUERIES} queries split between {@code threads} worker threads so that throughput is reported in
+ * queries per second for each thread count. Use the JMH {@code -prof gc} option to report allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DriverBenchmark {
+
+    @Benchmark
+    @OperationsPerInvocation(DriverExecutionPlan.QUERIES)
+    public void statement(DriverExecutionPlan plan, Blackhole blackhole) throws InterruptedException, ExecutionException {
+        blackhole.consume(plan.run(worker -> {
+            try (Statement statement = worker.getConnection().createStatement()) {
+                return consume(statement.executeQuery(DriverExecutionPlan.SQL_PREFIX + worker.nextId()));
+            }
+        }));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DriverExecutionPlan.QUERIES)
+    public void preparedStatement(DriverExecutionPlan plan, Blackhole blackhole)
+            throws InterruptedException, ExecutionException {
+        blackhole.consume(plan.run(worker -> {
+            try (PreparedStatement statement = worker.getConnection().prepareStatement(DriverExecutionPlan.SQL)) {
+                statement.setInt(1, worker.nextId());
+                return consume(statement.executeQuery());
+            }
+        }));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DriverExecutionPlan.QUERIES)
+    public void reusedPreparedStatement(DriverExecutionPlan plan, Blackhole blackhole)
+            throws InterruptedException, ExecutionException {
+        blackhole.consume(plan.run(worker -> {
+            PreparedStatement statement = worker.getPreparedStatement();
+            statement.setInt(1, worker.nextId());
+            return consume(statement.executeQuery());
+        }));
+    }
+
+    /**
+     * Reads all values of the given ResultSet. Values are read by worker threads, so they are summed instead of being consumed
+     * by the Blackhole.
+     * 
+     * @return sum of the hash codes of the values
+     */
+    private static long consume(ResultSet resultSet) throws SQLException {
+        long sum = 0;
+        int columnCount = resultSet.getMetaData().getColumnCount();
+        while (resultSet.next()) {
+            for (int index = 1; index <= columnCount; index++) {
+                sum += Objects.hashCode(resultSet.getObject(index));
+            }
+        }
+        return sum;
+    }
+
+}
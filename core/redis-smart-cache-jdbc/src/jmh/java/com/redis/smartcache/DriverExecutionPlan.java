@@ -0,0 +1,190 @@
+package com.redis.smartcache;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.RowSet;
+import javax.sql.rowset.CachedRowSet;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.redis.smartcache.core.EvictingLinkedHashMap;
+import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.Query;
+import com.redis.smartcache.core.QueryRuleSession;
+import com.redis.smartcache.core.RuleConfig;
+import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.store.HeapByteStore;
+import com.redis.smartcache.jdbc.LocalRowSetCache;
+import com.redis.smartcache.jdbc.RowSetCache;
+import com.redis.smartcache.jdbc.RowSetCodec;
+import com.redis.smartcache.jdbc.SmartConnection;
+import com.redis.smartcache.jdbc.StubDriver;
+import com.redis.smartcache.test.RowSetBuilder;
+
+import io.airlift.units.Duration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Driver state shared by all benchmark threads: rule session, meter registry, query cache and local RowSet cache, plus one
+ * {@link ConnectionWorker} per thread. The cache is pre-populated with the results of the first {@code hitRatio * KEY_COUNT}
+ * parameter values and then frozen: later puts are still encoded but discarded so that the hit ratio stays the same
+ * throughout the benchmark.
+ */
+@State(Scope.Benchmark)
+public class DriverExecutionPlan {
+
+    public static final int KEY_COUNT = 100;
+
+    /**
+     * Number of queries per benchmark invocation, split between threads
+     */
+    public static final int QUERIES = 960;
+
+    public static final String SQL = "SELECT * FROM orders WHERE order_id = ?";
+
+    public static final String SQL_PREFIX = "SELECT * FROM orders WHERE order_id = ";
+
+    private static final int BYTE_BUFFER_CAPACITY = 100 * 1024 * 1024;
+
+    private static final long STORE_SIZE = 1024 * 1024 * 1024;
+
+    @Param({ "0", "0.5", "0.9", "1" })
+    private double hitRatio;
+
+    @Param({ "10", "100" })
+    private int rows;
+
+    @Param({ "10" })
+    private int columns;
+
+    @Param({ "1", "4", "16" })
+    private int threads;
+
+    private QueryRuleSession ruleSession;
+
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Query> queryCache;
+
+    private KeyBuilder keyBuilder;
+
+    private HeapByteStore store;
+
+    private RowSetCache rowSetCache;
+
+    private volatile boolean frozen;
+
+    private ExecutorService executor;
+
+    private List<ConnectionWorker> workers;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws SQLException {
+        Config config = new Config();
+        config.getRuleset().setRules(RuleConfig.passthrough().ttl(Duration.valueOf("1h")).build());
+        ruleSession = QueryRuleSession.of(config.getRuleset());
+        meterRegistry = new SimpleMeterRegistry();
+        queryCache = Collections.synchronizedMap(new EvictingLinkedHashMap<>(config.getQueryCacheCapacity()));
+        keyBuilder = KeyBuilder.of(config).sub(Driver.KEYSPACE_CACHE);
+        store = new HeapByteStore(STORE_SIZE);
+        RowSetCodec codec = new RowSetCodec(BYTE_BUFFER_CAPACITY);
+        rowSetCache = new LocalRowSetCache(store, codec) {
+
+            @Override
+            public void put(String key, RowSet rowSet, long ttlMillis) {
+                if (frozen) {
+                    codec.encodeValue(rowSet);
+                } else {
+                    super.put(key, rowSet, ttlMillis);
+                }
+            }
+
+        };
+        int hits = (int) Math.round(hitRatio * KEY_COUNT);
+        try (SmartConnection connection = connection();
+                Statement statement = connection.createStatement();
+                PreparedStatement preparedStatement = connection.prepareStatement(SQL)) {
+            for (int id = 0; id < hits; id++) {
+                statement.executeQuery(SQL_PREFIX + id).close();
+                preparedStatement.setInt(1, id);
+                preparedStatement.executeQuery().close();
+            }
+        }
+        frozen = true;
+        executor = Executors.newFixedThreadPool(threads);
+        workers = new ArrayList<>();
+        for (int index = 0; index < threads; index++) {
+            workers.add(new ConnectionWorker(connection()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws SQLException {
+        executor.shutdown();
+        for (ConnectionWorker worker : workers) {
+            worker.close();
+        }
+        store.close();
+        meterRegistry.close();
+    }
+
+    /**
+     * Runs {@link #QUERIES} queries split between the worker threads and waits for all of them.
+     * 
+     * @return sum of the values returned by the queries, to be consumed by the benchmark
+     */
+    public long run(WorkerQuery query) throws InterruptedException, ExecutionException {
+        List<Future<Long>> futures = new ArrayList<>(threads);
+        int queriesPerWorker = QUERIES / threads;
+        for (ConnectionWorker worker : workers) {
+            futures.add(executor.submit(() -> {
+                long sum = 0;
+                for (int index = 0; index < queriesPerWorker; index++) {
+                    sum += query.execute(worker);
+                }
+                return sum;
+            }));
+        }
+        long sum = 0;
+        for (Future<Long> future : futures) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    private SmartConnection connection() throws SQLException {
+        return new SmartConnection(new StubDriver(resultSet()).connect(StubDriver.URL, new Properties()), ruleSession,
+                meterRegistry, rowSetCache, queryCache, keyBuilder);
+    }
+
+    private ResultSet resultSet() throws SQLException {
+        CachedRowSet rowSet = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(rows).columnCount(columns).build();
+        rowSet.beforeFirst();
+        return rowSet;
+    }
+
+    public interface WorkerQuery {
+
+        long execute(ConnectionWorker worker) throws SQLException;
+
+    }
+
+}
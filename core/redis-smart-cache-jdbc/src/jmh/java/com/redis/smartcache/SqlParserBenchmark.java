@@ -1,9 +1,14 @@
 package com.redis.smartcache;
 
+import java.util.Set;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 
+import com.redis.smartcache.jdbc.SQLParser;
+import com.redis.smartcache.jdbc.TableNameExtractor;
+
 import io.trino.sql.parser.ParsingOptions;
 import io.trino.sql.parser.SqlParser;
 
@@ -13,8 +18,16 @@ public class SqlParserBenchmark {
 
     private static final ParsingOptions parsingOptions = new ParsingOptions();
 
+    private static final SQLParser sqlParser = new SQLParser();
+
     private static final String SQL = "SELECT orders.orderNumber, orders.orderDate, orders.requiredDate, orders.shippedDate, orders.status, orders.customerNumber, customers.customerName, orderdetails.productCode, products.productName, orderdetails.quantityOrdered FROM orders JOIN customers ON orders.customerNumber = customers.customerNumber JOIN orderdetails ON orders.orderNumber = orderdetails.orderNumber JOIN products ON orderdetails.productCode = products.productCode WHERE orders.orderNumber = ?";
 
+    private static final String MSSQL = "SELECT TOP 10 * FROM [dbo].[LOCATIONS] WITH (NOLOCK) WHERE [COUNTRY_ID] = 'US'";
+
+    private static final String ORACLE = "SELECT /*+ INDEX(e emp_idx) */ * FROM emp_details_view e WHERE ROWNUM <= 10";
+
+    private static final String MYSQL = "SELECT SLEEP(1), e.* FROM `Employee` e WHERE mgrid = 5";
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void parseSQL() {
@@ -23,8 +36,30 @@ public class SqlParserBenchmark {
 
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
-    public void extractTableNames() {
-        parser.createStatement(SQL, parsingOptions);
+    public Set<String> extractTableNames() {
+        return sqlParser.extractTableNames(SQL);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Set<String> parseTableNames() {
+        return sqlParser.parseTableNames(SQL);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Set<String> extractVendorTableNames() {
+        TableNameExtractor.extract(MSSQL);
+        TableNameExtractor.extract(ORACLE);
+        return TableNameExtractor.extract(MYSQL);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Set<String> parseVendorTableNames() {
+        sqlParser.parseTableNames(MSSQL);
+        sqlParser.parseTableNames(ORACLE);
+        return sqlParser.parseTableNames(MYSQL);
     }
 
 }
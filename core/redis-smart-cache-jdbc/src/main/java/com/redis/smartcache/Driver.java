@@ -5,11 +5,17 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -17,27 +23,56 @@ import java.util.regex.Pattern;
 
 import javax.sql.RowSet;
 
+import com.redis.smartcache.core.AdaptiveTtl;
+import com.redis.smartcache.core.AutoCachePlanner;
+import com.redis.smartcache.core.BackoffController;
+import com.redis.smartcache.core.CircuitBreaker;
 import com.redis.smartcache.core.ClientManager;
+import com.redis.smartcache.core.ConcurrentRegistry;
 import com.redis.smartcache.core.EvictingLinkedHashMap;
 import com.redis.smartcache.core.HashingFunctions;
+import com.redis.smartcache.core.HotKeyTracker;
 import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.LatencySketches;
+import com.redis.smartcache.core.LocalTableIndex;
 import com.redis.smartcache.core.Mappers;
 import com.redis.smartcache.core.MeterRegistryManager;
 import com.redis.smartcache.core.Query;
 import com.redis.smartcache.core.QueryRuleSession;
 import com.redis.smartcache.core.RuleSessionManager;
+import com.redis.smartcache.core.TableIndex;
+import com.redis.smartcache.core.WriteBehindBatcher;
 import com.redis.smartcache.core.config.CacheConfig;
+import com.redis.smartcache.core.config.CircuitBreakerConfig;
 import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.config.DiskCacheConfig;
 import com.redis.smartcache.core.config.DriverConfig;
+import com.redis.smartcache.core.config.LocalCacheConfig;
+import com.redis.smartcache.core.config.LocalStorage;
+import com.redis.smartcache.core.config.MetricsConfig;
 import com.redis.smartcache.core.config.RedisConfig;
+import com.redis.smartcache.core.config.WarmupConfig;
+import com.redis.smartcache.core.config.WriteBehindConfig;
+import com.redis.smartcache.core.store.ByteStore;
+import com.redis.smartcache.core.store.HeapByteStore;
+import com.redis.smartcache.core.store.MappedByteStore;
+import com.redis.smartcache.core.store.OffHeapByteStore;
+import com.redis.smartcache.core.store.TieredByteStore;
+import com.redis.smartcache.jdbc.CacheWarmer;
+import com.redis.smartcache.jdbc.LocalRowSetCache;
+import com.redis.smartcache.jdbc.QueryMeters;
 import com.redis.smartcache.jdbc.RedisRowSetCache;
 import com.redis.smartcache.jdbc.RowSetCache;
 import com.redis.smartcache.jdbc.RowSetCodec;
+import com.redis.smartcache.jdbc.SQLParseCache;
 import com.redis.smartcache.jdbc.SmartConnection;
+import com.redis.smartcache.jdbc.TieredRowSetCache;
 
 import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.ReadFrom;
 import io.lettuce.core.codec.RedisCodec;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * The Java SQL framework allows for multiple database drivers. Each driver should supply a class that implements the Driver
@@ -64,6 +99,12 @@ public class Driver implements java.sql.Driver {
 
     public static final String KEYSPACE_CACHE = "cache";
 
+    public static final String KEYSPACE_HOT_KEYS = "hotkeys";
+
+    public static final String KEYSPACE_TABLES = "tables";
+
+    public static final String KEYSPACE_SKETCHES = "sketches";
+
     private static final String JDBC_URL_REGEX = "jdbc\\:(rediss?(\\-(socket|sentinel))?\\:\\/\\/.*)";
 
     private static final Pattern JDBC_URL_PATTERN = Pattern.compile(JDBC_URL_REGEX);
@@ -74,10 +115,49 @@ public class Driver implements java.sql.Driver {
 
     private static final MeterRegistryManager registryManager = new MeterRegistryManager(clientManager);
 
-    private static final Map<Config, Map<String, Query>> queryCaches = new HashMap<>();
+    private static final ConcurrentRegistry<Config, Map<String, Query>> queryCaches = new ConcurrentRegistry<>(
+            Driver::createQueryCache);
+
+    private static final int CONFIG_CACHE_CAPACITY = 100;
+
+    private static final Map<String, Config> configs = Collections
+            .synchronizedMap(new EvictingLinkedHashMap<>(CONFIG_CACHE_CAPACITY));
+
+    private static final Map<String, java.sql.Driver> backendDrivers = new ConcurrentHashMap<>();
+
+    private static final ConcurrentRegistry<RedisConfig, CircuitBreaker> circuitBreakers = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<RedisConfig, BackoffController> backoffControllers = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<RedisConfig, Optional<ReadFrom>> readFroms = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<RedisConfig, WriteBehindBatcher> writeBehindBatchers = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, ByteStore> localStores = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, LocalTableIndex> localTableIndexes = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, HotKeyTracker> hotKeyTrackers = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, CacheWarmer> cacheWarmers = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, AutoCachePlanner> autoCachePlanners = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, TableIndex> tableIndexes = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, QueryMeters> queryMeters = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, LatencySketches> latencySketches = new ConcurrentRegistry<>();
+
+    private static final ConcurrentRegistry<Config, Map<String, AdaptiveTtl>> adaptiveTtls = new ConcurrentRegistry<>(
+            c -> new ConcurrentHashMap<>());
+
+    public static final String METER_CONNECT = "connect";
 
     public static final String PROPERTY_PREFIX = Mappers.PROPERTY_PREFIX + ".driver";
 
+    private static final String PROPERTY_NAME_PREFIX = Mappers.PROPERTY_PREFIX + ".";
+
     public static final String PROPERTY_CLASS_NAME = PROPERTY_PREFIX + ".class-name";
 
     public static final String PROPERTY_URL = PROPERTY_PREFIX + ".url";
@@ -107,44 +187,293 @@ public class Driver implements java.sql.Driver {
             log.fine("JDBC URL contains empty Redis URI");
             return null;
         }
-        Config config;
+        long start = System.nanoTime();
+        Config config = config(redisUri, info);
+        log.fine("Creating backend connection");
+        Connection backendConnection = backendConnection(config.getDriver(), info);
+        log.fine("Creating SmartCache connection");
+        SmartConnection connection = makeConnection(config, backendConnection);
+        if (config.getCache().getWarmup().isEnabled()) {
+            // The first connection for a config waits for hot keys to be loaded
+            cacheWarmers.computeIfAbsent(config, c -> cacheWarmer(config, info));
+        }
+        Timer.builder(METER_CONNECT).description("Time to create a SmartCache connection, including the backend connection")
+                .register(registryManager.getRegistry(config)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return connection;
+    }
+
+    /**
+     * Configs are cached by fingerprint, i.e. the Redis URI and the SmartCache properties, so that connecting does not bind a
+     * new Config every time.
+     */
+    private static Config config(String redisUri, Properties info) throws SQLException {
+        SortedMap<String, String> properties = properties(info);
+        String fingerprint = redisUri + "\n" + properties;
+        Config config = configs.get(fingerprint);
+        if (config != null) {
+            return config;
+        }
         try {
-            config = config(info);
+            config = Mappers.config(toProperties(properties));
         } catch (IOException e) {
             throw new SQLException("Could not load config", e);
         }
         config.getRedis().setUri(redisUri);
-        log.fine("Creating backend connection");
-        Connection backendConnection = backendConnection(config.getDriver(), info);
-        log.fine("Creating SmartCache connection");
-        return makeConnection(config, backendConnection);
+        Config existing = configs.putIfAbsent(fingerprint, config);
+        return existing == null ? config : existing;
     }
 
     public static Config config(Properties info) throws IOException {
-        Properties properties = new Properties();
+        return Mappers.config(toProperties(properties(info)));
+    }
+
+    /**
+     * 
+     * @param info connection properties
+     * @return SmartCache properties from the environment, system properties, and connection properties, in increasing order of
+     *         precedence
+     */
+    private static SortedMap<String, String> properties(Properties info) {
+        SortedMap<String, String> properties = new TreeMap<>();
         try {
-            properties.putAll(System.getenv());
-            properties.putAll(System.getProperties());
+            System.getenv().forEach((name, value) -> {
+                if (isSmartCacheProperty(name)) {
+                    properties.put(name, value);
+                }
+            });
+            putSmartCacheProperties(System.getProperties(), properties);
         } catch (SecurityException e) {
             // Ignore since we don't require access to system environment
         }
-        properties.putAll(info);
-        return Mappers.config(properties);
+        putSmartCacheProperties(info, properties);
+        return properties;
+    }
+
+    private static void putSmartCacheProperties(Properties source, Map<String, String> target) {
+        for (String name : source.stringPropertyNames()) {
+            if (isSmartCacheProperty(name)) {
+                target.put(name, source.getProperty(name));
+            }
+        }
+    }
+
+    private static boolean isSmartCacheProperty(String name) {
+        return name.startsWith(PROPERTY_NAME_PREFIX);
+    }
+
+    private static Properties toProperties(Map<String, String> map) {
+        Properties properties = new Properties();
+        properties.putAll(map);
+        return properties;
     }
 
     private SmartConnection makeConnection(Config config, Connection backendConnection) {
         QueryRuleSession session = ruleSessionManager.getRuleSession(config);
         KeyBuilder keyBuilder = KeyBuilder.of(config).sub(KEYSPACE_CACHE);
         MeterRegistry registry = registryManager.getRegistry(config);
-        Map<String, Query> queryCache = queryCaches.computeIfAbsent(config, this::createQueryCache);
-        return new SmartConnection(backendConnection, session, registry, rowSetCache(config), queryCache, keyBuilder);
+        Map<String, Query> queryCache = queryCaches.get(config);
+        SmartConnection connection = new SmartConnection(backendConnection, session, registry, rowSetCache(config), queryCache,
+                keyBuilder);
+        connection.setNormalizeLiterals(config.isNormalizeLiterals());
+        connection.setAdaptiveTtls(adaptiveTtls.get(config));
+        if (config.getMetrics().getTopQueries() > 0) {
+            connection.setQueryMeters(queryMeters.computeIfAbsent(config, this::queryMeters));
+        }
+        if (config.getMetrics().isEnabled() && config.getMetrics().isSketches()) {
+            connection.setLatencySketches(latencySketches.computeIfAbsent(config, this::latencySketches));
+        }
+        if (config.getCache().getWarmup().isEnabled()) {
+            connection.setHotKeyTracker(hotKeyTrackers.computeIfAbsent(config, this::hotKeyTracker));
+        }
+        if (config.getCache().getAuto().isEnabled()) {
+            autoCachePlanners.computeIfAbsent(config, this::autoCachePlanner);
+        }
+        return connection;
     }
 
-    private RowSetCache rowSetCache(Config config) {
+    private AutoCachePlanner autoCachePlanner(Config config) {
+        Duration step = Duration.ofMillis(config.getMetrics().getStep().toMillis());
+        AutoCachePlanner planner = new AutoCachePlanner(config.getCache().getAuto(), registryManager.getRegistry(config),
+                ruleSessionManager.getConfigManager(config), step);
+        planner.start();
+        return planner;
+    }
+
+    private HotKeyTracker hotKeyTracker(Config config) {
+        WarmupConfig warmupConfig = config.getCache().getWarmup();
         AbstractRedisClient client = clientManager.getClient(cacheRedisConfig(config));
+        KeyBuilder keyBuilder = KeyBuilder.of(config).sub(KEYSPACE_HOT_KEYS);
+        Duration flushInterval = Duration.ofMillis(warmupConfig.getFlushInterval().toMillis());
+        Duration decayInterval = Duration.ofMillis(warmupConfig.getDecayInterval().toMillis());
+        return new HotKeyTracker(client, keyBuilder, warmupConfig.getCapacity(), flushInterval, decayInterval);
+    }
+
+    private CacheWarmer cacheWarmer(Config config, Properties info) {
+        WarmupConfig warmupConfig = config.getCache().getWarmup();
+        HotKeyTracker tracker = hotKeyTrackers.computeIfAbsent(config, this::hotKeyTracker);
+        CacheWarmer warmer = new CacheWarmer(tracker, warmupConfig.isReexecute(), warmupConfig.getRate());
+        try {
+            warmer.warmUp(makeConnection(config, backendConnection(config.getDriver(), info)));
+        } catch (SQLException e) {
+            log.log(Level.WARNING, "Could not create warm-up connection", e);
+        }
+        return warmer;
+    }
+
+    private RowSetCache rowSetCache(Config config) {
+        CacheConfig cacheConfig = config.getCache();
+        switch (cacheConfig.getType()) {
+            case LOCAL:
+                return localRowSetCache(config);
+            case TIERED:
+                long localTtl = cacheConfig.getLocal().getTtl().toMillis();
+                return new TieredRowSetCache(localRowSetCache(config), redisRowSetCache(config), localTtl);
+            default:
+                return redisRowSetCache(config);
+        }
+    }
+
+    private LocalRowSetCache localRowSetCache(Config config) {
+        ByteStore store = localStores.computeIfAbsent(config, this::localStore);
+        LocalTableIndex tableIndex = null;
+        if (config.getCache().isInvalidation()) {
+            tableIndex = localTableIndexes.computeIfAbsent(config, c -> new LocalTableIndex(store));
+        }
+        return new LocalRowSetCache(store, resultSetCodec(config.getCache()), tableIndex);
+    }
+
+    /**
+     * Local stores are shared by all connections with the same config so that the memory bound applies to the whole process.
+     * Each config gets its own subdirectory of the disk cache directory, named after the config.
+     */
+    private ByteStore localStore(Config config) {
+        LocalCacheConfig localConfig = config.getCache().getLocal();
+        ByteStore store = memoryStore(localConfig);
+        DiskCacheConfig diskConfig = localConfig.getDisk();
+        if (diskConfig.isEnabled()) {
+            Path directory = Paths.get(diskConfig.getDirectory()).resolve(directoryName(config.getName()));
+            try {
+                // Entries written before a restart are not in the table index: they are not kept longer than the local TTL
+                long loadedTtl = config.getCache().isInvalidation() ? localConfig.getTtl().toMillis() : 0;
+                MappedByteStore disk = new MappedByteStore(directory, diskConfig.getMaxSize().toBytes(),
+                        Math.toIntExact(diskConfig.getSegmentSize().toBytes()), loadedTtl);
+                store = new TieredByteStore(store, disk);
+            } catch (IOException e) {
+                store.close();
+                throw new IllegalStateException("Could not open disk cache in " + directory, e);
+            }
+        }
+        store.bindTo(registryManager.getRegistry(config));
+        return store;
+    }
+
+    private static String directoryName(String configName) {
+        return configName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static ByteStore memoryStore(LocalCacheConfig config) {
+        long maxSize = config.getMaxSize().toBytes();
+        if (config.getStorage() == LocalStorage.OFF_HEAP) {
+            return new OffHeapByteStore(maxSize, Math.toIntExact(config.getSlabSize().toBytes()));
+        }
+        return new HeapByteStore(maxSize);
+    }
+
+    private RowSetCache redisRowSetCache(Config config) {
+        RedisConfig redisConfig = cacheRedisConfig(config);
+        AbstractRedisClient client = clientManager.getClient(redisConfig);
         RedisCodec<String, RowSet> codec = resultSetCodec(config.getCache());
-        Duration oomRetryInterval = Duration.ofMillis(config.getCache().getOomRetryInterval().toMillis());
-        return new RedisRowSetCache(client, codec, oomRetryInterval);
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(redisConfig, c -> circuitBreaker(config));
+        BackoffController backoff = backoffControllers.computeIfAbsent(redisConfig,
+                c -> backoffController(config.getCache(), client));
+        RedisRowSetCache cache = new RedisRowSetCache(client, codec, circuitBreaker, backoff);
+        readFroms.computeIfAbsent(redisConfig, Driver::readFrom).ifPresent(cache::setReadFrom);
+        if (config.getCache().getWriteBehind().isEnabled()) {
+            cache.setWriteBehind(writeBehindBatchers.computeIfAbsent(redisConfig,
+                    c -> writeBehindBatcher(config, client, circuitBreaker, backoff)));
+        }
+        if (config.getCache().isInvalidation()) {
+            cache.setTableIndex(tableIndexes.computeIfAbsent(config,
+                    c -> new TableIndex(client, KeyBuilder.of(config).sub(KEYSPACE_TABLES))));
+        }
+        return cache;
+    }
+
+    /**
+     * Write-behind batchers are shared by all connections to the same cache Redis so that writes from all statements are
+     * coalesced into the same pipelined batches.
+     */
+    private WriteBehindBatcher writeBehindBatcher(Config config, AbstractRedisClient client, CircuitBreaker circuitBreaker,
+            BackoffController backoff) {
+        WriteBehindConfig writeBehindConfig = config.getCache().getWriteBehind();
+        Duration flushInterval = Duration.ofMillis(writeBehindConfig.getFlushInterval().toMillis());
+        WriteBehindBatcher batcher = new WriteBehindBatcher(client, circuitBreaker, backoff,
+                writeBehindConfig.getBatchSize(), flushInterval, writeBehindConfig.getQueueCapacity());
+        batcher.bindTo(registryManager.getRegistry(config));
+        return batcher;
+    }
+
+    /**
+     * Validated once per Redis configuration so that a ReadFrom setting that does not apply is reported once rather than on
+     * every connection.
+     */
+    private static Optional<ReadFrom> readFrom(RedisConfig config) {
+        if (config.getReadFrom() == null || config.getReadFrom().isEmpty()) {
+            return Optional.empty();
+        }
+        ReadFrom readFrom = readFrom(config.getReadFrom());
+        if (config.isCluster()) {
+            return Optional.of(readFrom);
+        }
+        log.log(Level.WARNING, "ReadFrom {0} ignored: only supported with Redis Cluster", readFrom);
+        return Optional.empty();
+    }
+
+    /**
+     * Accepts both Lettuce names (e.g. replicaPreferred) and constant names (e.g. REPLICA_PREFERRED).
+     *
+     * @param name the ReadFrom setting name
+     * @return the Lettuce ReadFrom setting with the given name
+     * @throws IllegalArgumentException if the name is not a valid ReadFrom setting
+     */
+    public static ReadFrom readFrom(String name) {
+        return ReadFrom.valueOf(name.replace("_", ""));
+    }
+
+    private BackoffController backoffController(CacheConfig config, AbstractRedisClient client) {
+        Duration initialDelay = Duration.ofMillis(config.getOomRetryInterval().toMillis());
+        Duration maxDelay = Duration.ofMillis(config.getOomMaxRetryInterval().toMillis());
+        Duration probeInterval = Duration.ofMillis(config.getMemoryProbeInterval().toMillis());
+        if (config.getMemoryThreshold() <= 0) {
+            return new BackoffController(initialDelay, maxDelay);
+        }
+        return new BackoffController(initialDelay, maxDelay, client, config.getMemoryThreshold(), probeInterval);
+    }
+
+    /**
+     * Circuit breakers are shared by all connections to the same cache Redis so that an outage is detected once rather than
+     * per connection.
+     */
+    private CircuitBreaker circuitBreaker(Config config) {
+        CircuitBreakerConfig breakerConfig = config.getCache().getCircuitBreaker();
+        Duration waitDuration = Duration.ofMillis(breakerConfig.getWaitDuration().toMillis());
+        CircuitBreaker circuitBreaker = new CircuitBreaker(breakerConfig.getFailureThreshold(), waitDuration);
+        circuitBreaker.bindTo(registryManager.getRegistry(config));
+        return circuitBreaker;
+    }
+
+    private QueryMeters queryMeters(Config config) {
+        MetricsConfig metrics = config.getMetrics();
+        return new QueryMeters(registryManager.getRegistry(config), metrics.getTopQueries(), metrics.getMaxQueries());
+    }
+
+    private LatencySketches latencySketches(Config config) {
+        MetricsConfig metrics = config.getMetrics();
+        AbstractRedisClient client = clientManager.getClient(config.getRedis());
+        KeyBuilder keyBuilder = KeyBuilder.of(config).sub(KEYSPACE_SKETCHES);
+        Duration step = Duration.ofMillis(metrics.getStep().toMillis());
+        Duration retention = Duration.ofMillis(metrics.getSketchRetention().toMillis());
+        return new LatencySketches(client, keyBuilder, step, retention);
     }
 
     private RedisConfig cacheRedisConfig(Config config) {
@@ -154,7 +483,9 @@ public class Driver implements java.sql.Driver {
         return config.getCache().getRedis();
     }
 
-    private Map<String, Query> createQueryCache(Config config) {
+    private static Map<String, Query> createQueryCache(Config config) {
+        // Query caches are created once per config, as are their registries which get the shared parse cache meters
+        SQLParseCache.getInstance().bindTo(registryManager.getRegistry(config));
         return Collections.synchronizedMap(new EvictingLinkedHashMap<>(config.getQueryCacheCapacity()));
     }
 
@@ -180,17 +511,21 @@ public class Driver implements java.sql.Driver {
         return driver.connect(url, backendInfo);
     }
 
-    public synchronized java.sql.Driver backendDriver(String className) throws SQLException {
+    public java.sql.Driver backendDriver(String className) throws SQLException {
         if (className == null || className.isEmpty()) {
             throw new SQLException("No backend driver class specified");
         }
-        java.sql.Driver driver;
+        java.sql.Driver driver = backendDrivers.get(className);
+        if (driver != null) {
+            return driver;
+        }
         try {
             driver = (java.sql.Driver) Class.forName(className).getConstructor().newInstance();
         } catch (Exception e) {
             throw new SQLException("Could not load backend driver class '" + className + "'", e);
         }
-        return driver;
+        java.sql.Driver existing = backendDrivers.putIfAbsent(className, driver);
+        return existing == null ? driver : existing;
     }
 
     @Override
@@ -258,9 +593,33 @@ public class Driver implements java.sql.Driver {
     }
 
     public static void clear() throws Exception {
+        autoCachePlanners.values().forEach(AutoCachePlanner::close);
+        autoCachePlanners.clear();
         ruleSessionManager.close();
+        writeBehindBatchers.values().forEach(WriteBehindBatcher::close);
+        writeBehindBatchers.clear();
+        cacheWarmers.values().forEach(CacheWarmer::close);
+        cacheWarmers.clear();
+        hotKeyTrackers.values().forEach(HotKeyTracker::close);
+        hotKeyTrackers.clear();
+        tableIndexes.values().forEach(TableIndex::close);
+        tableIndexes.clear();
+        latencySketches.values().forEach(LatencySketches::close);
+        latencySketches.clear();
+        localTableIndexes.clear();
+        localStores.values().forEach(ByteStore::close);
+        localStores.clear();
         registryManager.close();
         queryCaches.clear();
+        queryMeters.values().forEach(QueryMeters::close);
+        queryMeters.clear();
+        adaptiveTtls.clear();
+        configs.clear();
+        backendDrivers.clear();
+        circuitBreakers.clear();
+        readFroms.clear();
+        backoffControllers.values().forEach(BackoffController::close);
+        backoffControllers.clear();
         clientManager.close();
     }
 
@@ -0,0 +1,139 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import com.redis.smartcache.core.HotKeyTracker;
+import com.redis.smartcache.core.HotQuery;
+
+import io.lettuce.core.RedisException;
+
+/**
+ * Loads the hot keys recorded by a {@link HotKeyTracker} into the local tier of the cache and, optionally, executes again the
+ * hot queries whose results are no longer cached. Executions run in a background thread at a limited rate so that the
+ * database is not hit by a burst of queries.
+ */
+public class CacheWarmer implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(CacheWarmer.class.getName());
+
+    private static final String THREAD_NAME = "smartcache-warmup";
+
+    private final HotKeyTracker tracker;
+
+    private final boolean reexecute;
+
+    private final long interval;
+
+    private volatile boolean running = true;
+
+    /**
+     *
+     * @param tracker the tracker to read hot keys from
+     * @param reexecute true to execute again hot queries whose results are not cached
+     * @param rate max number of queries executed per second
+     */
+    public CacheWarmer(HotKeyTracker tracker, boolean reexecute, double rate) {
+        this.tracker = tracker;
+        this.reexecute = reexecute;
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Loads hot keys into the cache of the given connection, then executes again the hot queries that are not cached in a
+     * background thread if enabled. The connection is closed once done.
+     *
+     * @param connection connection dedicated to the warm-up
+     */
+    public void warmUp(SmartConnection connection) {
+        // Warm-up executions are not uses
+        connection.setHotKeyTracker(null);
+        List<HotQuery> queries;
+        Collection<String> missing;
+        try {
+            queries = tracker.hotQueries();
+            missing = connection.getRowSetCache()
+                    .preload(queries.stream().map(HotQuery::getKey).collect(Collectors.toList()));
+        } catch (RedisException e) {
+            log.log(Level.WARNING, "Could not load hot keys", e);
+            close(connection);
+            return;
+        }
+        log.log(Level.FINE, "{0} of {1} hot keys are cached",
+                new Object[] { queries.size() - missing.size(), queries.size() });
+        List<HotQuery> executions = new ArrayList<>();
+        if (reexecute) {
+            Set<String> missingKeys = new HashSet<>(missing);
+            for (HotQuery query : queries) {
+                if (query.isExecutable() && missingKeys.contains(query.getKey())) {
+                    executions.add(query);
+                }
+            }
+        }
+        if (executions.isEmpty()) {
+            close(connection);
+            return;
+        }
+        Thread thread = new Thread(() -> execute(connection, executions), THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void execute(SmartConnection connection, List<HotQuery> queries) {
+        int count = 0;
+        for (HotQuery query : queries) {
+            if (!running) {
+                break;
+            }
+            try {
+                execute(connection, query);
+                count++;
+            } catch (SQLException e) {
+                log.log(Level.FINE, "Could not execute hot query " + query.getSql(), e);
+            }
+            LockSupport.parkNanos(this, interval);
+        }
+        log.log(Level.FINE, "Executed {0} of {1} hot queries", new Object[] { count, queries.size() });
+        close(connection);
+    }
+
+    private void execute(SmartConnection connection, HotQuery query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query.getSql())) {
+            for (Map.Entry<Integer, Object> parameter : query.getParameters().entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                // Results are cached by the statement
+            }
+        }
+    }
+
+    private void close(SmartConnection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.log(Level.FINE, "Could not close warm-up connection", e);
+        }
+    }
+
+    /**
+     * Stops background executions after the current one.
+     */
+    @Override
+    public void close() {
+        running = false;
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.redis.smartcache.jdbc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Lexer replacing the literals of a SQL statement with {@code ?} placeholders, so that statements differing only by their
+ * literals share the same shape. Quoted identifiers and comments are skipped, and literals whose replacement could change how
+ * the statement is parsed (typed literals like {@code DATE '2023-05-01'}, prefixed strings like {@code N'abc'}, numbers
+ * attached to identifiers) are kept as is.
+ */
+public class LiteralNormalizer {
+
+    private static final String[] TYPE_KEYWORDS = { "DATE", "TIME", "TIMESTAMP", "INTERVAL" };
+
+    private LiteralNormalizer() {
+    }
+
+    /**
+     *
+     * @param sql the SQL statement to normalize
+     * @return the normalized statement, or null if the statement could not be lexed, e.g. because of an unterminated string
+     */
+    public static NormalizedSql normalize(String sql) {
+        StringBuilder shape = null;
+        SortedMap<Integer, Object> literals = null;
+        List<String> tokens = null;
+        int copied = 0;
+        int length = sql.length();
+        int index = 0;
+        while (index < length) {
+            char c = sql.charAt(index);
+            int end;
+            Object literal = null;
+            if (c == '\'') {
+                end = endOfQuoted(sql, index, '\'');
+                if (end < 0) {
+                    return null;
+                }
+                if (isReplaceableString(sql, index)) {
+                    literal = sql.substring(index + 1, end - 1).replace("''", "'");
+                }
+            } else if (c == '"' || c == '`') {
+                end = endOfQuoted(sql, index, c);
+                if (end < 0) {
+                    return null;
+                }
+            } else if (c == '[') {
+                // Bracketed identifier, or array subscript left as is
+                end = sql.indexOf(']', index);
+                if (end < 0) {
+                    return null;
+                }
+                end++;
+            } else if (c == '-' && next(sql, index) == '-') {
+                end = sql.indexOf('\n', index);
+                end = end < 0 ? length : end;
+            } else if (c == '/' && next(sql, index) == '*') {
+                end = sql.indexOf("*/", index + 2);
+                if (end < 0) {
+                    return null;
+                }
+                end += 2;
+            } else if (isNumberStart(sql, index)) {
+                end = endOfNumber(sql, index);
+                if (end < length && isIdentifierPart(sql.charAt(end))) {
+                    // e.g. 1abc or 0x1F
+                    end = endOfIdentifier(sql, end);
+                } else {
+                    literal = number(sql.substring(index, end));
+                }
+            } else if (isIdentifierPart(c)) {
+                end = endOfIdentifier(sql, index);
+            } else {
+                end = index + 1;
+            }
+            if (literal != null) {
+                if (shape == null) {
+                    shape = new StringBuilder(length);
+                    literals = new TreeMap<>();
+                    tokens = new ArrayList<>();
+                }
+                shape.append(sql, copied, index).append('?');
+                literals.put(literals.size() + 1, literal);
+                tokens.add(sql.substring(index, end));
+                copied = end;
+            }
+            index = end;
+        }
+        if (shape == null) {
+            return new NormalizedSql(sql, Collections.emptySortedMap(), Collections.emptyList());
+        }
+        shape.append(sql, copied, length);
+        return new NormalizedSql(shape.toString(), literals, tokens);
+    }
+
+    private static char next(String sql, int index) {
+        return index + 1 < sql.length() ? sql.charAt(index + 1) : 0;
+    }
+
+    /**
+     *
+     * @return the index after the closing quote, or -1 if the quoted text is not terminated. Doubled quotes are escapes.
+     */
+    private static int endOfQuoted(String sql, int start, char quote) {
+        int index = start + 1;
+        while (index < sql.length()) {
+            if (sql.charAt(index) == quote) {
+                if (next(sql, index) != quote) {
+                    return index + 1;
+                }
+                index++;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static boolean isReplaceableString(String sql, int start) {
+        if (start > 0 && isIdentifierPart(sql.charAt(start - 1))) {
+            // Prefixed string, e.g. N'abc', E'abc' or X'1F'
+            return false;
+        }
+        int end = start;
+        while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+            end--;
+        }
+        int begin = end;
+        while (begin > 0 && isIdentifierPart(sql.charAt(begin - 1))) {
+            begin--;
+        }
+        for (String keyword : TYPE_KEYWORDS) {
+            if (keyword.length() == end - begin && sql.regionMatches(true, begin, keyword, 0, keyword.length())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumberStart(String sql, int index) {
+        char c = sql.charAt(index);
+        boolean digit = isDigit(c) || (c == '.' && isDigit(next(sql, index)));
+        if (!digit) {
+            return false;
+        }
+        if (index == 0) {
+            return true;
+        }
+        char previous = sql.charAt(index - 1);
+        // Parts of identifiers or qualified names, e.g. t1 or a.1
+        return !isIdentifierPart(previous) && previous != '.';
+    }
+
+    private static int endOfNumber(String sql, int start) {
+        int index = start;
+        int length = sql.length();
+        while (index < length && isDigit(sql.charAt(index))) {
+            index++;
+        }
+        if (index < length && sql.charAt(index) == '.') {
+            index++;
+            while (index < length && isDigit(sql.charAt(index))) {
+                index++;
+            }
+        }
+        if (index < length && (sql.charAt(index) == 'e' || sql.charAt(index) == 'E')) {
+            int exponent = index + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && isDigit(sql.charAt(exponent))) {
+                index = exponent;
+                while (index < length && isDigit(sql.charAt(index))) {
+                    index++;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static int endOfIdentifier(String sql, int start) {
+        int index = start;
+        while (index < sql.length() && isIdentifierPart(sql.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@' || c == '#';
+    }
+
+    private static Object number(String text) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0 && text.length() < 19) {
+            return Long.valueOf(text);
+        }
+        return new BigDecimal(text);
+    }
+
+    /**
+     * SQL statement with literals replaced by placeholders, along with the literals by placeholder index and as written in the
+     * statement.
+     */
+    public static class NormalizedSql {
+
+        private final String sql;
+
+        private final SortedMap<Integer, Object> literals;
+
+        private final List<String> tokens;
+
+        public NormalizedSql(String sql, SortedMap<Integer, Object> literals, List<String> tokens) {
+            this.sql = sql;
+            this.literals = literals;
+            this.tokens = tokens;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Map<Integer, Object> getLiterals() {
+            return literals;
+        }
+
+        /**
+         *
+         * @return the literals as written in the statement, e.g. {@code 1} or {@code '1'}, which unlike their values tell
+         *         strings from numbers
+         */
+        public List<String> getTokens() {
+            return tokens;
+        }
+
+    }
+
+}
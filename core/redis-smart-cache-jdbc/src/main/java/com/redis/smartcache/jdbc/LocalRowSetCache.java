@@ -0,0 +1,106 @@
+package com.redis.smartcache.jdbc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.RowSet;
+
+import com.redis.smartcache.core.LocalTableIndex;
+import com.redis.smartcache.core.store.ByteStore;
+
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * RowSetCache keeping encoded RowSets in a {@link ByteStore} held by the application process. RowSets are encoded with the same
+ * codec as {@link RedisRowSetCache} so that memory usage is bounded by the encoded size of the results, not by their object
+ * graph.
+ * <p>
+ * RowSets put with their tables are recorded in a {@link LocalTableIndex}, if any, so that they are evicted when one of their
+ * tables is written to.
+ */
+public class LocalRowSetCache implements RowSetCache {
+
+    private final ByteStore store;
+
+    private final RedisCodec<String, RowSet> codec;
+
+    private final LocalTableIndex tableIndex;
+
+    /**
+     * 
+     * @param store the store, usually shared by all connections using the same config
+     * @param codec codec used to encode and decode RowSets
+     */
+    public LocalRowSetCache(ByteStore store, RedisCodec<String, RowSet> codec) {
+        this(store, codec, null);
+    }
+
+    /**
+     * 
+     * @param store the store, usually shared by all connections using the same config
+     * @param codec codec used to encode and decode RowSets
+     * @param tableIndex the index of the store, shared like the store, or null to not index RowSets by table
+     */
+    public LocalRowSetCache(ByteStore store, RedisCodec<String, RowSet> codec, LocalTableIndex tableIndex) {
+        this.store = store;
+        this.codec = codec;
+        this.tableIndex = tableIndex;
+    }
+
+    @Override
+    public RowSet get(String key) {
+        return store.get(key, codec::decodeValue);
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis) {
+        store.put(key, codec.encodeValue(rowSet), ttlMillis);
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis, Collection<String> tables) {
+        if (store.put(key, codec.encodeValue(rowSet), ttlMillis) && tableIndex != null && !tables.isEmpty()) {
+            tableIndex.add(key, tables, ttlMillis);
+        }
+    }
+
+    @Override
+    public void invalidate(Collection<String> tables) {
+        if (tableIndex != null) {
+            tableIndex.invalidate(tables);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        if (tableIndex != null) {
+            tableIndex.invalidateAll();
+        }
+    }
+
+    @Override
+    public Collection<String> preload(Collection<String> keys) {
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (store.get(key, bytes -> Boolean.TRUE) == null) {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    public ByteStore getStore() {
+        return store;
+    }
+
+    /**
+     * Does nothing: the store is shared with other connections and closed by its owner.
+     */
+    @Override
+    public void close() {
+        // Store is closed by the driver
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Metadata parsed from the text of a SQL statement.
+ */
+public class ParsedSql {
+
+    private final Set<String> tables;
+
+    private final StatementKind kind;
+
+    public ParsedSql(Set<String> tables, StatementKind kind) {
+        this.tables = Collections.unmodifiableSet(tables);
+        this.kind = kind;
+    }
+
+    /**
+     *
+     * @return names of the tables referenced by the statement
+     */
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    public StatementKind getKind() {
+        return kind;
+    }
+
+    /**
+     *
+     * @return true if the statement only reads data
+     */
+    public boolean isReadOnly() {
+        return kind.isReadOnly();
+    }
+
+}
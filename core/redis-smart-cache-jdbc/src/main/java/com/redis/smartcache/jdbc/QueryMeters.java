@@ -0,0 +1,283 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.redis.smartcache.core.Fields;
+import com.redis.smartcache.core.Query;
+import com.redis.smartcache.core.TopK;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Decides under which query ID executions are metered. By default every query has its own meters. When bounded, only the
+ * hottest queries according to a {@link TopK} sketch get their own meters, up to a max number of queries, and the long tail
+ * is metered together under the {@value Fields#ID_OTHER} ID, so that the number of meters, and of time series published
+ * every step, does not grow with the number of distinct queries.
+ * <p>
+ * Recording an execution only increments a counter of a concurrent map. Counts are added to the sketch every second by a
+ * background thread, which admits the queries that became top and removes the meters of the queries that made room for them,
+ * so that a query is metered individually from the first reconcile after it became top. A query keeps its meters when it
+ * drops out of the top queries, until room is needed for a new top query.
+ * <p>
+ * Meters of a query must be registered through {@link #meter(String, Function)}, which registers them under
+ * {@value Fields#ID_OTHER} once the query lost its meters, so that the max number of queries holds even for statements
+ * still holding the ID of the query.
+ */
+public class QueryMeters implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(QueryMeters.class.getName());
+
+    private static final String THREAD_NAME = "smartcache-query-meters";
+
+    private static final long RECONCILE_INTERVAL_MILLIS = 1000;
+
+    private static final int TRACKED_QUERIES_FACTOR = 10;
+
+    private final MeterRegistry registry;
+
+    private final TopK topK;
+
+    private final int maxQueries;
+
+    private final int maxCountedQueries;
+
+    private final Set<String> metered = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, LongAdder> executions = new ConcurrentHashMap<>();
+
+    /**
+     * Held for writing while queries lose their meters
+     */
+    private final StampedLock lock = new StampedLock();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Meters every query individually.
+     */
+    public QueryMeters(MeterRegistry registry) {
+        this.registry = registry;
+        this.topK = null;
+        this.maxQueries = Integer.MAX_VALUE;
+        this.maxCountedQueries = 0;
+        this.executor = null;
+    }
+
+    /**
+     *
+     * @param registry registry holding query meters
+     * @param topQueries number of hottest queries metered individually
+     * @param maxQueries max number of queries metered individually, raised to topQueries if lower
+     */
+    public QueryMeters(MeterRegistry registry, int topQueries, int maxQueries) {
+        this.registry = registry;
+        this.topK = new TopK(topQueries, topQueries * TRACKED_QUERIES_FACTOR);
+        this.maxQueries = Math.max(topQueries, maxQueries);
+        this.maxCountedQueries = topQueries * TRACKED_QUERIES_FACTOR * TRACKED_QUERIES_FACTOR;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::safeReconcile, RECONCILE_INTERVAL_MILLIS, RECONCILE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isBounded() {
+        return topK != null;
+    }
+
+    /**
+     *
+     * @return the ID the given query is currently metered under, without recording an execution
+     */
+    public String id(Query query) {
+        String id = query.getId();
+        if (topK == null) {
+            return id;
+        }
+        return metered.contains(id) ? id : Fields.ID_OTHER;
+    }
+
+    /**
+     * Records an execution of the given query. Queries first executed while {@code maxCountedQueries} queries are already
+     * counted since the last reconcile are not counted.
+     *
+     * @return the ID to meter the execution under: the ID of the query, or {@value Fields#ID_OTHER}
+     */
+    public String record(Query query) {
+        String id = query.getId();
+        if (topK == null) {
+            return id;
+        }
+        LongAdder count = executions.get(id);
+        if (count == null && executions.size() < maxCountedQueries) {
+            count = executions.computeIfAbsent(id, k -> new LongAdder());
+        }
+        if (count != null) {
+            count.increment();
+        }
+        return metered.contains(id) ? id : Fields.ID_OTHER;
+    }
+
+    /**
+     * Gets or registers a meter of the given query ID. The meter is registered under {@value Fields#ID_OTHER} instead if the
+     * query is no longer metered individually.
+     *
+     * @param <M> the meter type
+     * @param id the ID the query was metered under when the execution was recorded
+     * @param registration registers the meter under the given ID, or returns the meter already registered
+     * @return the meter to record the execution with
+     */
+    public <M extends Meter> M meter(String id, Function<String, M> registration) {
+        if (topK == null || Fields.ID_OTHER.equals(id)) {
+            return registration.apply(id);
+        }
+        M meter = null;
+        long stamp = lock.tryOptimisticRead();
+        if (metered.contains(id)) {
+            meter = registration.apply(id);
+            if (lock.validate(stamp)) {
+                return meter;
+            }
+        }
+        // The query might have lost its meters while the meter was registered
+        stamp = lock.readLock();
+        try {
+            if (metered.contains(id)) {
+                return meter == null ? registration.apply(id) : meter;
+            }
+            if (meter != null) {
+                remove(meter.getId());
+            }
+            return registration.apply(Fields.ID_OTHER);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void safeReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Could not reconcile query meters", e);
+        }
+    }
+
+    /**
+     * Adds the executions recorded since the last reconcile to the sketch, meters the queries that became top individually
+     * and removes the meters of the queries that made room for them. Called periodically by a background thread.
+     */
+    public synchronized void reconcile() {
+        if (topK == null) {
+            return;
+        }
+        for (String id : executions.keySet()) {
+            LongAdder count = executions.remove(id);
+            if (count != null && count.sum() > 0) {
+                topK.offer(id, count.sum());
+            }
+        }
+        List<String> admitted = new ArrayList<>();
+        for (String id : topK.top()) {
+            if (!metered.contains(id)) {
+                admitted.add(id);
+            }
+        }
+        if (admitted.isEmpty()) {
+            return;
+        }
+        if (evict(metered.size() + admitted.size() - maxQueries)) {
+            removeUnmeteredMeters();
+        }
+        for (String id : admitted) {
+            if (metered.size() >= maxQueries) {
+                break;
+            }
+            metered.add(id);
+        }
+    }
+
+    /**
+     * Removes up to the given number of queries that are no longer top from the metered ones.
+     *
+     * @return true if a query was removed
+     */
+    private boolean evict(int count) {
+        if (count <= 0) {
+            return false;
+        }
+        boolean evicted = false;
+        long stamp = lock.writeLock();
+        try {
+            Iterator<String> iterator = metered.iterator();
+            for (int removed = 0; removed < count && iterator.hasNext();) {
+                if (!topK.isTop(iterator.next())) {
+                    iterator.remove();
+                    evicted = true;
+                    removed++;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes the meters of queries that are not metered individually, out of the lock: meters registered concurrently for
+     * these queries are removed by {@link #meter(String, Function)}.
+     */
+    private void removeUnmeteredMeters() {
+        List<Meter.Id> ids = new ArrayList<>();
+        for (Meter meter : registry.getMeters()) {
+            String id = meter.getId().getTag(Fields.TAG_ID);
+            if (id != null && !Fields.ID_OTHER.equals(id) && !metered.contains(id)) {
+                ids.add(meter.getId());
+            }
+        }
+        ids.forEach(this::remove);
+    }
+
+    private void remove(Meter.Id meterId) {
+        registry.remove(meterId);
+        if (registry instanceof CompositeMeterRegistry) {
+            ((CompositeMeterRegistry) registry).getRegistries().forEach(r -> r.remove(meterId));
+        }
+    }
+
+    /**
+     *
+     * @return IDs of the queries currently metered individually when bounded
+     */
+    public Set<String> getMeteredQueries() {
+        return new HashSet<>(metered);
+    }
+
+    /**
+     * Stops the reconcile thread.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+}
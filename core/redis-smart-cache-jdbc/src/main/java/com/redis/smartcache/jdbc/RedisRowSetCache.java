@@ -1,62 +1,274 @@
 package com.redis.smartcache.jdbc;
 
-import java.text.MessageFormat;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.sql.RowSet;
 
 import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
 import com.redis.lettucemod.util.RedisModulesUtils;
+import com.redis.smartcache.core.BackoffController;
+import com.redis.smartcache.core.CircuitBreaker;
+import com.redis.smartcache.core.CircuitBreaker.State;
+import com.redis.smartcache.core.TableIndex;
+import com.redis.smartcache.core.WriteBehindBatcher;
+import com.redis.smartcache.core.config.CircuitBreakerConfig;
 
 import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.ReadFrom;
 import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.codec.RedisCodec;
 
 public class RedisRowSetCache implements RowSetCache {
 
     private static final Logger log = Logger.getLogger(RedisRowSetCache.class.getName());
 
-    private static final String ERROR_OOM = "OOM command not allowed";
-
     private final StatefulRedisModulesConnection<String, RowSet> connection;
 
-    private final long oomRetryInterval;
+    private final RedisCodec<String, RowSet> codec;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final BackoffController backoff;
+
+    private WriteBehindBatcher writeBehind;
 
-    private long nextOOMCheck;
+    private TableIndex tableIndex;
 
     public RedisRowSetCache(AbstractRedisClient client, RedisCodec<String, RowSet> codec, Duration oomRetryInterval) {
+        this(client, codec,
+                new CircuitBreaker(CircuitBreakerConfig.DEFAULT_FAILURE_THRESHOLD,
+                        Duration.ofMillis(CircuitBreakerConfig.DEFAULT_WAIT_DURATION.toMillis())),
+                new BackoffController(oomRetryInterval, oomRetryInterval));
+    }
+
+    public RedisRowSetCache(AbstractRedisClient client, RedisCodec<String, RowSet> codec, CircuitBreaker circuitBreaker,
+            BackoffController backoff) {
         this.connection = RedisModulesUtils.connection(client, codec);
-        this.oomRetryInterval = oomRetryInterval.toMillis();
+        this.codec = codec;
+        this.circuitBreaker = circuitBreaker;
+        this.backoff = backoff;
     }
 
     @Override
     public RowSet get(String key) {
-        if (connection.isOpen()) {
-            return connection.sync().get(key);
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            RowSet rowSet = connection.sync().get(key);
+            circuitBreaker.onSuccess();
+            return rowSet;
+        } catch (RedisException e) {
+            circuitBreaker.onFailure();
+            backoff.log(Level.WARNING, "Could not get rowset from cache.", e);
+            return null;
         }
-        return null;
     }
 
+    /**
+     * Fetches all keys in a single MGET. With Redis Cluster the command is split by hash slot and sent to the relevant nodes in
+     * parallel.
+     */
     @Override
-    public void put(String key, RowSet rowSet, long ttlMillis) {
-        long currentTimeMillis = System.currentTimeMillis();
-        if (connection.isOpen() && currentTimeMillis > nextOOMCheck) {
-            try {
-                doPut(key, rowSet, ttlMillis);
-            } catch (RedisException e) {
-                String message = e.getMessage();
-                if (message != null && message.startsWith(ERROR_OOM)) {
-                    log.log(Level.SEVERE, MessageFormat.format("Redis OOM. Puts disabled for {0} ms.", oomRetryInterval), e);
-                    nextOOMCheck = System.currentTimeMillis() + oomRetryInterval;
-                } else {
-                    log.log(Level.SEVERE, "Could not put rowset in cache", e);
+    public Map<String, RowSet> getAll(Collection<String> keys) {
+        if (keys.isEmpty() || !isAvailable()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<KeyValue<String, RowSet>> values = connection.sync().mget(keys.toArray(new String[0]));
+            circuitBreaker.onSuccess();
+            Map<String, RowSet> rowSets = new HashMap<>();
+            for (KeyValue<String, RowSet> value : values) {
+                if (value.hasValue()) {
+                    rowSets.put(value.getKey(), value.getValue());
+                }
+            }
+            return rowSets;
+        } catch (RedisException e) {
+            circuitBreaker.onFailure();
+            backoff.log(Level.WARNING, "Could not get rowsets from cache.", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Nothing is loaded since there is no local tier: checks which keys exist with pipelined EXISTS commands, one per key so
+     * that keys of different hash slots can be checked with Redis Cluster.
+     *
+     * @throws RedisException if the keys could not be checked
+     */
+    @Override
+    public Collection<String> preload(Collection<String> keys) {
+        if (keys.isEmpty() || !isAvailable()) {
+            return keys;
+        }
+        try {
+            RedisModulesAsyncCommands<String, RowSet> commands = connection.async();
+            Map<String, RedisFuture<Long>> futures = new LinkedHashMap<>();
+            for (String key : keys) {
+                futures.put(key, commands.exists(key));
+            }
+            long timeout = connection.getTimeout().toNanos();
+            List<String> missing = new ArrayList<>();
+            for (Map.Entry<String, RedisFuture<Long>> future : futures.entrySet()) {
+                if (LettuceFutures.awaitOrCancel(future.getValue(), timeout, TimeUnit.NANOSECONDS) == 0) {
+                    missing.add(future.getKey());
                 }
             }
+            circuitBreaker.onSuccess();
+            return missing;
+        } catch (RedisException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis) {
+        if (!backoff.allowWrite()) {
+            return;
+        }
+        if (writeBehind != null) {
+            if (circuitBreaker.getState() != State.OPEN) {
+                writeBehind.offer(key, encode(rowSet), ttlMillis);
+            }
+            return;
+        }
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            doPut(key, rowSet, ttlMillis);
+            circuitBreaker.onSuccess();
+            backoff.onSuccess();
+        } catch (RedisException e) {
+            if (BackoffController.isOom(e)) {
+                // Redis is reachable: only writes back off, reads go on
+                backoff.onOom(e);
+            } else {
+                circuitBreaker.onFailure();
+                backoff.log(Level.WARNING, "Could not put rowset in cache.", e);
+            }
+        }
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis, Collection<String> tables) {
+        put(key, rowSet, ttlMillis);
+        if (tableIndex != null && !tables.isEmpty() && circuitBreaker.getState() != State.OPEN) {
+            tableIndex.add(key, tables, ttlMillis);
         }
     }
 
+    @Override
+    public void invalidate(Collection<String> tables) {
+        if (tableIndex != null && isAvailable()) {
+            invalidate(() -> tables, "Could not invalidate cached results of tables {0}", tables);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        if (tableIndex != null && isAvailable()) {
+            invalidate(tableIndex::tables, "Could not invalidate cached results of all tables");
+        }
+    }
+
+    /**
+     * Queued writes of the invalidated keys are dropped before deleting them so that they do not bring the keys back.
+     */
+    private void invalidate(Supplier<Collection<String>> tables, String failureMessage, Object... parameters) {
+        try {
+            Collection<String> names = tables.get();
+            List<String> keys = tableIndex.keys(names);
+            if (writeBehind != null) {
+                writeBehind.cancel(keys);
+            }
+            tableIndex.delete(names, keys);
+            circuitBreaker.onSuccess();
+        } catch (RedisException e) {
+            circuitBreaker.onFailure();
+            backoff.log(Level.WARNING, failureMessage, e, parameters);
+        }
+    }
+
+    /**
+     * Encodes on the calling thread: the RowSet cursor is repositioned by the caller right after the put.
+     */
+    private byte[] encode(RowSet rowSet) {
+        ByteBuffer buffer = codec.encodeValue(rowSet);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Queues cache writes in the given batcher instead of writing them synchronously.
+     * 
+     * @param writeBehind the batcher shared by all caches writing to the same Redis, or null for synchronous writes
+     */
+    public void setWriteBehind(WriteBehindBatcher writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Records cached keys by table so that they can be invalidated.
+     * 
+     * @param tableIndex the index shared by all caches using the same config, or null to not index keys
+     */
+    public void setTableIndex(TableIndex tableIndex) {
+        this.tableIndex = tableIndex;
+    }
+
+    /**
+     * Routes cache reads according to the given ReadFrom setting. Writes always go to primaries. Only applies to Redis Cluster
+     * connections.
+     * 
+     * @param readFrom the ReadFrom setting for GET commands
+     */
+    @SuppressWarnings("unchecked")
+    public void setReadFrom(ReadFrom readFrom) {
+        if (connection instanceof StatefulRedisClusterConnection) {
+            ((StatefulRedisClusterConnection<String, RowSet>) connection).setReadFrom(readFrom);
+        } else {
+            log.log(Level.WARNING, "ReadFrom {0} ignored: only supported with Redis Cluster", readFrom);
+        }
+    }
+
+    /**
+     * Checks the circuit breaker and the connection state so that no call is attempted (and no timeout is incurred) while
+     * Redis is unreachable.
+     *
+     * @return true if a Redis call can be attempted
+     */
+    private boolean isAvailable() {
+        if (!circuitBreaker.allowRequest()) {
+            return false;
+        }
+        if (connection.isOpen()) {
+            return true;
+        }
+        circuitBreaker.onFailure();
+        return false;
+    }
+
     private void doPut(String key, RowSet rowSet, long ttlMillis) {
         if (ttlMillis > 0) {
             connection.sync().psetex(key, ttlMillis, rowSet);
@@ -65,6 +277,14 @@ public class RedisRowSetCache implements RowSetCache {
         }
     }
 
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public BackoffController getBackoff() {
+        return backoff;
+    }
+
     @Override
     public void close() {
         connection.close();
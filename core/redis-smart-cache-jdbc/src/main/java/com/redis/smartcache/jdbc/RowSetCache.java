@@ -1,5 +1,9 @@
 package com.redis.smartcache.jdbc;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.sql.RowSet;
 
 public interface RowSetCache extends AutoCloseable {
@@ -11,6 +15,73 @@ public interface RowSetCache extends AutoCloseable {
      */
     RowSet get(String key);
 
+    /**
+     * Gets the RowSet with the given key, recording it under the given tables if this cache copies it to another tier.
+     * 
+     * @param key the unique key to get the ResultSet for.
+     * @param tables the tables read by the query of the RowSet
+     * @return RowSet that was retrieved from cache or null if none
+     */
+    default RowSet get(String key, Collection<String> tables) {
+        return get(key);
+    }
+
+    /**
+     * 
+     * @param keys the unique keys to get the ResultSets for.
+     * @return RowSets that were retrieved from cache, by key. Keys that are not in the cache have no entry.
+     */
+    default Map<String, RowSet> getAll(Collection<String> keys) {
+        Map<String, RowSet> rowSets = new HashMap<>();
+        for (String key : keys) {
+            RowSet rowSet = get(key);
+            if (rowSet != null) {
+                rowSets.put(key, rowSet);
+            }
+        }
+        return rowSets;
+    }
+
     void put(String key, RowSet rowSet, long ttlMillis);
 
+    /**
+     * Puts the given RowSet in the cache, recording it under the tables of its query so that it can be invalidated.
+     * 
+     * @param key the unique key of the RowSet
+     * @param rowSet the RowSet to cache
+     * @param ttlMillis time-to-live of the RowSet, or 0 if it does not expire
+     * @param tables the tables read by the query of the RowSet
+     */
+    default void put(String key, RowSet rowSet, long ttlMillis, Collection<String> tables) {
+        put(key, rowSet, ttlMillis);
+    }
+
+    /**
+     * Deletes the RowSets cached for queries reading the given tables. Does nothing if this cache does not index RowSets by
+     * table.
+     * 
+     * @param tables the tables that were written to
+     */
+    default void invalidate(Collection<String> tables) {
+        // RowSets expire with their time-to-live
+    }
+
+    /**
+     * Deletes the RowSets cached for queries reading any table, e.g. after a write whose tables are unknown. Does nothing if
+     * this cache does not index RowSets by table.
+     */
+    default void invalidateAll() {
+        // RowSets expire with their time-to-live
+    }
+
+    /**
+     * Loads the given keys into the local tier of this cache, if it has one, and tells which ones are not cached.
+     * 
+     * @param keys the keys to load
+     * @return keys that are not in the cache, or all keys if this cache cannot tell without fetching them
+     */
+    default Collection<String> preload(Collection<String> keys) {
+        return keys;
+    }
+
 }
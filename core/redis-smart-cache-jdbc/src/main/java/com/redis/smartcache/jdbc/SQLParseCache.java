@@ -0,0 +1,172 @@
+package com.redis.smartcache.jdbc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.redis.smartcache.core.EvictingLinkedHashMap;
+import com.redis.smartcache.core.Fields;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Process-wide, bounded cache of parsed SQL metadata shared by all connections and configs, so that the same statement is
+ * parsed once regardless of which config issues it or whether its query was evicted from a query cache.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the SQL text rather than the text itself. The cache is split into segments, each
+ * evicting its least recently used entries, so that lookups from different threads rarely contend.
+ */
+public class SQLParseCache implements MeterBinder {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    public static final String METER_PARSE = "sql.parse";
+
+    public static final String METER_CACHE_GET = METER_PARSE + ".cache.get";
+
+    public static final String METER_CACHE_SIZE = METER_PARSE + ".cache.size";
+
+    public static final String METER_CACHE_HIT_RATIO = METER_PARSE + ".cache.hit.ratio";
+
+    private static final int SEGMENTS = 16;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final SQLParseCache INSTANCE = new SQLParseCache(DEFAULT_CAPACITY);
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(SQLParseCache::messageDigest);
+
+    private final SQLParser parser = new SQLParser();
+
+    private final Map<Fingerprint, ParsedSql>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder parseNanos = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SQLParseCache(int capacity) {
+        this.segments = new Map[SEGMENTS];
+        int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        for (int index = 0; index < SEGMENTS; index++) {
+            segments[index] = new EvictingLinkedHashMap<>(segmentCapacity);
+        }
+    }
+
+    /**
+     *
+     * @return the cache shared by the whole process
+     */
+    public static SQLParseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     *
+     * @param sql the SQL statement
+     * @return the parsed metadata of the statement, parsing it if not cached
+     */
+    public ParsedSql get(String sql) {
+        Fingerprint fingerprint = new Fingerprint(digest(sql));
+        Map<Fingerprint, ParsedSql> segment = segments[Math.floorMod(fingerprint.hashCode, SEGMENTS)];
+        ParsedSql parsed;
+        synchronized (segment) {
+            parsed = segment.get(fingerprint);
+        }
+        if (parsed != null) {
+            hits.increment();
+            return parsed;
+        }
+        misses.increment();
+        // Parsing happens outside of the lock: concurrent misses for the same statement might parse it more than once
+        long start = System.nanoTime();
+        parsed = new ParsedSql(parser.extractTableNames(sql), StatementKind.of(sql));
+        parseNanos.add(System.nanoTime() - start);
+        synchronized (segment) {
+            segment.put(fingerprint, parsed);
+        }
+        return parsed;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Map<Fingerprint, ParsedSql> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder(METER_PARSE, this, c -> c.misses.sum(), c -> c.parseNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent parsing SQL statements").register(registry);
+        FunctionCounter.builder(METER_CACHE_GET, hits, LongAdder::sum).tag(Fields.TAG_RESULT, Fields.TAG_HIT)
+                .register(registry);
+        FunctionCounter.builder(METER_CACHE_GET, misses, LongAdder::sum).tag(Fields.TAG_RESULT, Fields.TAG_MISS)
+                .register(registry);
+        Gauge.builder(METER_CACHE_SIZE, this, SQLParseCache::size).description("Number of parsed SQL statements")
+                .register(registry);
+        Gauge.builder(METER_CACHE_HIT_RATIO, this, SQLParseCache::hitRatio).register(registry);
+    }
+
+    private static byte[] digest(String sql) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        return digest.digest(sql.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest messageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Fingerprint {
+
+        private final byte[] bytes;
+
+        private final int hashCode;
+
+        private Fingerprint(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            return Arrays.equals(bytes, ((Fingerprint) obj).bytes);
+        }
+
+    }
+
+}
@@ -1,17 +1,13 @@
 package com.redis.smartcache.jdbc;
 
 import java.util.Collections;
-import java.util.Objects;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import io.trino.sql.parser.ParsingException;
 import io.trino.sql.parser.ParsingOptions;
 import io.trino.sql.parser.SqlParser;
-import io.trino.sql.tree.AstVisitor;
 import io.trino.sql.tree.Node;
-import io.trino.sql.tree.QualifiedName;
 import io.trino.sql.tree.Statement;
 import io.trino.sql.tree.Table;
 
@@ -23,54 +19,47 @@ public class SQLParser {
 
     private final SqlParser parser = new SqlParser();
 
+    /**
+     * Extracts table names with {@link TableNameExtractor}, falling back to the full Trino parser for statements the extractor
+     * does not support.
+     *
+     * @param sql the SQL statement
+     * @return names of the tables referenced by the statement
+     */
     public Set<String> extractTableNames(String sql) {
+        Set<String> tableNames = TableNameExtractor.extract(sql);
+        if (tableNames == null) {
+            return parseTableNames(sql);
+        }
+        return tableNames;
+    }
+
+    /**
+     * Extracts table names with the full Trino parser.
+     *
+     * @param sql the SQL statement
+     * @return names of the tables referenced by the statement, or an empty set if it cannot be parsed
+     */
+    public Set<String> parseTableNames(String sql) {
+        Statement statement;
         try {
-            Statement statement = parser.createStatement(sql, PARSING_OPTIONS);
-            Stream<Table> tables = tables(statement);
-            return tableNames(tables);
+            statement = parser.createStatement(sql, PARSING_OPTIONS);
         } catch (ParsingException e) {
             // This statement cannot be parsed. Only rules like regex will trigger
             return EMPTY_TABLE_NAMES;
         }
+        Set<String> tableNames = new HashSet<>();
+        addTableNames(statement, tableNames);
+        return tableNames;
     }
 
-    private Stream<Table> tables(Statement statement) throws ParsingException {
-        return statement.accept(DepthFirstVisitor.by(new TableVisitor()), null);
-    }
-
-    private Set<String> tableNames(Stream<Table> tables) {
-        return tables.map(Table::getName).map(QualifiedName::toString).collect(Collectors.toSet());
-    }
-
-    static class DepthFirstVisitor<R, C> extends AstVisitor<Stream<R>, C> {
-
-        private final AstVisitor<R, C> visitor;
-
-        public DepthFirstVisitor(AstVisitor<R, C> visitor) {
-            this.visitor = visitor;
+    private void addTableNames(Node node, Set<String> tableNames) {
+        if (node instanceof Table) {
+            tableNames.add(((Table) node).getName().toString());
         }
-
-        public static <R, C> DepthFirstVisitor<R, C> by(AstVisitor<R, C> visitor) {
-            return new DepthFirstVisitor<>(visitor);
+        for (Node child : node.getChildren()) {
+            addTableNames(child, tableNames);
         }
-
-        @Override
-        public final Stream<R> visitNode(Node node, C context) {
-            Stream<R> nodeResult = Stream.of(visitor.process(node, context));
-            Stream<R> childrenResult = node.getChildren().stream().flatMap(child -> process(child, context));
-
-            return Stream.concat(nodeResult, childrenResult).filter(Objects::nonNull);
-        }
-
-    }
-
-    static class TableVisitor extends AstVisitor<Table, Object> {
-
-        @Override
-        protected Table visitTable(Table node, Object context) {
-            return node;
-        }
-
     }
 
 }
@@ -15,17 +15,28 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
 
+import javax.sql.RowSet;
+
 import com.redis.smartcache.Driver;
+import com.redis.smartcache.core.AdaptiveTtl;
+import com.redis.smartcache.core.HotKeyTracker;
 import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.LatencySketches;
 import com.redis.smartcache.core.Query;
 import com.redis.smartcache.core.QueryRuleSession;
+import com.redis.smartcache.core.TableIndex;
 
 import io.micrometer.core.instrument.MeterRegistry;
 
@@ -35,8 +46,6 @@ public class SmartConnection implements Connection {
 
     private final UnaryOperator<String> hashFunction = Driver::crc32;
 
-    private final SQLParser parser = new SQLParser();
-
     private final Connection connection;
 
     private final RowSetCache rowSetCache;
@@ -49,6 +58,20 @@ public class SmartConnection implements Connection {
 
     private final Map<String, Query> queryCache;
 
+    private HotKeyTracker hotKeyTracker;
+
+    private QueryMeters queryMeters;
+
+    private LatencySketches latencySketches;
+
+    private Map<String, AdaptiveTtl> adaptiveTtls = new ConcurrentHashMap<>();
+
+    private boolean normalizeLiterals;
+
+    private final Set<String> dirtyTables = new HashSet<>();
+
+    private boolean dirtyUnknownTables;
+
     public SmartConnection(Connection connection, QueryRuleSession session, MeterRegistry meterRegistry,
             RowSetCache rowSetCache, Map<String, Query> queryCache, KeyBuilder keyBuilder) {
         this.connection = connection;
@@ -57,6 +80,7 @@ public class SmartConnection implements Connection {
         this.rowSetCache = rowSetCache;
         this.queryCache = queryCache;
         this.keyBuilder = keyBuilder;
+        this.queryMeters = new QueryMeters(meterRegistry);
     }
 
     public KeyBuilder getKeyBuilder() {
@@ -67,6 +91,43 @@ public class SmartConnection implements Connection {
         return meterRegistry;
     }
 
+    public QueryMeters getQueryMeters() {
+        return queryMeters;
+    }
+
+    /**
+     *
+     * @param queryMeters decides which queries are metered individually, shared by connections of the same config
+     */
+    public void setQueryMeters(QueryMeters queryMeters) {
+        this.queryMeters = queryMeters;
+    }
+
+    public LatencySketches getLatencySketches() {
+        return latencySketches;
+    }
+
+    /**
+     *
+     * @param latencySketches the sketches recording query latencies, or null to only rely on client-side percentiles
+     */
+    public void setLatencySketches(LatencySketches latencySketches) {
+        this.latencySketches = latencySketches;
+    }
+
+    public Map<String, AdaptiveTtl> getAdaptiveTtls() {
+        return adaptiveTtls;
+    }
+
+    /**
+     *
+     * @param adaptiveTtls adaptive TTLs by query ID, shared by connections of the same config. Kept apart from the query cache
+     *        so that learned TTLs are not lost when queries are evicted from it.
+     */
+    public void setAdaptiveTtls(Map<String, AdaptiveTtl> adaptiveTtls) {
+        this.adaptiveTtls = adaptiveTtls;
+    }
+
     public QueryRuleSession getRuleSession() {
         return session;
     }
@@ -75,12 +136,111 @@ public class SmartConnection implements Connection {
         return rowSetCache;
     }
 
+    public HotKeyTracker getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    /**
+     * 
+     * @param hotKeyTracker the tracker recording uses of cache keys, or null to not record them
+     */
+    public void setHotKeyTracker(HotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    public boolean isNormalizeLiterals() {
+        return normalizeLiterals;
+    }
+
+    /**
+     * 
+     * @param normalizeLiterals true to replace literals of static statements with placeholders
+     */
+    public void setNormalizeLiterals(boolean normalizeLiterals) {
+        this.normalizeLiterals = normalizeLiterals;
+    }
+
     public String hash(String string) {
         return hashFunction.apply(string);
     }
 
+    /**
+     * Records a statement executed on this connection. If it is a write, the cached results of its tables are invalidated right
+     * away in auto-commit mode, otherwise its tables are marked dirty until the transaction ends. All cached results are
+     * invalidated if the tables of the write are unknown.
+     * 
+     * @param sql the executed statement
+     */
+    void written(String sql) throws SQLException {
+        if (!StatementKind.of(sql).isWrite()) {
+            return;
+        }
+        Set<String> tables = parse(sql).getTables();
+        if (connection.getAutoCommit()) {
+            if (tables.isEmpty()) {
+                rowSetCache.invalidateAll();
+            } else {
+                invalidate(tables);
+            }
+            return;
+        }
+        if (tables.isEmpty()) {
+            dirtyUnknownTables = true;
+        }
+        for (String table : tables) {
+            dirtyTables.add(TableIndex.unqualified(table));
+        }
+    }
+
+    /**
+     * 
+     * @param tables tables read by a query
+     * @return true if some of the given tables were written to in the current transaction, in which case cached results must
+     *         not be used: they do not reflect the uncommitted writes of this connection
+     */
+    boolean isDirty(Set<String> tables) {
+        if (dirtyTables.isEmpty() && !dirtyUnknownTables) {
+            return false;
+        }
+        if (dirtyUnknownTables || tables.isEmpty()) {
+            return true;
+        }
+        for (String table : tables) {
+            if (dirtyTables.contains(TableIndex.unqualified(table))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates the cached results of the tables written to in the transaction that just committed, or all cached results if
+     * some of its writes were to unknown tables.
+     */
+    private void flushDirtyTables() {
+        if (dirtyUnknownTables) {
+            rowSetCache.invalidateAll();
+        } else if (!dirtyTables.isEmpty()) {
+            invalidate(dirtyTables);
+        }
+        clearDirtyTables();
+    }
+
+    private void clearDirtyTables() {
+        dirtyTables.clear();
+        dirtyUnknownTables = false;
+    }
+
+    private void invalidate(Collection<String> tables) {
+        if (!tables.isEmpty()) {
+            rowSetCache.invalidate(tables);
+        }
+    }
+
     @Override
     public void close() throws SQLException {
+        // Whether pending writes are committed on close depends on the backend driver
+        flushDirtyTables();
         log.fine("Closing backend connection");
         connection.close();
         log.fine("Closing RowSet cache");
@@ -128,6 +288,10 @@ public class SmartConnection implements Connection {
     @Override
     public void setAutoCommit(boolean autoCommit) throws SQLException {
         connection.setAutoCommit(autoCommit);
+        if (autoCommit) {
+            // Switching to auto-commit mode commits the current transaction
+            flushDirtyTables();
+        }
     }
 
     @Override
@@ -138,11 +302,13 @@ public class SmartConnection implements Connection {
     @Override
     public void commit() throws SQLException {
         connection.commit();
+        flushDirtyTables();
     }
 
     @Override
     public void rollback() throws SQLException {
         connection.rollback();
+        clearDirtyTables();
     }
 
     @Override
@@ -370,8 +536,41 @@ public class SmartConnection implements Connection {
         return connection.getNetworkTimeout();
     }
 
+    /**
+     * Looks up the cached results of the given statements in a single round trip to Redis. Subsequent executions of these
+     * statements return from memory, provided their parameters have not changed in the meantime.
+     * 
+     * @param statements prepared statements created by this connection, with their parameters set
+     * @throws SQLException if a statement is closed or was not created by this connection
+     */
+    public void prefetch(List<? extends PreparedStatement> statements) throws SQLException {
+        Map<String, SmartStatement> statementsByKey = new LinkedHashMap<>();
+        for (PreparedStatement statement : statements) {
+            SmartStatement smartStatement = statement.unwrap(SmartStatement.class);
+            String key = smartStatement.cacheKey();
+            // Statements sharing a key cannot share a RowSet cursor: only the first one is staged
+            if (key != null) {
+                statementsByKey.putIfAbsent(key, smartStatement);
+            }
+        }
+        if (statementsByKey.isEmpty()) {
+            return;
+        }
+        Map<String, RowSet> rowSets = rowSetCache.getAll(statementsByKey.keySet());
+        statementsByKey.forEach((key, statement) -> statement.stage(key, rowSets.get(key)));
+    }
+
     public Set<String> tableNames(String sql) {
-        return parser.extractTableNames(sql);
+        return parse(sql).getTables();
+    }
+
+    /**
+     * 
+     * @param sql the SQL statement
+     * @return the parsed metadata of the statement, from the process-wide parse cache
+     */
+    public ParsedSql parse(String sql) {
+        return SQLParseCache.getInstance().get(sql);
     }
 
     public Map<String, Query> getQueryCache() {
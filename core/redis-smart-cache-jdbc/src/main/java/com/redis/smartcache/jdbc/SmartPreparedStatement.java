@@ -21,11 +21,13 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 import javax.sql.RowSet;
 
+import com.redis.smartcache.core.HotQuery;
 import com.redis.smartcache.core.KeyBuilder;
 
 public class SmartPreparedStatement extends SmartStatement implements PreparedStatement {
@@ -64,9 +66,32 @@ public class SmartPreparedStatement extends SmartStatement implements PreparedSt
         return parameters.values();
     }
 
+    @Override
+    protected Map<Integer, Object> parameterMap() {
+        return parameters;
+    }
+
+    @Override
+    protected HotQuery hotQuery(String key, String sql) {
+        return HotQuery.of(key, sql, parameters);
+    }
+
     @Override
     public int executeUpdate() throws SQLException {
-        return ((PreparedStatement) statement).executeUpdate();
+        try {
+            return ((PreparedStatement) statement).executeUpdate();
+        } finally {
+            written();
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        try {
+            return super.executeBatch();
+        } finally {
+            written();
+        }
     }
 
     @Override
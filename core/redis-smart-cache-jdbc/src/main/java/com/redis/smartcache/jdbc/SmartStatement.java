@@ -1,10 +1,18 @@
 package com.redis.smartcache.jdbc;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -12,57 +20,224 @@ import java.util.stream.Collectors;
 import javax.sql.rowset.CachedRowSet;
 
 import com.redis.smartcache.core.Action;
+import com.redis.smartcache.core.AdaptiveTtl;
 import com.redis.smartcache.core.Fields;
+import com.redis.smartcache.core.HotKeyTracker;
+import com.redis.smartcache.core.HotQuery;
+import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.LatencySketches;
+import com.redis.smartcache.core.ParameterAction;
 import com.redis.smartcache.core.Query;
 import com.redis.smartcache.jdbc.rowset.CachedRowSetImpl;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
-import io.micrometer.core.instrument.search.RequiredSearch;
 
 public class SmartStatement implements Statement {
 
     private static final Logger log = Logger.getLogger(SmartStatement.class.getName());
 
-    public static final String METER_BACKEND = "backend";
+    public static final String METER_BACKEND = Fields.METER_BACKEND;
 
     public static final String METER_BACKEND_RESULTSET = METER_BACKEND + ".resultset";
 
     public static final String METER_PREFIX_CACHE = "cache";
 
-    public static final String METER_CACHE_GET = METER_PREFIX_CACHE + ".get";
+    public static final String METER_CACHE_GET = Fields.METER_CACHE_GET;
 
     public static final String METER_CACHE_PUT = METER_PREFIX_CACHE + ".put";
 
-    public static final String TAG_RESULT = "result";
+    public static final String METER_CACHE_TTL = METER_PREFIX_CACHE + ".ttl";
 
-    public static final String TAG_MISS = "miss";
+    public static final String TAG_RESULT = Fields.TAG_RESULT;
 
-    public static final String TAG_HIT = "hit";
+    public static final String TAG_MISS = Fields.TAG_MISS;
+
+    public static final String TAG_HIT = Fields.TAG_HIT;
 
     private static final String TYPE = "static";
 
     private static final double[] PERCENTILES = { 0.9, 0.99 };
 
+    /**
+     * Backend timers also publish the median, which automatic caching compares to the minimum latency
+     */
+    private static final double[] BACKEND_PERCENTILES = { 0.5, 0.9, 0.99 };
+
+    /**
+     * Backend timers keep publishing the median with latency sketches, for automatic caching
+     */
+    private static final double[] MEDIAN_PERCENTILES = { 0.5 };
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(SmartStatement::messageDigest);
+
     protected final SmartConnection connection;
 
     protected final Statement statement;
 
     private Query query;
 
+    private String meterId;
+
+    private Tags tags;
+
     private Action action;
 
+    private long ttl;
+
+    private boolean adaptive;
+
+    private AdaptiveTtl adaptiveTtl;
+
+    private Map<Integer, Object> literals = Collections.emptyMap();
+
+    private List<String> literalTokens = Collections.emptyList();
+
+    private String writeSql;
+
+    private final List<String> batch = new ArrayList<>();
+
     private ResultSet resultSet;
 
+    private String stagedKey;
+
+    private ResultSet stagedResultSet;
+
     public SmartStatement(SmartConnection connection, Statement statement) {
         this.connection = connection;
         this.statement = statement;
     }
 
     protected void init(String sql) {
+        if (bypass(sql)) {
+            return;
+        }
+        initQuery(sql);
+    }
+
+    private void initQuery(String sql) {
+        this.writeSql = null;
         this.query = connection.getQueryCache().computeIfAbsent(sql, this::newQuery);
+        this.meterId = connection.getQueryMeters().id(query);
+        this.tags = tags(query, meterId);
         this.action = connection.getRuleSession().fire(query);
+        this.adaptiveTtl = action.isAdaptive() ? adaptiveTtl() : null;
+    }
+
+    /**
+     * Initializes a static statement. If enabled, literals are replaced with placeholders so that statements differing only by
+     * their literals share the same query, and the literals act as parameters of the execution.
+     */
+    private void initStatic(String sql) {
+        literals = Collections.emptyMap();
+        literalTokens = Collections.emptyList();
+        if (bypass(sql)) {
+            return;
+        }
+        if (connection.isNormalizeLiterals()) {
+            LiteralNormalizer.NormalizedSql normalized = LiteralNormalizer.normalize(sql);
+            if (normalized != null) {
+                literals = normalized.getLiterals();
+                literalTokens = normalized.getTokens();
+                initQuery(normalized.getSql());
+                return;
+            }
+        }
+        initQuery(sql);
+    }
+
+    /**
+     * Writes, DDL, session commands and procedure calls are delegated to the backend statement as is: they are not parsed,
+     * matched against rules or metered, so that no rule can cache their results.
+     *
+     * @return true if the given statement bypasses caching
+     */
+    private boolean bypass(String sql) {
+        StatementKind kind = StatementKind.of(sql);
+        if (kind.isQuery()) {
+            return false;
+        }
+        writeSql = kind.isWrite() ? sql : null;
+        query = null;
+        meterId = null;
+        tags = null;
+        action = null;
+        ttl = 0;
+        adaptive = false;
+        adaptiveTtl = null;
+        resultSet = null;
+        return true;
+    }
+
+    private boolean isBypassed() {
+        return query == null;
+    }
+
+    /**
+     * Records the write executed by this statement, if any, so that cached results of its tables are not used.
+     */
+    protected void written() throws SQLException {
+        if (writeSql != null) {
+            connection.written(writeSql);
+        }
+    }
+
+    private <T> T delegateWrite(Callable<T> callable) throws SQLException {
+        try {
+            return delegate(callable);
+        } finally {
+            written();
+        }
+    }
+
+    private static <T> T delegate(Callable<T> callable) throws SQLException {
+        try {
+            return callable.call();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * Resolves the TTL of the current execution: the TTL of the first matching parameter action if any, otherwise the TTL
+     * decided for the query.
+     */
+    private void resolveTtl() {
+        if (action == null) {
+            ttl = 0;
+            return;
+        }
+        if (connection.isDirty(query.getTables())) {
+            ttl = 0;
+            adaptive = false;
+            return;
+        }
+        if (action.hasParameterActions()) {
+            ParameterAction parameterAction = action.parameterAction(parameterMap());
+            if (parameterAction != null) {
+                ttl = parameterAction.getTtl();
+                adaptive = false;
+                return;
+            }
+        }
+        adaptive = action.isAdaptive();
+        ttl = adaptive ? adaptiveTtl.getTtl() : action.getTtl();
+    }
+
+    private AdaptiveTtl adaptiveTtl() {
+        AdaptiveTtl existing = connection.getAdaptiveTtls().get(query.getId());
+        if (existing == null) {
+            return connection.getAdaptiveTtls().computeIfAbsent(query.getId(),
+                    id -> new AdaptiveTtl(action.getTtl(), action.getTtlMin(), action.getTtlMax()));
+        }
+        existing.setRange(action.getTtlMin(), action.getTtlMax());
+        return existing;
     }
 
     private boolean hasResultSet() {
@@ -70,25 +245,80 @@ public class SmartStatement implements Statement {
     }
 
     private boolean isCaching() {
-        return action != null && action.getTtl() > 0;
+        return ttl > 0;
     }
 
-    private Tags tags(Query query) {
+    /**
+     *
+     * @param id the ID to meter the query under, either its own or the ID of the long tail of queries
+     */
+    private Tags tags(Query query, String id) {
+        if (Fields.ID_OTHER.equals(id)) {
+            return Tags.of(Fields.TAG_ID, id, Fields.TAG_TYPE, statementType(), Fields.TAG_SQL, "", Fields.TAG_TABLE, "");
+        }
         String tables = query.getTables().stream().collect(Collectors.joining(","));
-        return Tags.of(Fields.TAG_ID, query.getId(), Fields.TAG_TYPE, statementType(), Fields.TAG_SQL, query.getSql(),
+        return Tags.of(Fields.TAG_ID, id, Fields.TAG_TYPE, statementType(), Fields.TAG_SQL, query.getSql(),
                 Fields.TAG_TABLE, tables);
     }
 
-    private RequiredSearch getMeter(String name) {
-        return connection.getMeterRegistry().get(name).tags(tags(query));
+    /**
+     * Records the current execution, which decides the meters it is recorded with.
+     */
+    private void meter() {
+        meterId = connection.getQueryMeters().record(query);
+        tags = tags(query, meterId);
+        if (adaptiveTtl != null && !Fields.ID_OTHER.equals(meterId)) {
+            // Registered again if the meters of the query were removed to make room for hotter queries. The adaptive TTL is
+            // held by the connection, so the gauge can keep a strong reference to it.
+            connection.getQueryMeters().meter(meterId,
+                    id -> Gauge.builder(METER_CACHE_TTL, adaptiveTtl, AdaptiveTtl::getTtl).tags(tags(id))
+                            .description("Adaptive time-to-live").baseUnit("milliseconds").strongReference(true)
+                            .register(connection.getMeterRegistry()));
+        }
+    }
+
+    private Timer timer(String name) {
+        return connection.getQueryMeters().meter(meterId, id -> createTimer(name, tags(id)));
     }
 
-    private Timer createTimer(String name, Query query) {
-        return Timer.builder(name).tags(tags(query)).publishPercentiles(PERCENTILES).register(connection.getMeterRegistry());
+    /**
+     * 
+     * @return the tags of the current execution, or of the long tail if the query lost its meters
+     */
+    private Tags tags(String id) {
+        return id.equals(meterId) ? tags : tags(query, id);
     }
 
-    private Counter createCounter(String name, Query query, String tagKey, String tagValue) {
-        return Counter.builder(name).tags(tags(query)).tag(tagKey, tagValue).register(connection.getMeterRegistry());
+    private Timer createTimer(String name, Tags tags) {
+        Timer.Builder builder = Timer.builder(name).tags(tags);
+        if (connection.getLatencySketches() == null) {
+            builder.publishPercentiles(METER_BACKEND.equals(name) ? BACKEND_PERCENTILES : PERCENTILES);
+        } else if (METER_BACKEND.equals(name)) {
+            builder.publishPercentiles(MEDIAN_PERCENTILES);
+        }
+        return builder.register(connection.getMeterRegistry());
+    }
+
+    /**
+     * Times the given callable with the given timer and, if enabled, records its latency into the sketch of the query.
+     */
+    private <T> T record(String meter, Callable<T> callable) throws Exception {
+        LatencySketches sketches = connection.getLatencySketches();
+        if (sketches == null) {
+            return timer(meter).recordCallable(callable);
+        }
+        long start = System.nanoTime();
+        try {
+            return callable.call();
+        } finally {
+            long duration = System.nanoTime() - start;
+            timer(meter).record(duration, TimeUnit.NANOSECONDS);
+            sketches.record(meter, meterId, duration);
+        }
+    }
+
+    private Counter createCounter(String name, Tags tags, String tagKey, String tagValue) {
+        return Counter.builder(name).tags(tags).tag(tagKey, tagValue).register(connection.getMeterRegistry());
     }
 
     protected String statementType() {
@@ -100,13 +330,18 @@ public class SmartStatement implements Statement {
         newQuery.setId(connection.hash(sql));
         newQuery.setSql(sql);
         newQuery.setTables(connection.tableNames(sql));
-        createTimer(Fields.METER_QUERY, newQuery);
-        createTimer(METER_BACKEND, newQuery);
-        createTimer(METER_BACKEND_RESULTSET, newQuery);
-        createTimer(METER_CACHE_GET, newQuery);
-        createTimer(METER_CACHE_PUT, newQuery);
-        createCounter(METER_CACHE_GET, newQuery, TAG_RESULT, TAG_HIT);
-        createCounter(METER_CACHE_GET, newQuery, TAG_RESULT, TAG_MISS);
+        if (connection.getQueryMeters().isBounded()) {
+            // Meters are created on first use by queries metered individually
+            return newQuery;
+        }
+        Tags newTags = tags(newQuery, newQuery.getId());
+        createTimer(Fields.METER_QUERY, newTags);
+        createTimer(METER_BACKEND, newTags);
+        createTimer(METER_BACKEND_RESULTSET, newTags);
+        createTimer(METER_CACHE_GET, newTags);
+        createTimer(METER_CACHE_PUT, newTags);
+        createCounter(METER_CACHE_GET, newTags, TAG_RESULT, TAG_HIT);
+        createCounter(METER_CACHE_GET, newTags, TAG_RESULT, TAG_MISS);
         return newQuery;
     }
 
@@ -114,8 +349,37 @@ public class SmartStatement implements Statement {
         return key(query.getId());
     }
 
+    /**
+     * 
+     * @return the cache key for the current query and parameters, or null if the query is not cached
+     */
+    String cacheKey() {
+        resolveTtl();
+        if (isCaching()) {
+            return key();
+        }
+        return null;
+    }
+
+    /**
+     * Stages a prefetched cache lookup result so that the next execution for the given key returns it without a round trip to
+     * Redis.
+     * 
+     * @param key the cache key that was looked up
+     * @param rowSet the cached RowSet, or null if the key was not in the cache
+     */
+    void stage(String key, ResultSet rowSet) {
+        this.stagedKey = key;
+        this.stagedResultSet = rowSet;
+    }
+
     protected String key(String id) {
-        return connection.getKeyBuilder().build(id);
+        KeyBuilder keyBuilder = connection.getKeyBuilder();
+        if (literals.isEmpty()) {
+            return keyBuilder.build(id);
+        }
+        // Literals as written so that a = 1 and a = '1' have different keys
+        return keyBuilder.build(id, connection.hash(keyBuilder.join(literalTokens)));
     }
 
     @Override
@@ -135,19 +399,32 @@ public class SmartStatement implements Statement {
 
     @Override
     public ResultSet executeQuery(String sql) throws SQLException {
-        init(sql);
+        initStatic(sql);
         return executeQuery(() -> statement.executeQuery(sql));
     }
 
     protected ResultSet executeQuery(Callable<ResultSet> callable) throws SQLException {
+        if (isBypassed()) {
+            return delegateWrite(callable);
+        }
+        meter();
         return time(Fields.METER_QUERY, () -> {
+            // Results of the previous execution must not be returned when this one does not use the cache
+            resultSet = null;
+            resolveTtl();
             getFromCache();
             return getResultSet(() -> executeBackend(callable));
         });
     }
 
     protected boolean execute(Callable<Boolean> callable) throws SQLException {
+        if (isBypassed()) {
+            return delegateWrite(callable);
+        }
+        meter();
         return time(Fields.METER_QUERY, () -> {
+            resultSet = null;
+            resolveTtl();
             getFromCache();
             if (hasResultSet()) {
                 return true;
@@ -175,14 +452,67 @@ public class SmartStatement implements Statement {
             resultSet.beforeFirst();
             return resultSet;
         }
+        String key = key();
+        long putTtl = ttl;
+        if (adaptive) {
+            cached.beforeFirst();
+            putTtl = adaptiveTtl.update(key, contentHash(cached));
+        }
         cached.beforeFirst();
-        connection.getRowSetCache().put(key(), cached, action.getTtl());
+        connection.getRowSetCache().put(key, cached, putTtl, query.getTables());
         cached.beforeFirst();
         return cached;
     }
 
+    /**
+     * Hashes the values of the given RowSet with SHA-256, leaving its cursor after the last row.
+     * 
+     * @return the first 64 bits of the digest
+     */
+    private static long contentHash(CachedRowSet rowSet) throws SQLException {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        int columnCount = rowSet.getMetaData().getColumnCount();
+        while (rowSet.next()) {
+            for (int index = 1; index <= columnCount; index++) {
+                Object value = rowSet.getObject(index);
+                if (value == null) {
+                    updateLength(digest, -1);
+                    continue;
+                }
+                byte[] bytes = value instanceof byte[] ? (byte[]) value
+                        : value.toString().getBytes(StandardCharsets.UTF_8);
+                // Length-prefixed so that values cannot run into each other
+                updateLength(digest, bytes.length);
+                digest.update(bytes);
+            }
+        }
+        byte[] hash = digest.digest();
+        long value = 0;
+        for (int index = 0; index < Long.BYTES; index++) {
+            value = value << 8 | (hash[index] & 0xFF);
+        }
+        return value;
+    }
+
+    private static void updateLength(MessageDigest digest, int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    private static MessageDigest messageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     private <T> T executeBackend(Callable<T> callable) throws Exception {
-        return getMeter(METER_BACKEND).timer().recordCallable(callable);
+        return record(METER_BACKEND, callable);
     }
 
     /**
@@ -195,8 +525,46 @@ public class SmartStatement implements Statement {
         if (!isCaching()) {
             return;
         }
-        resultSet = time(METER_CACHE_GET, () -> connection.getRowSetCache().get(key()));
-        getMeter(METER_CACHE_GET).tag(TAG_RESULT, hasResultSet() ? TAG_HIT : TAG_MISS).counter().increment();
+        String key = key();
+        resultSet = time(METER_CACHE_GET, () -> getCached(key));
+        String result = hasResultSet() ? TAG_HIT : TAG_MISS;
+        connection.getQueryMeters().meter(meterId, id -> createCounter(METER_CACHE_GET, tags(id), TAG_RESULT, result))
+                .increment();
+        HotKeyTracker hotKeyTracker = connection.getHotKeyTracker();
+        if (hotKeyTracker != null) {
+            hotKeyTracker.record(key, () -> hotQuery(key, query.getSql()));
+        }
+    }
+
+    /**
+     * Static statements are recorded without parameters so that they are not executed again: the cache warmer executes hot
+     * queries as prepared statements, whose results would be cached under other keys.
+     *
+     * @return the hot query to record for the current execution
+     */
+    protected HotQuery hotQuery(String key, String sql) {
+        return new HotQuery(key, sql, null);
+    }
+
+    /**
+     * 
+     * @return the parameters of the current execution by index
+     */
+    protected Map<Integer, Object> parameterMap() {
+        return literals;
+    }
+
+    private ResultSet getCached(String key) {
+        if (stagedKey != null) {
+            boolean staged = stagedKey.equals(key);
+            ResultSet rowSet = stagedResultSet;
+            stagedKey = null;
+            stagedResultSet = null;
+            if (staged) {
+                return rowSet;
+            }
+        }
+        return connection.getRowSetCache().get(key, query.getTables());
     }
 
     private void checkClosed() throws SQLException {
@@ -206,17 +574,11 @@ public class SmartStatement implements Statement {
     }
 
     private <T> T time(String meter, Callable<T> callable) throws SQLException {
-        try {
-            return getMeter(meter).timer().recordCallable(callable);
-        } catch (SQLException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new SQLException(e);
-        }
+        return delegate(() -> record(meter, callable));
     }
 
     private boolean execute(String sql, Callable<Boolean> callable) throws SQLException {
-        init(sql);
+        initStatic(sql);
         return execute(callable);
     }
 
@@ -242,6 +604,9 @@ public class SmartStatement implements Statement {
 
     @Override
     public ResultSet getResultSet() throws SQLException {
+        if (isBypassed()) {
+            return statement.getResultSet();
+        }
         return getResultSet(statement::getResultSet);
     }
 
@@ -288,16 +653,25 @@ public class SmartStatement implements Statement {
     @Override
     public void addBatch(String sql) throws SQLException {
         statement.addBatch(sql);
+        batch.add(sql);
     }
 
     @Override
     public void clearBatch() throws SQLException {
         statement.clearBatch();
+        batch.clear();
     }
 
     @Override
     public int[] executeBatch() throws SQLException {
-        return statement.executeBatch();
+        try {
+            return statement.executeBatch();
+        } finally {
+            for (String sql : batch) {
+                connection.written(sql);
+            }
+            batch.clear();
+        }
     }
 
     @Override
@@ -317,17 +691,25 @@ public class SmartStatement implements Statement {
 
     @Override
     public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
-        return statement.executeUpdate(sql, autoGeneratedKeys);
+        return executeUpdate(sql, () -> statement.executeUpdate(sql, autoGeneratedKeys));
     }
 
     @Override
     public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
-        return statement.executeUpdate(sql, columnIndexes);
+        return executeUpdate(sql, () -> statement.executeUpdate(sql, columnIndexes));
     }
 
     @Override
     public int executeUpdate(String sql, String[] columnNames) throws SQLException {
-        return statement.executeUpdate(sql, columnNames);
+        return executeUpdate(sql, () -> statement.executeUpdate(sql, columnNames));
+    }
+
+    private int executeUpdate(String sql, Callable<Integer> callable) throws SQLException {
+        try {
+            return delegate(callable);
+        } finally {
+            connection.written(sql);
+        }
     }
 
     @Override
@@ -362,15 +744,26 @@ public class SmartStatement implements Statement {
 
     @Override
     public int executeUpdate(String sql) throws SQLException {
-        return statement.executeUpdate(sql);
+        return executeUpdate(sql, () -> statement.executeUpdate(sql));
     }
 
     @Override
     public void close() throws SQLException {
         statement.close();
         query = null;
+        meterId = null;
+        tags = null;
         action = null;
+        ttl = 0;
+        adaptive = false;
+        adaptiveTtl = null;
+        literals = Collections.emptyMap();
+        literalTokens = Collections.emptyList();
+        writeSql = null;
+        batch.clear();
         resultSet = null;
+        stagedKey = null;
+        stagedResultSet = null;
     }
 
     @Override
@@ -0,0 +1,167 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.Locale;
+
+/**
+ * Kind of a SQL statement, as given by its leading keyword or, for statements starting with common table expressions, by the
+ * keyword following them.
+ */
+public enum StatementKind {
+
+    SELECT(Category.QUERY), INSERT(Category.DML), UPDATE(Category.DML), DELETE(Category.DML), MERGE(Category.DML),
+    CALL(Category.PROCEDURE), DDL(Category.DDL), SESSION(Category.SESSION), OTHER(Category.OTHER);
+
+    public enum Category {
+        QUERY, DML, DDL, SESSION, PROCEDURE, OTHER
+    }
+
+    private final Category category;
+
+    StatementKind(Category category) {
+        this.category = category;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    /**
+     *
+     * @return true if statements of this kind are queries, the only ones whose results can be cached
+     */
+    public boolean isQuery() {
+        return category == Category.QUERY;
+    }
+
+    /**
+     *
+     * @return true if statements of this kind change the data or the structure of tables
+     */
+    public boolean isWrite() {
+        return category == Category.DML || category == Category.DDL;
+    }
+
+    /**
+     *
+     * @return true if statements of this kind only read data
+     */
+    public boolean isReadOnly() {
+        return isQuery();
+    }
+
+    /**
+     *
+     * @param sql the SQL statement
+     * @return the kind of the given statement
+     */
+    public static StatementKind of(String sql) {
+        int length = sql.length();
+        int depth = 0;
+        boolean cte = false;
+        int index = 0;
+        while (index < length) {
+            char c = sql.charAt(index);
+            if (Character.isLetter(c)) {
+                int end = index + 1;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+                    end++;
+                }
+                String word = sql.substring(index, end).toUpperCase(Locale.ROOT);
+                if (!cte && word.equals("WITH")) {
+                    cte = true;
+                } else if (cte && depth > 0) {
+                    // Data-modifying common table expression, e.g. WITH x AS (DELETE FROM t RETURNING *) SELECT ...
+                    StatementKind kind = of(word, true);
+                    if (kind != null && kind != SELECT) {
+                        return kind;
+                    }
+                } else {
+                    StatementKind kind = of(word, cte);
+                    if (kind != null) {
+                        return kind;
+                    }
+                    if (!cte) {
+                        return OTHER;
+                    }
+                }
+                index = end;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, index + 1);
+                index = end < 0 ? length : end + 1;
+            } else if (c == '-' && index + 1 < length && sql.charAt(index + 1) == '-') {
+                int end = sql.indexOf('\n', index);
+                index = end < 0 ? length : end;
+            } else if (c == '/' && index + 1 < length && sql.charAt(index + 1) == '*') {
+                int end = sql.indexOf("*/", index + 2);
+                index = end < 0 ? length : end + 2;
+            } else if (c == '{') {
+                // JDBC escape, e.g. {call proc(?)} or {? = call proc(?)}
+                return CALL;
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                index++;
+            }
+        }
+        return OTHER;
+    }
+
+    private static StatementKind of(String keyword, boolean cte) {
+        switch (keyword) {
+            case "SELECT":
+            case "VALUES":
+            case "TABLE":
+                return SELECT;
+            case "INSERT":
+            case "REPLACE":
+                return INSERT;
+            case "UPDATE":
+                return UPDATE;
+            case "DELETE":
+                return DELETE;
+            case "MERGE":
+            case "UPSERT":
+                return MERGE;
+            default:
+                break;
+        }
+        if (cte) {
+            // Names and keywords of the common table expressions
+            return null;
+        }
+        switch (keyword) {
+            case "CALL":
+            case "EXEC":
+            case "EXECUTE":
+                return CALL;
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "TRUNCATE":
+            case "RENAME":
+            case "COMMENT":
+            case "GRANT":
+            case "REVOKE":
+                return DDL;
+            case "SET":
+            case "USE":
+            case "BEGIN":
+            case "START":
+            case "COMMIT":
+            case "ROLLBACK":
+            case "SAVEPOINT":
+            case "RELEASE":
+            case "LOCK":
+            case "UNLOCK":
+            case "RESET":
+            case "DISCARD":
+                return SESSION;
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,449 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Single-pass tokenizer extracting the names of the tables read or written by a SQL statement: targets of FROM, JOIN, APPLY,
+ * UPDATE, DELETE and INSERT INTO clauses, including those of subqueries. Unlike a full parser it does not validate the
+ * statement, so vendor dialects (T-SQL hints, Oracle hints, MySQL functions, bracketed or backquoted identifiers) are
+ * supported as long as their table references follow these clauses.
+ * <p>
+ * Names are lower-cased and qualified parts are joined with a dot, as the Trino parser does. Names of common table
+ * expressions are not tables and are left out, but the targets of data-modifying common table expressions, e.g.
+ * {@code WITH x AS (DELETE FROM t RETURNING *) SELECT * FROM x}, are extracted.
+ */
+public class TableNameExtractor {
+
+    private static final char END = 0;
+
+    private final String sql;
+
+    private final int length;
+
+    private int index;
+
+    private int depth;
+
+    /**
+     * Depths at which a SELECT, UPDATE or DELETE started, where FROM introduces tables
+     */
+    private final BitSet queries = new BitSet();
+
+    /**
+     * Depths at which a comma introduces another table
+     */
+    private final BitSet tableLists = new BitSet();
+
+    /**
+     * Depths at which a comma introduces another common table expression
+     */
+    private final BitSet cteLists = new BitSet();
+
+    private boolean expectTable;
+
+    /**
+     * Whether a name followed by a parenthesis is a table function rather than a table followed by its columns
+     */
+    private boolean tableFunction;
+
+    private boolean expectCteName;
+
+    /**
+     * Whether the next parenthesis opens the body of a common table expression, which starts a statement
+     */
+    private boolean expectCteBody;
+
+    private boolean insert;
+
+    private boolean statementStart = true;
+
+    private boolean invalid;
+
+    private final Set<String> tables = new HashSet<>();
+
+    private final Set<String> cteNames = new HashSet<>();
+
+    private TableNameExtractor(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+
+    /**
+     *
+     * @param sql the SQL statement to extract table names from
+     * @return the table names, or null if the statement is not supported or could not be tokenized, in which case a full
+     *         parser should be used
+     */
+    public static Set<String> extract(String sql) {
+        return new TableNameExtractor(sql).extract();
+    }
+
+    private Set<String> extract() {
+        while (skipWhitespaceAndComments()) {
+            char c = sql.charAt(index);
+            boolean wasStatementStart = statementStart;
+            statementStart = false;
+            if (isIdentifierStart(c) || c == '"' || c == '`' || (c == '[' && expectTable)) {
+                if (!word(wasStatementStart)) {
+                    return null;
+                }
+                continue;
+            }
+            if (wasStatementStart && c != '(') {
+                // e.g. {call ...} escapes
+                return null;
+            }
+            switch (c) {
+                case '\'':
+                    index = endOfQuoted(index, '\'');
+                    if (index < 0) {
+                        return null;
+                    }
+                    expectTable = false;
+                    break;
+                case '[':
+                    // Array subscript
+                    index = sql.indexOf(']', index);
+                    if (index < 0) {
+                        return null;
+                    }
+                    index++;
+                    break;
+                case '(':
+                    index++;
+                    depth++;
+                    clear(depth);
+                    // Keep expecting a table for parenthesized joins, unless a subquery follows
+                    expectCteName = false;
+                    statementStart = wasStatementStart || expectCteBody;
+                    expectCteBody = false;
+                    break;
+                case ')':
+                    if (depth == 0) {
+                        return null;
+                    }
+                    clear(depth);
+                    depth--;
+                    index++;
+                    expectTable = false;
+                    break;
+                case ',':
+                    index++;
+                    expectTable = tableLists.get(depth);
+                    expectCteName = cteLists.get(depth);
+                    expectCteBody = false;
+                    break;
+                case ';':
+                    if (depth != 0 || expectTable) {
+                        return null;
+                    }
+                    index++;
+                    clear(0);
+                    insert = false;
+                    expectCteName = false;
+                    expectCteBody = false;
+                    statementStart = true;
+                    break;
+                default:
+                    index++;
+                    expectTable = false;
+                    break;
+            }
+        }
+        if (invalid || depth != 0 || expectTable) {
+            return null;
+        }
+        tables.removeAll(cteNames);
+        return tables;
+    }
+
+    private void clear(int clearedDepth) {
+        queries.clear(clearedDepth);
+        tableLists.clear(clearedDepth);
+        cteLists.clear(clearedDepth);
+    }
+
+    /**
+     * Reads a word, either a keyword or a possibly qualified name, and updates the state accordingly.
+     *
+     * @return false if the statement is not supported
+     */
+    private boolean word(boolean wasStatementStart) {
+        char c = sql.charAt(index);
+        if (isIdentifierStart(c)) {
+            int end = endOfIdentifier(index);
+            String keyword = sql.substring(index, end).toUpperCase(Locale.ROOT);
+            if (wasStatementStart && !isStatement(keyword)) {
+                return false;
+            }
+            if (keyword(keyword, wasStatementStart)) {
+                index = end;
+                return true;
+            }
+        }
+        String name = name();
+        if (name == null) {
+            return false;
+        }
+        if (expectCteName) {
+            cteNames.add(name);
+            expectCteName = false;
+        } else if (expectTable) {
+            expectTable = false;
+            if (!tableFunction || !isFunctionCall()) {
+                tables.add(name);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStatement(String keyword) {
+        switch (keyword) {
+            case "SELECT":
+            case "WITH":
+            case "INSERT":
+            case "REPLACE":
+            case "UPDATE":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     *
+     * @return true if the given word is a keyword that was handled
+     */
+    private boolean keyword(String keyword, boolean wasStatementStart) {
+        switch (keyword) {
+            case "SELECT":
+                queries.set(depth);
+                tableLists.clear(depth);
+                cteLists.clear(depth);
+                expectTable = false;
+                return true;
+            case "WITH":
+                if (wasStatementStart) {
+                    cteLists.set(depth);
+                    expectCteName = true;
+                    return true;
+                }
+                // Table hints, e.g. WITH (NOLOCK)
+                return true;
+            case "RECURSIVE":
+                return true;
+            case "AS":
+                if (cteLists.get(depth)) {
+                    // e.g. x AS (...) or x AS MATERIALIZED (...)
+                    expectCteBody = true;
+                }
+                return true;
+            case "UPDATE":
+            case "DELETE":
+                if (!wasStatementStart && !cteLists.get(depth)) {
+                    // e.g. FOR UPDATE, ON DUPLICATE KEY UPDATE, ON CONFLICT DO UPDATE
+                    return true;
+                }
+                queries.set(depth);
+                tableLists.set(depth);
+                cteLists.clear(depth);
+                expectTable(false);
+                return true;
+            case "INSERT":
+            case "REPLACE":
+                if (wasStatementStart || cteLists.get(depth)) {
+                    insert = true;
+                    cteLists.clear(depth);
+                }
+                return true;
+            case "INTO":
+                if (insert) {
+                    insert = false;
+                    tableLists.set(depth);
+                    expectTable(false);
+                }
+                return true;
+            case "FROM":
+                if (queries.get(depth)) {
+                    tableLists.set(depth);
+                    expectTable(true);
+                }
+                return true;
+            case "JOIN":
+            case "STRAIGHT_JOIN":
+            case "APPLY":
+                tableLists.set(depth);
+                expectTable(true);
+                return true;
+            case "LATERAL":
+            case "ONLY":
+            case "ON":
+            case "USING":
+                // Join conditions do not end the table list: FROM a JOIN b ON a.id = b.id, c
+                return true;
+            case "WHERE":
+            case "GROUP":
+            case "ORDER":
+            case "HAVING":
+            case "LIMIT":
+            case "UNION":
+            case "EXCEPT":
+            case "INTERSECT":
+            case "MINUS":
+            case "SET":
+            case "VALUES":
+            case "WINDOW":
+            case "FETCH":
+            case "OFFSET":
+            case "FOR":
+            case "RETURNING":
+            case "OUTPUT":
+            case "QUALIFY":
+            case "CONNECT":
+            case "START":
+            case "PIVOT":
+            case "UNPIVOT":
+                tableLists.clear(depth);
+                expectTable = false;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void expectTable(boolean allowFunction) {
+        expectTable = true;
+        tableFunction = allowFunction;
+    }
+
+    /**
+     * Reads a possibly qualified name made of plain or quoted identifiers.
+     *
+     * @return the lower-cased name, or null if a quoted identifier is not terminated
+     */
+    private String name() {
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            char c = sql.charAt(index);
+            int end;
+            if (c == '"' || c == '`') {
+                end = endOfQuoted(index, c);
+                if (end < 0) {
+                    return null;
+                }
+                String quote = String.valueOf(c);
+                name.append(sql.substring(index + 1, end - 1).replace(quote + quote, quote));
+            } else if (c == '[') {
+                end = sql.indexOf(']', index);
+                if (end < 0) {
+                    return null;
+                }
+                end++;
+                name.append(sql, index + 1, end - 1);
+            } else if (isIdentifierStart(c)) {
+                end = endOfIdentifier(index);
+                name.append(sql, index, end);
+            } else {
+                return null;
+            }
+            index = end;
+            int dot = skipWhitespace(index);
+            if (dot < length && sql.charAt(dot) == '.') {
+                int next = skipWhitespace(dot + 1);
+                if (next < length && isNamePart(sql.charAt(next))) {
+                    name.append('.');
+                    index = next;
+                    continue;
+                }
+            }
+            return name.toString().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private boolean isFunctionCall() {
+        int next = skipWhitespace(index);
+        return next < length && sql.charAt(next) == '(';
+    }
+
+    /**
+     *
+     * @return true if a token follows
+     */
+    private boolean skipWhitespaceAndComments() {
+        while (true) {
+            index = skipWhitespace(index);
+            if (index >= length) {
+                return false;
+            }
+            char c = sql.charAt(index);
+            if (c == '-' && next(index) == '-') {
+                int end = sql.indexOf('\n', index);
+                index = end < 0 ? length : end;
+            } else if (c == '/' && next(index) == '*') {
+                int end = sql.indexOf("*/", index + 2);
+                if (end < 0) {
+                    invalid = true;
+                    return false;
+                }
+                index = end + 2;
+            } else {
+                return true;
+            }
+        }
+    }
+
+    private int skipWhitespace(int start) {
+        int position = start;
+        while (position < length && Character.isWhitespace(sql.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private char next(int position) {
+        return position + 1 < length ? sql.charAt(position + 1) : END;
+    }
+
+    /**
+     *
+     * @return the index after the closing quote, or -1 if the quoted text is not terminated. Doubled quotes are escapes.
+     */
+    private int endOfQuoted(int start, char quote) {
+        int position = start + 1;
+        while (position < length) {
+            if (sql.charAt(position) == quote) {
+                if (next(position) != quote) {
+                    return position + 1;
+                }
+                position++;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    private int endOfIdentifier(int start) {
+        int position = start;
+        while (position < length && isIdentifierPart(sql.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isNamePart(char c) {
+        return isIdentifierStart(c) || c == '"' || c == '`' || c == '[';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '#' || c == '@';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@' || c == '#';
+    }
+
+}
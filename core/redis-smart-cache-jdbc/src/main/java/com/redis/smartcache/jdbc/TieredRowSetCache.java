@@ -0,0 +1,163 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.RowSet;
+
+/**
+ * RowSetCache reading from a local cache first, then from a remote cache. RowSets read from the remote cache are copied to
+ * the local cache with a fixed time-to-live, so that hot keys are served locally without a round trip. Writes go to both caches.
+ * <p>
+ * RowSets put or read with their tables are recorded under those tables in both caches, so that invalidation evicts them from
+ * both. RowSets copied by {@link #getAll(Collection)} and {@link #preload(Collection)} are not indexed in the local cache and
+ * expire with the local time-to-live.
+ */
+public class TieredRowSetCache implements RowSetCache {
+
+    private final RowSetCache local;
+
+    private final RowSetCache remote;
+
+    private final long localTtlMillis;
+
+    /**
+     * 
+     * @param local the local cache
+     * @param remote the remote cache
+     * @param localTtlMillis time-to-live of RowSets copied to the local cache when read from the remote cache
+     */
+    public TieredRowSetCache(RowSetCache local, RowSetCache remote, long localTtlMillis) {
+        this.local = local;
+        this.remote = remote;
+        this.localTtlMillis = localTtlMillis;
+    }
+
+    @Override
+    public RowSet get(String key) {
+        RowSet rowSet = local.get(key);
+        if (rowSet != null) {
+            return rowSet;
+        }
+        rowSet = remote.get(key);
+        if (rowSet != null) {
+            putLocal(key, rowSet, localTtlMillis);
+        }
+        return rowSet;
+    }
+
+    @Override
+    public RowSet get(String key, Collection<String> tables) {
+        RowSet rowSet = local.get(key);
+        if (rowSet != null) {
+            return rowSet;
+        }
+        rowSet = remote.get(key);
+        if (rowSet != null) {
+            putLocal(key, rowSet, localTtlMillis, tables);
+        }
+        return rowSet;
+    }
+
+    @Override
+    public Map<String, RowSet> getAll(Collection<String> keys) {
+        Map<String, RowSet> rowSets = local.getAll(keys);
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (!rowSets.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, RowSet> remoteRowSets = remote.getAll(missing);
+            remoteRowSets.forEach((key, rowSet) -> putLocal(key, rowSet, localTtlMillis));
+            rowSets.putAll(remoteRowSets);
+        }
+        return rowSets;
+    }
+
+    /**
+     * Fetches keys that are not in the local cache from the remote cache and copies them to the local cache.
+     */
+    @Override
+    public Collection<String> preload(Collection<String> keys) {
+        Collection<String> missing = local.preload(keys);
+        if (missing.isEmpty()) {
+            return missing;
+        }
+        Map<String, RowSet> rowSets = remote.getAll(missing);
+        rowSets.forEach((key, rowSet) -> putLocal(key, rowSet, localTtlMillis));
+        List<String> notCached = new ArrayList<>();
+        for (String key : missing) {
+            if (!rowSets.containsKey(key)) {
+                notCached.add(key);
+            }
+        }
+        return notCached;
+    }
+
+    /**
+     * Puts the RowSet in the local cache and moves its cursor back before the first row.
+     */
+    private void putLocal(String key, RowSet rowSet, long ttlMillis) {
+        putLocal(key, rowSet, ttlMillis, Collections.emptySet());
+    }
+
+    private void putLocal(String key, RowSet rowSet, long ttlMillis, Collection<String> tables) {
+        local.put(key, rowSet, ttlMillis, tables);
+        try {
+            rowSet.beforeFirst();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reposition RowSet", e);
+        }
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis) {
+        putLocal(key, rowSet, ttlMillis > 0 ? Math.min(ttlMillis, localTtlMillis) : localTtlMillis);
+        remote.put(key, rowSet, ttlMillis);
+    }
+
+    @Override
+    public void put(String key, RowSet rowSet, long ttlMillis, Collection<String> tables) {
+        putLocal(key, rowSet, ttlMillis > 0 ? Math.min(ttlMillis, localTtlMillis) : localTtlMillis, tables);
+        remote.put(key, rowSet, ttlMillis, tables);
+    }
+
+    /**
+     * Invalidates both caches. RowSets of the local cache that are not indexed by table expire with the local time-to-live.
+     */
+    @Override
+    public void invalidate(Collection<String> tables) {
+        local.invalidate(tables);
+        remote.invalidate(tables);
+    }
+
+    @Override
+    public void invalidateAll() {
+        local.invalidateAll();
+        remote.invalidateAll();
+    }
+
+    public RowSetCache getLocal() {
+        return local;
+    }
+
+    public RowSetCache getRemote() {
+        return remote;
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            local.close();
+        } finally {
+            remote.close();
+        }
+    }
+
+}
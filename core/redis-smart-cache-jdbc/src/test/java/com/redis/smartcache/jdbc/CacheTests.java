@@ -2,6 +2,7 @@ package com.redis.smartcache.jdbc;
 
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,8 +11,15 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import com.redis.smartcache.core.BackoffController;
+import com.redis.smartcache.core.CircuitBreaker;
+import com.redis.smartcache.core.WriteBehindBatcher;
 import com.redis.smartcache.test.RowSetBuilder;
 
+import io.lettuce.core.ReadFrom;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @Testcontainers
 class CacheTests extends AbstractTests {
 
@@ -38,6 +46,55 @@ class CacheTests extends AbstractTests {
         cache.close();
     }
 
+    @Test
+    void writeBehind() throws Exception {
+        int keys = 50;
+        RowSetBuilder rowSetBuilder = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(10).columnCount(5);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofSeconds(1));
+        BackoffController backoff = new BackoffController(Duration.ofMillis(100), Duration.ofSeconds(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (WriteBehindBatcher batcher = new WriteBehindBatcher(client, circuitBreaker, backoff, 10, Duration.ofMillis(10),
+                1000); RedisRowSetCache cache = new RedisRowSetCache(client, new RowSetCodec(1024 * 1024), circuitBreaker,
+                        backoff)) {
+            batcher.bindTo(registry);
+            cache.setWriteBehind(batcher);
+            for (int round = 0; round < 3; round++) {
+                for (int index = 0; index < keys; index++) {
+                    cache.put("key:" + index, rowSetBuilder.build(), 60000);
+                }
+            }
+            awaitUntil(() -> redisConnection.sync().dbsize() == keys);
+            Assertions.assertTrue(redisConnection.sync().pttl("key:0") > 0);
+            Assertions.assertNotNull(cache.get("key:0"));
+            DistributionSummary batches = registry.get(WriteBehindBatcher.METER_BATCH).summary();
+            Assertions.assertTrue(batches.max() <= 10);
+            Assertions.assertTrue(batches.totalAmount() <= keys * 3);
+            Assertions.assertEquals(0, batcher.getDropped());
+        }
+    }
+
+    @Test
+    void readFromStandalone() throws Exception {
+        RowSetBuilder rowSetBuilder = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(10).columnCount(5);
+        try (RedisRowSetCache cache = new RedisRowSetCache(client, new RowSetCodec(1024 * 1024), Duration.ofMillis(100))) {
+            // ReadFrom only applies to Redis Cluster and is ignored otherwise
+            cache.setReadFrom(ReadFrom.REPLICA_PREFERRED);
+            cache.put("key:readfrom", rowSetBuilder.build(), 60000);
+            Assertions.assertNotNull(cache.get("key:readfrom"));
+        }
+    }
+
+    @Test
+    void preload() throws Exception {
+        RowSetBuilder rowSetBuilder = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(10).columnCount(5);
+        try (RedisRowSetCache cache = new RedisRowSetCache(client, new RowSetCodec(1024 * 1024), Duration.ofMillis(100))) {
+            cache.put("key:1", rowSetBuilder.build(), 60000);
+            cache.put("key:3", rowSetBuilder.build(), 60000);
+            Assertions.assertEquals(Arrays.asList("key:2", "key:4"),
+                    cache.preload(Arrays.asList("key:1", "key:2", "key:3", "key:4")));
+        }
+    }
+
     private int errorReplies() {
         String info = redisConnection.sync().info("stats");
         Matcher matcher = patternFor("total_error_replies").matcher(info);
@@ -0,0 +1,70 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.Driver;
+import com.redis.smartcache.core.Mappers;
+import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.config.MetricsRegistry;
+
+class ConcurrencyTests extends AbstractTests {
+
+    private static final int THREADS = 50;
+
+    private static final int CONNECTIONS = 500;
+
+    @AfterEach
+    void teardownDriver() throws Exception {
+        Driver.clear();
+    }
+
+    @Test
+    void parallelConnect() throws Exception {
+        Config config = new Config();
+        config.getDriver().setClassName(StubDriver.class.getName());
+        config.getDriver().setUrl(StubDriver.URL);
+        config.getMetrics().setRegistry(MetricsRegistry.SIMPLE);
+        Properties info = Mappers.properties(config);
+        String url = "jdbc:" + redis.getRedisURI();
+        java.sql.Driver driver = DriverManager.getDriver(url);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SmartConnection>> futures = new ArrayList<>();
+        for (int index = 0; index < CONNECTIONS; index++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return (SmartConnection) driver.connect(url, info);
+            }));
+        }
+        start.countDown();
+        List<SmartConnection> connections = new ArrayList<>();
+        try {
+            for (Future<SmartConnection> future : futures) {
+                connections.add(future.get(1, TimeUnit.MINUTES));
+            }
+            SmartConnection first = connections.get(0);
+            for (SmartConnection connection : connections) {
+                Assertions.assertSame(first.getRuleSession(), connection.getRuleSession());
+                Assertions.assertSame(first.getMeterRegistry(), connection.getMeterRegistry());
+            }
+        } finally {
+            for (SmartConnection connection : connections) {
+                connection.close();
+            }
+            executor.shutdown();
+        }
+    }
+
+}
@@ -15,6 +15,7 @@ import com.redis.smartcache.core.config.Config;
 
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
+import io.lettuce.core.ReadFrom;
 
 class DriverTests extends AbstractTests {
 
@@ -50,6 +51,14 @@ class DriverTests extends AbstractTests {
         Assertions.assertThrows(SQLException.class, () -> driver.connect(url, info));
     }
 
+    @Test
+    void backendDriver() throws SQLException {
+        Driver driver = (Driver) DriverManager.getDriver(jdbcUrl(redis.getRedisURI()));
+        java.sql.Driver backendDriver = driver.backendDriver("org.postgresql.Driver");
+        Assertions.assertSame(backendDriver, driver.backendDriver("org.postgresql.Driver"));
+        Assertions.assertThrows(SQLException.class, () -> driver.backendDriver("com.asdfasdf.sdfsdfkds.Issks"));
+    }
+
     private String jdbcUrl(String redisURI) {
         return "jdbc:" + redisURI;
     }
@@ -68,4 +77,15 @@ class DriverTests extends AbstractTests {
         Assertions.assertEquals(DataSize.of(10, Unit.MEGABYTE), Driver.config(properties).getCache().getCodecBufferCapacity());
     }
 
+    @Test
+    void readFrom() throws IOException {
+        Assertions.assertSame(ReadFrom.REPLICA_PREFERRED, Driver.readFrom("REPLICA_PREFERRED"));
+        Assertions.assertSame(ReadFrom.REPLICA_PREFERRED, Driver.readFrom("replicaPreferred"));
+        Assertions.assertSame(ReadFrom.NEAREST, Driver.readFrom("nearest"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Driver.readFrom("farthest"));
+        Properties properties = new Properties();
+        properties.setProperty(Mappers.PROPERTY_PREFIX + ".redis.read-from", "REPLICA_PREFERRED");
+        Assertions.assertEquals("REPLICA_PREFERRED", Driver.config(properties).getRedis().getReadFrom());
+    }
+
 }
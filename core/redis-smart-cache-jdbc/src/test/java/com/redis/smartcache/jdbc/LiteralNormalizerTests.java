@@ -0,0 +1,77 @@
+package com.redis.smartcache.jdbc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.jdbc.LiteralNormalizer.NormalizedSql;
+
+class LiteralNormalizerTests {
+
+    @Test
+    void testLiterals() {
+        NormalizedSql normalized = LiteralNormalizer
+                .normalize("SELECT * FROM orders WHERE id = 42 AND status = 'it''s' AND total > 10.5 AND amount < 1e3");
+        Assertions.assertEquals("SELECT * FROM orders WHERE id = ? AND status = ? AND total > ? AND amount < ?",
+                normalized.getSql());
+        Assertions.assertEquals(Arrays.asList(42L, "it's", new BigDecimal("10.5"), new BigDecimal("1e3")),
+                Arrays.asList(normalized.getLiterals().values().toArray()));
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4), Arrays.asList(normalized.getLiterals().keySet().toArray()));
+    }
+
+    @Test
+    void testSameShape() {
+        Assertions.assertEquals(LiteralNormalizer.normalize("SELECT * FROM t WHERE a = 1").getSql(),
+                LiteralNormalizer.normalize("SELECT * FROM t WHERE a = 23").getSql());
+    }
+
+    @Test
+    void testTokens() {
+        NormalizedSql number = LiteralNormalizer.normalize("SELECT * FROM t WHERE a = 1 AND b = 'it''s'");
+        NormalizedSql string = LiteralNormalizer.normalize("SELECT * FROM t WHERE a = '1' AND b = 'it''s'");
+        Assertions.assertEquals(number.getSql(), string.getSql());
+        Assertions.assertEquals(Arrays.asList("1", "'it''s'"), number.getTokens());
+        Assertions.assertEquals(Arrays.asList("'1'", "'it''s'"), string.getTokens());
+    }
+
+    @Test
+    void testNoLiterals() {
+        String sql = "SELECT t1.a, \"col 2\" FROM t1 WHERE b = ?";
+        NormalizedSql normalized = LiteralNormalizer.normalize(sql);
+        Assertions.assertSame(sql, normalized.getSql());
+        Assertions.assertEquals(Collections.emptyMap(), normalized.getLiterals());
+        Assertions.assertEquals(Collections.emptyList(), normalized.getTokens());
+    }
+
+    @Test
+    void testSkipped() {
+        assertUnchanged("SELECT \"12\", `34`, [56] FROM t2");
+        assertUnchanged("SELECT a FROM t -- 12 'x'\nWHERE b = ?");
+        assertUnchanged("SELECT a /* 'x' 1 */ FROM t");
+        assertUnchanged("SELECT a FROM t WHERE d = DATE '2023-05-01' AND t > timestamp '2023-05-01 10:00:00'");
+        assertUnchanged("SELECT a FROM t WHERE n = N'abc' AND x = X'1F' AND i = INTERVAL '1' DAY");
+        assertUnchanged("SELECT 0x1F, 1abc, t.1 FROM t");
+    }
+
+    @Test
+    void testUnterminated() {
+        Assertions.assertNull(LiteralNormalizer.normalize("SELECT * FROM t WHERE a = 'abc"));
+        Assertions.assertNull(LiteralNormalizer.normalize("SELECT * FROM t /* comment"));
+    }
+
+    @Test
+    void testLargeNumber() {
+        NormalizedSql normalized = LiteralNormalizer.normalize("SELECT * FROM t WHERE a = 123456789012345678901234567890");
+        Assertions.assertEquals(new BigDecimal("123456789012345678901234567890"), normalized.getLiterals().get(1));
+    }
+
+    private void assertUnchanged(String sql) {
+        NormalizedSql normalized = LiteralNormalizer.normalize(sql);
+        Assertions.assertEquals(sql, normalized.getSql());
+        Assertions.assertTrue(normalized.getLiterals().isEmpty());
+    }
+
+}
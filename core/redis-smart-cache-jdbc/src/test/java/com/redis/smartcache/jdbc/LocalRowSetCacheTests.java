@@ -0,0 +1,55 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.SQLException;
+import java.util.Collections;
+
+import javax.sql.RowSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.LocalTableIndex;
+import com.redis.smartcache.core.store.HeapByteStore;
+import com.redis.smartcache.test.RowSetBuilder;
+
+class LocalRowSetCacheTests {
+
+    private static final int BYTE_BUFFER_CAPACITY = 10 * 1024 * 1024;
+
+    @Test
+    void putGet() throws SQLException {
+        RowSet rowSet = new RowSetBuilder(new RowSetFactoryImpl()).build();
+        try (HeapByteStore store = new HeapByteStore(BYTE_BUFFER_CAPACITY)) {
+            LocalRowSetCache cache = new LocalRowSetCache(store, new RowSetCodec(BYTE_BUFFER_CAPACITY));
+            Assertions.assertNull(cache.get("key1"));
+            cache.put("key1", rowSet, 0);
+            rowSet.beforeFirst();
+            Utils.assertEquals(rowSet, cache.get("key1"));
+            // Closing the cache leaves the shared store untouched
+            cache.close();
+            Assertions.assertEquals(1, store.getEntryCount());
+        }
+    }
+
+    @Test
+    void invalidate() throws SQLException {
+        RowSet rowSet = new RowSetBuilder(new RowSetFactoryImpl()).build();
+        try (HeapByteStore store = new HeapByteStore(BYTE_BUFFER_CAPACITY)) {
+            LocalRowSetCache cache = new LocalRowSetCache(store, new RowSetCodec(BYTE_BUFFER_CAPACITY),
+                    new LocalTableIndex(store));
+            cache.put("orders", rowSet, 0, Collections.singleton("public.orders"));
+            rowSet.beforeFirst();
+            cache.put("customers", rowSet, 0, Collections.singleton("customers"));
+            rowSet.beforeFirst();
+            cache.put("unindexed", rowSet, 0);
+            rowSet.beforeFirst();
+            cache.invalidate(Collections.singleton("orders"));
+            Assertions.assertNull(cache.get("orders"));
+            Assertions.assertNotNull(cache.get("customers"));
+            cache.invalidateAll();
+            Assertions.assertNull(cache.get("customers"));
+            Assertions.assertNotNull(cache.get("unindexed"));
+        }
+    }
+
+}
@@ -4,10 +4,12 @@ import java.io.IOException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -69,6 +71,29 @@ class PostgresTests extends AbstractIntegrationTests {
         testPreparedStatement(POSTGRES, "SELECT * FROM orders WHERE employee_id = ?", 8);
     }
 
+    @Test
+    void testPrefetch() throws Exception {
+        String sql = "SELECT * FROM orders WHERE employee_id = ?";
+        try (Connection backendConnection = backendConnection(POSTGRES);
+                SmartConnection connection = smartConnection(POSTGRES)) {
+            List<PreparedStatement> statements = new ArrayList<>();
+            for (int employeeId = 1; employeeId <= 3; employeeId++) {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setInt(1, employeeId);
+                statements.add(statement);
+                statement.executeQuery();
+            }
+            String cacheKeyPattern = KeyBuilder.of(Config.DEFAULT_NAME).sub(Driver.KEYSPACE_CACHE).build("*");
+            awaitUntil(() -> redisConnection.sync().keys(cacheKeyPattern).size() == statements.size());
+            connection.prefetch(statements);
+            for (int index = 0; index < statements.size(); index++) {
+                PreparedStatement backendStatement = backendConnection.prepareStatement(sql);
+                backendStatement.setInt(1, index + 1);
+                Utils.assertEquals(backendStatement.executeQuery(), statements.get(index).executeQuery());
+            }
+        }
+    }
+
     @Test
     void testSimpleCallableStatement() throws Exception {
         testCallableStatement(POSTGRES, "SELECT * FROM orders WHERE employee_id = ?", 8);
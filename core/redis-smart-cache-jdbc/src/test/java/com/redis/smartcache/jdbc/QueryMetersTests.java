@@ -0,0 +1,75 @@
+package com.redis.smartcache.jdbc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.Fields;
+import com.redis.smartcache.core.Query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueryMetersTests {
+
+    private static Query query(String id) {
+        return new Query.QueryBuilder().setId(id).setSql("SELECT * FROM " + id).build();
+    }
+
+    @Test
+    void unbounded() {
+        QueryMeters meters = new QueryMeters(new SimpleMeterRegistry());
+        Assertions.assertFalse(meters.isBounded());
+        for (int index = 0; index < 100; index++) {
+            Query query = query("q" + index);
+            Assertions.assertEquals(query.getId(), meters.record(query));
+        }
+    }
+
+    @Test
+    void longTail() {
+        try (QueryMeters meters = new QueryMeters(new SimpleMeterRegistry(), 2, 2)) {
+            Query hot = query("hot");
+            for (int index = 0; index < 100; index++) {
+                meters.record(hot);
+                meters.record(hot);
+                meters.record(query("tail" + index));
+            }
+            // Queries are admitted when executions are reconciled
+            meters.reconcile();
+            Assertions.assertEquals(hot.getId(), meters.record(hot));
+            Assertions.assertEquals(hot.getId(), meters.id(hot));
+            Assertions.assertEquals(Fields.ID_OTHER, meters.record(query("tail")));
+            Assertions.assertTrue(meters.getMeteredQueries().contains(hot.getId()));
+            Assertions.assertTrue(meters.getMeteredQueries().size() <= 2);
+        }
+    }
+
+    @Test
+    void maxQueries() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (QueryMeters meters = new QueryMeters(registry, 1, 1)) {
+            Query first = query("first");
+            for (int index = 0; index < 20; index++) {
+                meters.record(first);
+            }
+            meters.reconcile();
+            Assertions.assertEquals(first.getId(), meters.record(first));
+            meters.meter(first.getId(), id -> registry.counter(Fields.METER_QUERY, Fields.TAG_ID, id));
+            // A hotter query takes the place and removes the meters of the query that is no longer top
+            Query second = query("second");
+            for (int index = 0; index < 100; index++) {
+                meters.record(second);
+            }
+            meters.reconcile();
+            Assertions.assertEquals(second.getId(), meters.record(second));
+            Assertions.assertEquals(Fields.ID_OTHER, meters.id(first));
+            Assertions.assertNull(registry.find(Fields.METER_QUERY).tag(Fields.TAG_ID, first.getId()).counter());
+            // Statements still holding the ID of the query do not create its meters again
+            Counter counter = meters.meter(first.getId(), id -> registry.counter(Fields.METER_QUERY, Fields.TAG_ID, id));
+            Assertions.assertEquals(Fields.ID_OTHER, counter.getId().getTag(Fields.TAG_ID));
+            Assertions.assertNull(registry.find(Fields.METER_QUERY).tag(Fields.TAG_ID, first.getId()).counter());
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.Fields;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SQLParseCacheTests {
+
+    @Test
+    void testCache() {
+        SQLParseCache cache = new SQLParseCache(100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        String sql = "SELECT * FROM orders JOIN customers ON orders.customer = customers.id";
+        ParsedSql parsed = cache.get(sql);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("orders", "customers")), parsed.getTables());
+        Assertions.assertEquals(StatementKind.SELECT, parsed.getKind());
+        Assertions.assertTrue(parsed.isReadOnly());
+        Assertions.assertSame(parsed, cache.get(new String(sql.toCharArray())));
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, registry.get(SQLParseCache.METER_CACHE_GET).tag(Fields.TAG_RESULT, Fields.TAG_HIT)
+                .functionCounter().count());
+        Assertions.assertEquals(1, registry.get(SQLParseCache.METER_CACHE_GET).tag(Fields.TAG_RESULT, Fields.TAG_MISS)
+                .functionCounter().count());
+        Assertions.assertEquals(1, registry.get(SQLParseCache.METER_PARSE).functionTimer().count());
+        Assertions.assertEquals(0.5, registry.get(SQLParseCache.METER_CACHE_HIT_RATIO).gauge().value());
+    }
+
+    @Test
+    void testCapacity() {
+        SQLParseCache cache = new SQLParseCache(160);
+        for (int index = 0; index < 1000; index++) {
+            cache.get("SELECT * FROM t" + index);
+        }
+        Assertions.assertTrue(cache.size() <= 160);
+    }
+
+    @Test
+    void testStatementKind() {
+        Assertions.assertEquals(StatementKind.SELECT, StatementKind.of("  /* hint */ select * from t"));
+        Assertions.assertEquals(StatementKind.SELECT, StatementKind.of("(SELECT a FROM t) UNION (SELECT a FROM u)"));
+        Assertions.assertEquals(StatementKind.SELECT,
+                StatementKind.of("WITH x AS (SELECT * FROM t), y AS (SELECT 1) SELECT * FROM x, y"));
+        Assertions.assertEquals(StatementKind.DELETE,
+                StatementKind.of("WITH x AS (DELETE FROM t RETURNING *) SELECT * FROM x"));
+        Assertions.assertEquals(StatementKind.INSERT,
+                StatementKind.of("WITH x AS (SELECT * FROM t) INSERT INTO u SELECT * FROM x"));
+        Assertions.assertEquals(StatementKind.INSERT, StatementKind.of("insert into t values (1)"));
+        Assertions.assertEquals(StatementKind.UPDATE, StatementKind.of("-- comment\nUPDATE t SET a = 1"));
+        Assertions.assertEquals(StatementKind.DELETE, StatementKind.of("DELETE FROM t"));
+        Assertions.assertEquals(StatementKind.MERGE, StatementKind.of("MERGE INTO t USING u ON t.id = u.id"));
+        Assertions.assertEquals(StatementKind.CALL, StatementKind.of("{call proc(?)}"));
+        Assertions.assertEquals(StatementKind.CALL, StatementKind.of("EXEC proc 1"));
+        Assertions.assertEquals(StatementKind.DDL, StatementKind.of("CREATE TABLE t (id INT)"));
+        Assertions.assertEquals(StatementKind.SESSION, StatementKind.of("SET search_path TO public"));
+        Assertions.assertEquals(StatementKind.SESSION, StatementKind.of("COMMIT"));
+        Assertions.assertEquals(StatementKind.OTHER, StatementKind.of("SHOW TABLES"));
+        Assertions.assertTrue(StatementKind.SELECT.isQuery());
+        Assertions.assertFalse(StatementKind.UPDATE.isQuery());
+        Assertions.assertEquals(StatementKind.Category.PROCEDURE, StatementKind.CALL.getCategory());
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.redis.smartcache.jdbc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SQLParserTests {
+
+    private static final String JOIN_QUERY = "SELECT orders.orderNumber, orders.orderDate, customers.customerName, products.productName FROM orders JOIN customers ON orders.customerNumber = customers.customerNumber JOIN orderdetails ON orders.orderNumber = orderdetails.orderNumber JOIN products ON orderdetails.productCode = products.productCode WHERE orders.orderNumber = ?";
+
+    @Test
+    void testSelect() {
+        assertTables("SELECT * FROM LOCATIONS", "locations");
+        assertTables(JOIN_QUERY, "orders", "customers", "orderdetails", "products");
+        assertTables("SELECT a.x, b.y FROM a, b AS bb, c cc WHERE a.id = b.id", "a", "b", "c");
+        assertTables("SELECT * FROM t1 LEFT OUTER JOIN t2 ON t1.id = t2.id, t3", "t1", "t2", "t3");
+        assertTables("SELECT 1");
+    }
+
+    @Test
+    void testQualifiedAndQuoted() {
+        assertTables("SELECT * FROM public.orders o JOIN \"Sales\".\"Order Details\" d ON o.id = d.id", "public.orders",
+                "sales.order details");
+        assertTables("SELECT * FROM [dbo].[Orders] WITH (NOLOCK) WHERE [Id] = 1", "dbo.orders");
+        assertTables("SELECT * FROM `shop`.`products` USE INDEX (idx_a, idx_b), suppliers", "shop.products", "suppliers");
+    }
+
+    @Test
+    void testSubqueries() {
+        assertTables("SELECT * FROM (SELECT id FROM inner_table) s, outer_table WHERE s.id IN (SELECT id FROM other)",
+                "inner_table", "outer_table", "other");
+        assertTables("SELECT (SELECT max(x) FROM u) AS m, c FROM t", "u", "t");
+        assertTables("SELECT * FROM (a JOIN b ON a.id = b.id)", "a", "b");
+        assertTables("(SELECT a FROM t1) UNION (SELECT a FROM t2)", "t1", "t2");
+        assertTables("WITH x AS (SELECT * FROM t), y (a) AS (SELECT a FROM u) SELECT * FROM x JOIN y ON x.a = y.a", "t",
+                "u");
+    }
+
+    @Test
+    void testFunctions() {
+        assertTables("SELECT EXTRACT(YEAR FROM created), SUBSTRING(name FROM 2) FROM t", "t");
+        assertTables("SELECT * FROM generate_series(1, 10) g JOIN t ON t.id = g", "t");
+        assertTables("SELECT SLEEP(1) FROM dual", "dual");
+    }
+
+    @Test
+    void testVendorDialects() {
+        assertTables("SELECT TOP 10 * FROM Employees e CROSS APPLY (SELECT * FROM Orders o WHERE o.emp = e.id) x",
+                "employees", "orders");
+        assertTables("SELECT /*+ INDEX(e emp_idx) */ * FROM employees e WHERE ROWNUM <= 10", "employees");
+        assertTables("SELECT * FROM books FETCH FIRST 10 ROWS ONLY", "books");
+        assertTables("SELECT * FROM accounts WHERE id = 1 FOR UPDATE", "accounts");
+        assertTables("SELECT * FROM t -- FROM ignored\nWHERE a = 'FROM x'", "t");
+    }
+
+    @Test
+    void testUpdates() {
+        assertTables("INSERT INTO orders (id, total) VALUES (1, 2)", "orders");
+        assertTables("INSERT INTO archive(id) SELECT id FROM orders", "archive", "orders");
+        assertTables("INSERT INTO t (a) VALUES (1) ON DUPLICATE KEY UPDATE a = 2", "t");
+        assertTables("UPDATE orders SET total = 1 FROM customers WHERE orders.customer = customers.id", "orders",
+                "customers");
+        assertTables("DELETE FROM orders WHERE id = 1", "orders");
+        assertTables("DELETE t1, t2 FROM t1 JOIN t2 ON t1.id = t2.id", "t1", "t2");
+        // Data-modifying common table expressions
+        assertTables("WITH x AS (DELETE FROM t WHERE a = 1 RETURNING *) SELECT * FROM x", "t");
+        assertTables("WITH x AS (UPDATE t SET a = 1 RETURNING id), y AS NOT MATERIALIZED (INSERT INTO u (id) SELECT id FROM x "
+                + "RETURNING id) SELECT * FROM y JOIN v ON v.id = y.id", "t", "u", "v");
+        assertTables("WITH x AS (SELECT * FROM t FOR UPDATE) SELECT * FROM x", "t");
+    }
+
+    @Test
+    void testUnsupported() {
+        Assertions.assertNull(TableNameExtractor.extract("{call proc(?)}"));
+        Assertions.assertNull(TableNameExtractor.extract("CREATE TABLE t (id INT)"));
+        Assertions.assertNull(TableNameExtractor.extract("SELECT * FROM t WHERE a = 'abc"));
+        Assertions.assertNull(TableNameExtractor.extract("SELECT * FROM (SELECT * FROM t"));
+        Assertions.assertNull(TableNameExtractor.extract("SELECT * FROM"));
+    }
+
+    @Test
+    void testFallback() {
+        SQLParser parser = new SQLParser();
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("orders", "customers", "orderdetails", "products")),
+                parser.extractTableNames(JOIN_QUERY));
+        Assertions.assertEquals(parser.parseTableNames(JOIN_QUERY), parser.extractTableNames(JOIN_QUERY));
+        Assertions.assertEquals(Collections.emptySet(), parser.extractTableNames("CREATE TABLE t (id INT"));
+    }
+
+    private void assertTables(String sql, String... expected) {
+        Set<String> tables = TableNameExtractor.extract(sql);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(expected)), tables, sql);
+    }
+
+}
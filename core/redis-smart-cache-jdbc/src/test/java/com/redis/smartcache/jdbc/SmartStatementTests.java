@@ -0,0 +1,121 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.RowSet;
+import javax.sql.rowset.CachedRowSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.AdaptiveTtl;
+import com.redis.smartcache.core.EvictingLinkedHashMap;
+import com.redis.smartcache.core.Fields;
+import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.ParameterConfig;
+import com.redis.smartcache.core.QueryRuleSession;
+import com.redis.smartcache.core.RuleConfig;
+import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.config.RulesetConfig;
+import com.redis.smartcache.test.RowSetBuilder;
+
+import io.airlift.units.Duration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SmartStatementTests {
+
+    private static final String ORDERS = "SELECT * FROM orders";
+
+    private static final String CUSTOMERS = "SELECT * FROM customers";
+
+    private static final String ORDER = "SELECT * FROM orders WHERE id = ?";
+
+    @Test
+    void adaptiveTtlSurvivesQueryEviction() throws SQLException {
+        RuleConfig rule = RuleConfig.passthrough().ttl(Duration.valueOf("100s"))
+                .ttlRange(Duration.valueOf("10s"), Duration.valueOf("1h")).build();
+        QueryRuleSession session = QueryRuleSession.of(RulesetConfig.of(rule));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CachedRowSet rowSet = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(10).columnCount(5).build();
+        Map<String, AdaptiveTtl> adaptiveTtls = new ConcurrentHashMap<>();
+        try (SmartConnection connection = new SmartConnection(
+                new StubDriver(rowSet).connect(StubDriver.URL, new Properties()), session, registry, new NoCache(),
+                new EvictingLinkedHashMap<>(1), KeyBuilder.of(new Config()))) {
+            connection.setAdaptiveTtls(adaptiveTtls);
+            // Each execution fetches the same result from the backend, which doubles the TTL after the first one
+            for (int index = 0; index < 3; index++) {
+                execute(connection, ORDERS);
+            }
+            Gauge gauge = registry.find(SmartStatement.METER_CACHE_TTL).tag(Fields.TAG_SQL, ORDERS).gauge();
+            Assertions.assertEquals(400000, gauge.value());
+            // Evicts the orders query from the query cache
+            execute(connection, CUSTOMERS);
+            execute(connection, ORDERS);
+            Assertions.assertEquals(2, adaptiveTtls.size());
+            gauge = registry.find(SmartStatement.METER_CACHE_TTL).tag(Fields.TAG_SQL, ORDERS).gauge();
+            Assertions.assertEquals(800000, gauge.value());
+        }
+    }
+
+    @Test
+    void parameterExcludedFromCaching() throws SQLException {
+        RuleConfig excluded = RuleConfig.passthrough().parameters(ParameterConfig.equalTo(1, "2"))
+                .ttl(RuleConfig.TTL_NO_CACHING).build();
+        RuleConfig rule = RuleConfig.passthrough().ttl(Duration.valueOf("100s")).build();
+        QueryRuleSession session = QueryRuleSession.of(RulesetConfig.of(excluded, rule));
+        CachedRowSet cached = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(1).build();
+        CachedRowSet notCached = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(3).build();
+        try (SmartConnection connection = new SmartConnection(
+                new StubDriver(cached, notCached).connect(StubDriver.URL, new Properties()), session,
+                new SimpleMeterRegistry(), new NoCache(), new EvictingLinkedHashMap<>(10), KeyBuilder.of(new Config()));
+                PreparedStatement statement = connection.prepareStatement(ORDER)) {
+            statement.setInt(1, 1);
+            Assertions.assertEquals(1, rowCount(statement.executeQuery()));
+            // Results of the previous parameters must not be returned
+            statement.setInt(1, 2);
+            Assertions.assertEquals(3, rowCount(statement.executeQuery()));
+        }
+    }
+
+    static int rowCount(ResultSet resultSet) throws SQLException {
+        int count = 0;
+        while (resultSet.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void execute(SmartConnection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery(sql).close();
+        }
+    }
+
+    private static class NoCache implements RowSetCache {
+
+        @Override
+        public RowSet get(String key) {
+            return null;
+        }
+
+        @Override
+        public void put(String key, RowSet rowSet, long ttlMillis) {
+            // Nothing is cached so that every execution goes to the backend
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+    }
+
+}
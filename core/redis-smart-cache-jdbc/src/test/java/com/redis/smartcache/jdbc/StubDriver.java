@@ -0,0 +1,130 @@
+package com.redis.smartcache.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Backend driver returning connections that do nothing, for tests and benchmarks that exercise the driver without a
+ * database. If ResultSets are given, executions of statements of these connections return them in turn, rewound, and the last
+ * one for all further executions.
+ */
+public class StubDriver implements java.sql.Driver {
+
+    public static final String URL = "jdbc:stub://";
+
+    private final ResultSet[] resultSets;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    public StubDriver() {
+        this(new ResultSet[0]);
+    }
+
+    /**
+     * 
+     * @param resultSets the ResultSets returned by executions in turn, or none for statements that do nothing
+     */
+    public StubDriver(ResultSet... resultSets) {
+        this.resultSets = resultSets;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if (resultSets.length > 0) {
+                switch (method.getName()) {
+                    case "createStatement":
+                        return statement(Statement.class);
+                    case "prepareStatement":
+                    case "prepareCall":
+                        return statement(PreparedStatement.class);
+                    default:
+                        break;
+                }
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type) {
+        ResultSet[] current = { resultSets[0] };
+        return proxy(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    current[0] = next();
+                    current[0].beforeFirst();
+                    return current[0];
+                case "getResultSet":
+                    current[0].beforeFirst();
+                    return current[0];
+                case "execute":
+                    current[0] = next();
+                    return true;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private ResultSet next() {
+        int last = resultSets.length - 1;
+        return resultSets[executions.getAndAccumulate(1, (index, increment) -> Math.min(index + increment, last))];
+    }
+
+    private <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url.startsWith(URL);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+}
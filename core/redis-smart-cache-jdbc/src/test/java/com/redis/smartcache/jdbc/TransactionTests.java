@@ -0,0 +1,142 @@
+package com.redis.smartcache.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.RowSet;
+import javax.sql.rowset.CachedRowSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.smartcache.core.KeyBuilder;
+import com.redis.smartcache.core.QueryRuleSession;
+import com.redis.smartcache.core.RuleConfig;
+import com.redis.smartcache.core.config.Config;
+import com.redis.smartcache.core.config.RulesetConfig;
+import com.redis.smartcache.test.RowSetBuilder;
+
+import io.airlift.units.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionTests {
+
+    @Test
+    void testDirtyTables() throws SQLException {
+        InvalidationRecorder cache = new InvalidationRecorder();
+        try (SmartConnection connection = connection(cache)) {
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("orders")));
+            connection.written("SELECT * FROM orders");
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("orders")));
+            connection.written("UPDATE public.orders SET total = 1 WHERE id = 2");
+            Assertions.assertTrue(connection.isDirty(Collections.singleton("orders")));
+            Assertions.assertTrue(connection.isDirty(new HashSet<>(Arrays.asList("customers", "sales.orders"))));
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("customers")));
+            // Tables of the query are not known
+            Assertions.assertTrue(connection.isDirty(Collections.emptySet()));
+            Assertions.assertTrue(cache.invalidations.isEmpty());
+            connection.commit();
+            Assertions.assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList("orders"))), cache.invalidations);
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("orders")));
+        }
+    }
+
+    @Test
+    void testRollback() throws SQLException {
+        InvalidationRecorder cache = new InvalidationRecorder();
+        try (SmartConnection connection = connection(cache)) {
+            connection.written("INSERT INTO orders (id) VALUES (1)");
+            connection.written("DELETE FROM customers WHERE id = 1");
+            Assertions.assertTrue(connection.isDirty(Collections.singleton("customers")));
+            connection.rollback();
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("customers")));
+            Assertions.assertTrue(cache.invalidations.isEmpty());
+            Assertions.assertEquals(0, cache.allInvalidations);
+        }
+    }
+
+    @Test
+    void testUnknownTables() throws SQLException {
+        InvalidationRecorder cache = new InvalidationRecorder();
+        try (SmartConnection connection = connection(cache)) {
+            connection.written("CREATE TABLE t (id INT");
+            Assertions.assertTrue(connection.isDirty(Collections.singleton("orders")));
+            connection.written("UPDATE orders SET total = 1 WHERE id = 2");
+            connection.commit();
+            Assertions.assertFalse(connection.isDirty(Collections.singleton("orders")));
+            // Writes to unknown tables invalidate all tables
+            Assertions.assertEquals(1, cache.allInvalidations);
+            Assertions.assertTrue(cache.invalidations.isEmpty());
+        }
+    }
+
+    @Test
+    void testReusedStatement() throws SQLException {
+        QueryRuleSession session = QueryRuleSession
+                .of(RulesetConfig.of(RuleConfig.passthrough().ttl(Duration.valueOf("100s")).build()));
+        CachedRowSet before = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(1).build();
+        CachedRowSet after = RowSetBuilder.of(new RowSetFactoryImpl()).rowCount(2).build();
+        try (SmartConnection connection = new SmartConnection(
+                new StubDriver(before, after).connect(StubDriver.URL, new Properties()), session,
+                new SimpleMeterRegistry(), new InvalidationRecorder(), new HashMap<>(), KeyBuilder.of(new Config()));
+                PreparedStatement statement = connection.prepareStatement("SELECT * FROM orders WHERE id = ?")) {
+            statement.setInt(1, 1);
+            Assertions.assertEquals(1, SmartStatementTests.rowCount(statement.executeQuery()));
+            try (Statement update = connection.createStatement()) {
+                update.executeUpdate("INSERT INTO orders (id) VALUES (2)");
+            }
+            // The connection reads its own write from the backend
+            Assertions.assertEquals(2, SmartStatementTests.rowCount(statement.executeQuery()));
+        }
+    }
+
+    private SmartConnection connection(RowSetCache cache) {
+        // Stub connections are not in auto-commit mode
+        return new SmartConnection(new StubDriver().connect(StubDriver.URL, new Properties()), null,
+                new SimpleMeterRegistry(), cache, new HashMap<>(), null);
+    }
+
+    private static class InvalidationRecorder implements RowSetCache {
+
+        private final List<Collection<String>> invalidations = new ArrayList<>();
+
+        private int allInvalidations;
+
+        @Override
+        public RowSet get(String key) {
+            return null;
+        }
+
+        @Override
+        public void put(String key, RowSet rowSet, long ttlMillis) {
+            // Nothing is cached
+        }
+
+        @Override
+        public void invalidate(Collection<String> tables) {
+            invalidations.add(new HashSet<>(tables));
+        }
+
+        @Override
+        public void invalidateAll() {
+            allInvalidations++;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+    }
+
+}